@@ -4,8 +4,11 @@ import com.mednex.mednex_enterprise.auth.dto.AuthRequest;
 import com.mednex.mednex_enterprise.auth.dto.AuthResponse;
 import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
 import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
-import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
+import com.mednex.mednex_enterprise.multitenancy.service.BranchDirectoryService;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
 import com.mednex.mednex_enterprise.security.service.JwtService;
+import com.mednex.mednex_enterprise.security.service.TokenRevocationService;
+import com.mednex.mednex_enterprise.security.service.VerifiedToken;
 import com.mednex.mednex_enterprise.core.entity.User;
 import com.mednex.mednex_enterprise.core.repository.BranchRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
@@ -31,39 +34,24 @@ import java.util.stream.Collectors;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final TenantRepository tenantRepository;
+    private final TenantMetadataCache tenantMetadataCache;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
     private final BranchRepository branchRepository;
     private final RoleRepository roleRepository;
     private final PatientRepository patientRepository;
+    private final BranchDirectoryService branchDirectoryService;
+    private final TokenRevocationService tokenRevocationService;
 
     public AuthResponse authenticate(AuthRequest request) {
         // 1. Validate Tenant exists and is active in Master DB
-        Tenant tenant = tenantRepository.findById(request.getHospitalId()).orElse(null);
+        Tenant tenant = tenantMetadataCache.findById(request.getHospitalId()).orElse(null);
 
-        // If not found by exact ID, it might be a branch code. Let's search across all
-        // tenants.
+        // If not found by exact ID, it might be a branch code. Resolve it through the
+        // master branch directory.
         if (tenant == null) {
-            List<Tenant> allTenants = tenantRepository.findAll();
-            for (Tenant t : allTenants) {
-                if (!t.isActive())
-                    continue;
-
-                try {
-                    TenantContext.setCurrentTenant(t.getTenantId());
-                    // See if this tenant has a branch with this code
-                    if (branchRepository.findByCode(request.getHospitalId()).isPresent()) {
-                        tenant = t;
-                        break;
-                    }
-                } catch (Exception e) {
-                    // Ignore if DB isn't ready or branch not found
-                } finally {
-                    TenantContext.clear();
-                }
-            }
+            tenant = findTenantByBranchCode(request.getHospitalId());
         }
 
         if (tenant == null) {
@@ -95,6 +83,7 @@ public class AuthService {
             Map<String, Object> extraClaims = new HashMap<>();
 
             extraClaims.put("hospital_id", tenant.getTenantId());
+            extraClaims.put("user_id", user.getId().toString());
             extraClaims.put("subscription", tenant.getSubscriptionPlan());
 
             if (user.getPrimaryBranch() != null) {
@@ -155,6 +144,7 @@ public class AuthService {
                         // Generate extra claims specifically as done in login
                         Map<String, Object> extraClaims = new HashMap<>();
                         extraClaims.put("hospital_id", request.getHospitalId());
+                        extraClaims.put("user_id", user.getId().toString());
                         if (user.getPrimaryBranch() != null) {
                             extraClaims.put("primary_branch_id", user.getPrimaryBranch().getId());
                         }
@@ -190,27 +180,24 @@ public class AuthService {
         }
     }
 
+    /**
+     * Revokes the presented access token. Needed when stateless authentication
+     * is enabled, since the filter no longer re-reads the user on each request.
+     */
+    public void logout(String token) {
+        VerifiedToken verified = jwtService.verify(token);
+        tokenRevocationService.revokeToken(token, verified);
+    }
+
     public AuthResponse registerPatient(PatientRegistrationRequest request) {
         String providedId = request.getHospitalId();
-        Tenant tenant = tenantRepository.findById(providedId).orElse(null);
+        Tenant tenant = tenantMetadataCache.findById(providedId).orElse(null);
         String resolvedBranchCode = null;
 
         if (tenant == null) {
-            List<Tenant> allTenants = tenantRepository.findAll();
-            for (Tenant t : allTenants) {
-                if (!t.isActive())
-                    continue;
-                try {
-                    TenantContext.setCurrentTenant(t.getTenantId());
-                    if (branchRepository.findByCode(providedId).isPresent()) {
-                        tenant = t;
-                        resolvedBranchCode = providedId;
-                        break;
-                    }
-                } catch (Exception e) {
-                } finally {
-                    TenantContext.clear();
-                }
+            tenant = findTenantByBranchCode(providedId);
+            if (tenant != null) {
+                resolvedBranchCode = providedId;
             }
         } else {
             // Provided direct Tenant ID, fallback to MAIN branch
@@ -276,4 +263,18 @@ public class AuthService {
             TenantContext.clear();
         }
     }
+
+    /**
+     * Resolves a branch code to the first active tenant owning it, using the
+     * in-memory branch directory instead of querying each tenant database.
+     */
+    private Tenant findTenantByBranchCode(String branchCode) {
+        for (String tenantId : branchDirectoryService.findTenantIds(branchCode)) {
+            Tenant candidate = tenantMetadataCache.findById(tenantId).orElse(null);
+            if (candidate != null && candidate.isActive()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
 }
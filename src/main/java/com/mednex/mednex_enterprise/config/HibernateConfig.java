@@ -2,6 +2,7 @@ package com.mednex.mednex_enterprise.config;
 
 import com.mednex.mednex_enterprise.multitenancy.datasource.TenantDataSourceProvider;
 import com.mednex.mednex_enterprise.multitenancy.datasource.TenantRoutingDataSource;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,10 +44,11 @@ public class HibernateConfig {
     @Bean
     public DataSource tenantRoutingDataSource(
             @Qualifier("masterDataSource") DataSource masterDataSource,
-            TenantDataSourceProvider tenantDataSourceProvider) {
+            TenantDataSourceProvider tenantDataSourceProvider,
+            TenantMigrationTracker migrationTracker) {
 
         TenantRoutingDataSource routingDataSource = new TenantRoutingDataSource(tenantDataSourceProvider,
-                masterDataSource);
+                masterDataSource, migrationTracker);
 
         Map<Object, Object> dataSources = new HashMap<>();
         // At startup, we just know about the master.
@@ -43,6 +43,12 @@ public class TenantJpaConfig {
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.put("hibernate.show_sql", "true");
         properties.put("hibernate.format_sql", "true");
+        // Batch multi-row writes such as dispense allocations
+        properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        // Load an association of up to a full page of entities in one select, e.g. the roles of a page of users
+        properties.put("hibernate.default_batch_fetch_size", "200");
         properties.put("hibernate.physical_naming_strategy",
                 "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
 
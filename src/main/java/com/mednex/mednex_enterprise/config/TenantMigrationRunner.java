@@ -1,17 +1,29 @@
 package com.mednex.mednex_enterprise.config;
 
-import com.mednex.mednex_enterprise.multitenancy.datasource.TenantDataSourceProvider;
+import com.mednex.mednex_enterprise.core.repository.BranchRepository;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
 import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
 import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationStatus;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
+import com.mednex.mednex_enterprise.multitenancy.service.BranchDirectoryService;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.sql.DataSource;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 @Component
 @RequiredArgsConstructor
@@ -19,36 +31,130 @@ import java.util.List;
 public class TenantMigrationRunner {
 
     private final TenantRepository tenantRepository;
-    private final TenantDataSourceProvider tenantDataSourceProvider;
+    private final BranchRepository branchRepository;
+    private final BranchDirectoryService branchDirectoryService;
+    private final TenantMigrationTracker migrationTracker;
 
+    // Maximum number of tenant databases migrated at the same time
+    @Value("${application.tenancy.migration.parallelism:8}")
+    private int parallelism;
+
+    /**
+     * Migrates every tenant on virtual threads, at most {@code parallelism} at a
+     * time, and returns immediately. Each tenant is held back from routing until
+     * its own migration finishes; see {@link TenantMigrationTracker}.
+     */
     @EventListener(ApplicationReadyEvent.class)
     public void migrateAllTenants() {
-        log.info("Starting Flyway migrations for all existing tenants...");
         List<Tenant> tenants = tenantRepository.findAll();
+        log.info("Starting Flyway migrations for {} tenants (parallelism {})...", tenants.size(), parallelism);
+
+        // Register every tenant before any work starts so none is routable mid-migration
+        tenants.forEach(tenant -> migrationTracker.markPending(tenant.getTenantId()));
+        migrationTracker.markRegistrationComplete();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        long startedAt = System.currentTimeMillis();
+
+        CompletableFuture<?>[] migrations = tenants.stream()
+                .map(tenant -> CompletableFuture.runAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        migrateTenant(tenant);
+                    } finally {
+                        permits.release();
+                    }
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(migrations).whenComplete((result, error) -> {
+            executor.shutdown();
+            log.info("Finished tenant migrations in {} ms: {} ready, {} failed.",
+                    System.currentTimeMillis() - startedAt,
+                    migrationTracker.countByStatus(TenantMigrationStatus.READY),
+                    migrationTracker.countByStatus(TenantMigrationStatus.FAILED));
+        });
+    }
 
-        for (Tenant tenant : tenants) {
-            try {
-                // Ensure data source is cached and accessible
-                tenantDataSourceProvider.addDataSource(tenant);
-                DataSource dataSource = tenantDataSourceProvider.getDataSource(tenant.getTenantId());
-
-                Flyway flyway = Flyway.configure()
-                        .dataSource(dataSource)
-                        .locations("classpath:db/migration/tenant")
-                        .baselineOnMigrate(true)
-                        .validateOnMigrate(false) // Disable validation to ignore checksum mismatches
-                        // Alternatively you can enable repair: .cleanDisabled(false) and then run
-                        // flyway.repair() before migrate
-                        .load();
-
-                // flyway.repair(); // Use repair if you want to update the schema history with
-                // new checksums
-                flyway.migrate();
-                log.info("Successfully migrated tenant: {}", tenant.getTenantId());
-            } catch (Exception e) {
-                log.error("Failed to migrate tenant '{}'", tenant.getTenantId(), e);
+    /**
+     * Retries the tenants whose migration failed, e.g. because their database
+     * was unreachable at startup, so they do not stay unroutable until the next
+     * restart. Runs one tenant at a time.
+     */
+    @Scheduled(initialDelayString = "${application.tenancy.migration.retry-interval-ms:300000}",
+            fixedDelayString = "${application.tenancy.migration.retry-interval-ms:300000}")
+    public void retryFailedMigrations() {
+        List<String> failed = migrationTracker.getFailedTenantIds();
+        if (failed.isEmpty()) {
+            return;
+        }
+        log.info("Retrying failed migrations of {} tenants...", failed.size());
+        failed.forEach(this::retryMigration);
+    }
+
+    /**
+     * Migrates a tenant whose migration failed again, in the calling thread.
+     * Returns false, without migrating, if the tenant is unknown or its
+     * migration has not failed.
+     */
+    public boolean retryMigration(String tenantId) {
+        Optional<Tenant> tenant = tenantRepository.findById(tenantId);
+        if (tenant.isEmpty() || !migrationTracker.markRetrying(tenantId)) {
+            return false;
+        }
+        migrateTenant(tenant.get());
+        return true;
+    }
+
+    private void migrateTenant(Tenant tenant) {
+        migrationTracker.markMigrating(tenant.getTenantId());
+        try {
+            // Migrate over a plain driver connection so booting does not open a
+            // connection pool for every tenant; pools are created on first request
+            FluentConfiguration configuration = Flyway.configure()
+                    .dataSource(tenant.getDbUrl(), tenant.getDbUsername(), tenant.getDbPassword())
+                    .locations("classpath:db/migration/tenant")
+                    .baselineOnMigrate(true)
+                    // Alternatively you can enable repair: .cleanDisabled(false) and then run
+                    // flyway.repair() before migrate
+                    .validateOnMigrate(false); // Disable validation to ignore checksum mismatches
+
+            if (tenant.isSchemaIsolated()) {
+                // Shared-database tenants keep their tables and history in their own schema
+                configuration.schemas(tenant.getSchemaName());
             }
+            Flyway flyway = configuration.load();
+
+            // flyway.repair(); // Use repair if you want to update the schema history with
+            // new checksums
+            MigrateResult result = flyway.migrate();
+            migrationTracker.markReady(tenant.getTenantId(), result.migrationsExecuted);
+            log.info("Successfully migrated tenant: {}", tenant.getTenantId());
+        } catch (Exception e) {
+            migrationTracker.markFailed(tenant.getTenantId(), e);
+            log.error("Failed to migrate tenant '{}'", tenant.getTenantId(), e);
+            return;
+        }
+
+        // Only tenants that predate the branch directory need a backfill
+        if (tenant.isActive() && !branchDirectoryService.hasTenant(tenant.getTenantId())) {
+            syncBranchDirectory(tenant);
+        }
+    }
+
+    /**
+     * Backfills the master branch directory from the tenant's own branches table,
+     * so tenants created before the directory existed stay resolvable by code.
+     */
+    private void syncBranchDirectory(Tenant tenant) {
+        try {
+            TenantContext.setCurrentTenant(tenant.getTenantId());
+            branchDirectoryService.syncTenant(tenant.getTenantId(), branchRepository.findAll());
+        } catch (Exception e) {
+            log.error("Failed to sync branch directory for tenant '{}'", tenant.getTenantId(), e);
+        } finally {
+            TenantContext.clear();
         }
-        log.info("Finished tenant migrations.");
     }
 }
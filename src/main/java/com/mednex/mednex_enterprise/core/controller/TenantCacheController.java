@@ -0,0 +1,36 @@
+package com.mednex.mednex_enterprise.core.controller;
+
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSnapshotCache;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Cache statistics across all tenants on this node, for platform operators
+ * only, like {@link TenantMigrationController}.
+ */
+@RestController
+@RequestMapping("/api/v1/debug/tenant-cache")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('PLATFORM_ADMIN')")
+public class TenantCacheController {
+
+    private final TenantMetadataCache tenantMetadataCache;
+    private final EmrSnapshotCache emrSnapshotCache;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(tenantMetadataCache.getStats());
+    }
+
+    @GetMapping("/emr-stats")
+    public ResponseEntity<Map<String, Object>> getEmrStats() {
+        return ResponseEntity.ok(emrSnapshotCache.getStats());
+    }
+}
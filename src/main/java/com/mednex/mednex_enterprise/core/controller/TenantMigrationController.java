@@ -0,0 +1,68 @@
+package com.mednex.mednex_enterprise.core.controller;
+
+import com.mednex.mednex_enterprise.config.TenantMigrationRunner;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationReport;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationStatus;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migration state of every tenant on this node. Lists all tenant IDs and their
+ * errors, so only platform operators may read it; the PLATFORM_ADMIN role is
+ * not seeded into tenant databases and cannot be granted by hospital admins.
+ */
+@RestController
+@RequestMapping("/api/v1/debug/tenant-migrations")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('PLATFORM_ADMIN')")
+public class TenantMigrationController {
+
+    private final TenantMigrationTracker migrationTracker;
+    private final TenantMigrationRunner migrationRunner;
+
+    /**
+     * Fleet readiness: 200 once every tenant migration has finished, 503 before
+     * the tenants are registered or while any is still queued or running.
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> getReadiness() {
+        boolean ready = migrationTracker.isFleetReady();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("ready", ready);
+        for (TenantMigrationStatus status : TenantMigrationStatus.values()) {
+            body.put(status.name().toLowerCase(), migrationTracker.countByStatus(status));
+        }
+
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<TenantMigrationReport>> getReports() {
+        return ResponseEntity.ok(migrationTracker.getReports());
+    }
+
+    /**
+     * Migrates a tenant whose migration failed again, without waiting for the
+     * scheduled retry. 409 if its migration has not failed.
+     */
+    @PostMapping("/{tenantId}/retry")
+    public ResponseEntity<TenantMigrationReport> retry(@PathVariable String tenantId) {
+        if (!migrationRunner.retryMigration(tenantId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(migrationTracker.getReport(tenantId));
+        }
+        return ResponseEntity.ok(migrationTracker.getReport(tenantId));
+    }
+}
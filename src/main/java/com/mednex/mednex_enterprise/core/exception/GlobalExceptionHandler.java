@@ -1,5 +1,10 @@
 package com.mednex.mednex_enterprise.core.exception;
 
+import com.mednex.mednex_enterprise.module.clinical.appointment.exception.SlotUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.ipd.exception.BedUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.nurse.exception.NurseBranchNotAssignedException;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantUnavailableException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +16,58 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(BedUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleBedUnavailable(BedUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now().toString(),
+                        "error", "Conflict",
+                        "message", ex.getMessage(),
+                        "bedId", ex.getBedId(),
+                        "alternatives", ex.getAlternatives()
+                ));
+    }
+
+    @ExceptionHandler(SlotUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleSlotUnavailable(SlotUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now().toString(),
+                        "error", "Conflict",
+                        "message", ex.getMessage(),
+                        "doctorId", ex.getDoctorId(),
+                        "time", ex.getTime().toString(),
+                        "alternatives", ex.getAlternatives()
+                ));
+    }
+
+    @ExceptionHandler(NurseBranchNotAssignedException.class)
+    public ResponseEntity<Map<String, Object>> handleNurseBranchNotAssigned(NurseBranchNotAssignedException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now().toString(),
+                        "error", "Conflict",
+                        "message", ex.getMessage(),
+                        "nurseId", ex.getNurseId()
+                ));
+    }
+
+    @ExceptionHandler(TenantUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleTenantUnavailable(TenantUnavailableException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(Map.of(
+                        "timestamp", LocalDateTime.now().toString(),
+                        "error", "Service Unavailable",
+                        "message", ex.getMessage(),
+                        "tenantId", ex.getTenantId()
+                ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleAllExceptions(Exception ex) {
         ex.printStackTrace(); // Log to console
@@ -0,0 +1,19 @@
+package com.mednex.mednex_enterprise.core.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPage<T> {
+    private List<T> items;
+    // Opaque; pass back as the cursor parameter to fetch the next page
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,127 @@
+package com.mednex.mednex_enterprise.core.pagination;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Shared keyset pagination contract for list endpoints.
+ *
+ * A page query orders by a stable, unique sort key (the sort columns plus the
+ * row ID) and only returns rows after the key of the previous page's last
+ * row. Callers fetch one row more than the page size to learn whether another
+ * page exists. The key is handed to clients as an opaque cursor. Queries take
+ * the MIN/MAX sentinels below for the first page instead of nullable
+ * parameters, so they never need "IS NULL OR" branches.
+ */
+public final class KeysetPaging {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // Sort before and after every real ID or timestamp respectively
+    public static final UUID MIN_ID = new UUID(0L, 0L);
+    public static final UUID MAX_ID = new UUID(-1L, -1L);
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String SEPARATOR = "\u001F";
+
+    /**
+     * Escape character of {@link #containsPattern} patterns; page queries
+     * declare it with {@code LIKE :pattern ESCAPE '!'}.
+     */
+    public static final char LIKE_ESCAPE = '!';
+
+    private KeysetPaging() {
+    }
+
+    public static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * A lower-case LIKE pattern matching values that contain {@code search}
+     * literally, or every value for a blank search. {@code %} and {@code _} in
+     * the search are escaped with {@link #LIKE_ESCAPE}.
+     */
+    public static String containsPattern(String search) {
+        if (search == null || search.isBlank()) {
+            return "%";
+        }
+        StringBuilder pattern = new StringBuilder("%");
+        for (char c : search.trim().toLowerCase().toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                pattern.append(LIKE_ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    /**
+     * One row more than the page size, see {@link #page}.
+     */
+    public static Pageable fetch(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    public static String encode(Object... keys) {
+        String key = Arrays.stream(keys).map(String::valueOf).collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits a cursor back into its {@code keyCount} keys, or returns null for
+     * the first page.
+     */
+    public static String[] decode(String cursor, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = key.split(SEPARATOR, -1);
+            if (keys.length != keyCount) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Parses a cursor key, reporting a malformed one as an invalid cursor.
+     */
+    public static <K> K parse(String key, Function<String, K> parser) {
+        try {
+            return parser.apply(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Trims rows fetched with {@link #fetch} to the page size and builds the
+     * cursor of the next page from the last row kept.
+     */
+    public static <E, T> CursorPage<T> page(List<E> rows, int pageSize, Function<E, T> mapper,
+            Function<E, String> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<E> kept = hasMore ? rows.subList(0, pageSize) : rows;
+        return CursorPage.<T>builder()
+                .items(kept.stream().map(mapper).collect(Collectors.toList()))
+                .nextCursor(hasMore ? cursorOf.apply(kept.get(kept.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+}
@@ -7,12 +7,17 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import com.mednex.mednex_enterprise.core.entity.User;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface StaffProfileRepository extends JpaRepository<StaffProfile, UUID> {
     Optional<StaffProfile> findByUserId(UUID userId);
 
+    // [userId, specialization] for each user that has a profile
+    @Query("SELECT sp.user.id, sp.specialization FROM StaffProfile sp WHERE sp.user.id IN :userIds")
+    List<Object[]> findSpecializationsByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
     Optional<StaffProfile> findByNationalIdNumber(String nationalIdNumber);
 
     Optional<StaffProfile> findByMedicalLicenseNumber(String licenseNumber);
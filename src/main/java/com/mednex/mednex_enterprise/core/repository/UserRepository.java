@@ -1,9 +1,11 @@
 package com.mednex.mednex_enterprise.core.repository;
 
 import com.mednex.mednex_enterprise.core.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,4 +17,29 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     List<User> findBranchAdminsByBranchId(@Param("branchId") UUID branchId);
 
     List<User> findAllByRolesName(String roleName);
+
+    /**
+     * Keyset page of users ordered by name. Users outside {@code branchIds} are
+     * skipped unless {@code allBranches} is set; {@code role} is ignored when
+     * {@code anyRole} is set.
+     */
+    @Query("SELECT u FROM User u " +
+           "WHERE (:allBranches = true OR u.primaryBranch.id IN :branchIds " +
+           "OR EXISTS (SELECT b FROM u.branches b WHERE b.id IN :branchIds)) " +
+           "AND (:anyRole = true OR EXISTS (SELECT r FROM u.roles r WHERE r.name = :role)) " +
+           "AND (LOWER(u.name) LIKE :pattern ESCAPE '!' OR LOWER(u.email) LIKE :pattern ESCAPE '!') " +
+           "AND (u.name > :afterName OR (u.name = :afterName AND u.id > :afterId)) " +
+           "ORDER BY u.name, u.id")
+    List<User> findStaffPage(@Param("allBranches") boolean allBranches,
+                             @Param("branchIds") Collection<UUID> branchIds,
+                             @Param("anyRole") boolean anyRole,
+                             @Param("role") String role,
+                             @Param("pattern") String pattern,
+                             @Param("afterName") String afterName,
+                             @Param("afterId") UUID afterId,
+                             Pageable pageable);
+
+    // Loads the additional branches of a page of users in one query instead of one per user
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.branches WHERE u.id IN :ids")
+    List<User> findWithBranchesByIdIn(@Param("ids") Collection<UUID> ids);
 }
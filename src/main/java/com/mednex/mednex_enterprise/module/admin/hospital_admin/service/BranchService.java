@@ -6,6 +6,9 @@ import com.mednex.mednex_enterprise.core.entity.Branch;
 import com.mednex.mednex_enterprise.core.repository.BranchRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.multitenancy.service.BranchDirectoryService;
+import com.mednex.mednex_enterprise.security.service.TokenRevocationService;
 import org.springframework.security.core.context.SecurityContextHolder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,8 @@ public class BranchService {
 
     private final BranchRepository branchRepository;
     private final UserRepository userRepository;
+    private final BranchDirectoryService branchDirectoryService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Transactional("tenantTransactionManager")
     public BranchResponse createBranch(BranchRequest request) {
@@ -34,6 +39,7 @@ public class BranchService {
                 .build();
 
         Branch savedBranch = branchRepository.save(branch);
+        branchDirectoryService.register(TenantContext.getCurrentTenant(), savedBranch);
 
         return mapToResponse(savedBranch);
     }
@@ -75,6 +81,7 @@ public class BranchService {
                 admin.setActive(false);
                 admin.getRoles().clear();
                 userRepository.save(admin);
+                tokenRevocationService.revokeUser(TenantContext.getCurrentTenant(), admin.getEmail());
             }
         }
     }
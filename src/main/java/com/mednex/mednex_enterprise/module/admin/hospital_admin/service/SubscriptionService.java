@@ -4,6 +4,7 @@ import com.mednex.mednex_enterprise.module.admin.hospital_admin.dto.Subscription
 import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
 import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
 import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
 import com.mednex.mednex_enterprise.core.entity.User;
 import com.mednex.mednex_enterprise.core.entity.Branch;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
@@ -20,6 +21,7 @@ import java.time.temporal.ChronoUnit;
 public class SubscriptionService {
 
     private final TenantRepository tenantRepository;
+    private final TenantMetadataCache tenantMetadataCache;
     private final UserRepository userRepository;
     private final BranchRepository branchRepository;
 
@@ -38,7 +40,7 @@ public class SubscriptionService {
             if (currentTenantId == null)
                 throw new RuntimeException("No tenant context found");
 
-            Tenant tenant = tenantRepository.findById(currentTenantId)
+            Tenant tenant = tenantMetadataCache.findById(currentTenantId)
                     .orElseThrow(() -> new RuntimeException("Tenant not found"));
 
             if (tenant.getSubscriptionEndDate() != null) {
@@ -104,6 +106,7 @@ public class SubscriptionService {
             tenant.setSubscriptionCost(baseCost);
             tenant.setUpdatedAt(now);
             tenantRepository.save(tenant);
+            tenantMetadataCache.evict(currentTenantId);
         } else {
             Branch primaryBranch = currentUser.getPrimaryBranch();
             if (primaryBranch == null)
@@ -1,5 +1,6 @@
 package com.mednex.mednex_enterprise.module.admin.shared.controller;
 
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
 import com.mednex.mednex_enterprise.module.admin.shared.dto.StaffRegistrationRequest;
 import com.mednex.mednex_enterprise.module.admin.shared.dto.StaffResponse;
 import com.mednex.mednex_enterprise.module.admin.shared.service.StaffService;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -35,4 +37,14 @@ public class StaffController {
     public ResponseEntity<List<StaffResponse>> getAllStaff() {
         return ResponseEntity.ok(staffService.getAllStaff());
     }
+
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('BRANCH_ADMIN', 'HOSPITAL_ADMIN')")
+    public ResponseEntity<CursorPage<StaffResponse>> getStaffPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(staffService.getStaffPage(search, role, cursor, limit));
+    }
 }
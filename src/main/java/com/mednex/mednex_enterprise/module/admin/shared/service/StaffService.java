@@ -6,11 +6,14 @@ import com.mednex.mednex_enterprise.core.entity.Branch;
 import com.mednex.mednex_enterprise.core.entity.Role;
 import com.mednex.mednex_enterprise.core.entity.StaffProfile;
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
 import com.mednex.mednex_enterprise.core.repository.BranchRepository;
 import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
 import com.mednex.mednex_enterprise.core.repository.RoleRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -175,32 +178,68 @@ public class StaffService {
 
     @Transactional(readOnly = true)
     public List<StaffResponse> getAllStaff() {
+        StaffScope scope = currentScope();
+        List<User> staffMembers = userRepository.findStaffPage(scope.allBranches, scope.branchIds, true, "", "%",
+                "", KeysetPaging.MIN_ID, Pageable.unpaged());
+        return mapToResponses(staffMembers);
+    }
+
+    /**
+     * One page of the staff visible to the current admin, ordered by name.
+     * {@code search} matches name or email; {@code role} narrows to one role.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<StaffResponse> getStaffPage(String search, String role, String cursor, Integer limit) {
+        StaffScope scope = currentScope();
+        int pageSize = KeysetPaging.pageSize(limit);
+        String pattern = KeysetPaging.containsPattern(search);
+        boolean anyRole = role == null || role.isBlank();
+
+        String[] after = KeysetPaging.decode(cursor, 2);
+        String afterName = after == null ? "" : after[0];
+        UUID afterId = after == null ? KeysetPaging.MIN_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        List<User> rows = userRepository.findStaffPage(scope.allBranches, scope.branchIds, anyRole,
+                anyRole ? "" : role.trim(), pattern, afterName, afterId, KeysetPaging.fetch(pageSize));
+        CursorPage<User> page = KeysetPaging.page(rows, pageSize, user -> user,
+                user -> KeysetPaging.encode(user.getName(), user.getId()));
+        return CursorPage.<StaffResponse>builder()
+                .items(mapToResponses(page.getItems()))
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .build();
+    }
+
+    /**
+     * Hospital admins see every user; other admins only users with a primary
+     * or additional branch among their own branches.
+     */
+    private StaffScope currentScope() {
         String currentAdminEmail = SecurityContextHolder.getContext().getAuthentication().getName();
         User currentAdmin = userRepository.findByEmail(currentAdminEmail)
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
 
         boolean isHospitalAdmin = currentAdmin.getRoles().stream().anyMatch(r -> r.getName().equals("HOSPITAL_ADMIN"));
 
-        List<User> staffMembers;
-
-        if (isHospitalAdmin) {
-            staffMembers = userRepository.findAll();
-        } else {
-            Set<UUID> adminBranchIds = currentAdmin.getBranches().stream().map(Branch::getId)
-                    .collect(Collectors.toSet());
-            if (currentAdmin.getPrimaryBranch() != null) {
-                adminBranchIds.add(currentAdmin.getPrimaryBranch().getId());
-            }
-
-            // Filter staff who belong to at least one of the Admin's branches
-            staffMembers = userRepository.findAll().stream()
-                    .filter(user -> user.getBranches().stream().anyMatch(b -> adminBranchIds.contains(b.getId()))
-                            || (user.getPrimaryBranch() != null
-                                    && adminBranchIds.contains(user.getPrimaryBranch().getId())))
-                    .collect(Collectors.toList());
+        Set<UUID> adminBranchIds = currentAdmin.getBranches().stream().map(Branch::getId)
+                .collect(Collectors.toSet());
+        if (currentAdmin.getPrimaryBranch() != null) {
+            adminBranchIds.add(currentAdmin.getPrimaryBranch().getId());
+        }
+        if (adminBranchIds.isEmpty()) {
+            // Keeps the IN list valid; matches no branch
+            adminBranchIds.add(KeysetPaging.MIN_ID);
         }
+        return new StaffScope(isHospitalAdmin, adminBranchIds);
+    }
 
-        return staffMembers.stream().map(this::mapToResponse).collect(Collectors.toList());
+    private List<StaffResponse> mapToResponses(List<User> users) {
+        if (!users.isEmpty()) {
+            // Primary branches, roles and their permissions are eager and were loaded with the page, one
+            // batched select each (hibernate.default_batch_fetch_size); additional branches in one more
+            userRepository.findWithBranchesByIdIn(users.stream().map(User::getId).collect(Collectors.toList()));
+        }
+        return users.stream().map(this::mapToResponse).collect(Collectors.toList());
     }
 
     private StaffResponse mapToResponse(User user) {
@@ -215,4 +254,14 @@ public class StaffService {
                 .createdAt(user.getCreatedAt() != null ? user.getCreatedAt() : LocalDateTime.now())
                 .build();
     }
+
+    private static class StaffScope {
+        private final boolean allBranches;
+        private final Set<UUID> branchIds;
+
+        private StaffScope(boolean allBranches, Set<UUID> branchIds) {
+            this.allBranches = allBranches;
+            this.branchIds = branchIds;
+        }
+    }
 }
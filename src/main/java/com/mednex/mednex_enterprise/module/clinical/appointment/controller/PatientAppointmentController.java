@@ -5,6 +5,7 @@ import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.AppointmentRequestDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.AvailableSlotDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.DoctorInfoDTO;
+import com.mednex.mednex_enterprise.module.clinical.appointment.dto.SlotAvailabilityDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.service.PatientAppointmentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -46,6 +47,21 @@ public class PatientAppointmentController {
         return ResponseEntity.ok(appointmentService.getAvailableSlots(doctorId, date));
     }
 
+    /**
+     * Earliest free slots across doctors and days, e.g.
+     * {@code ?specialization=Cardiology&days=7&limit=1} for the first free
+     * cardiology slot this week.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<List<SlotAvailabilityDTO>> findAvailableSlots(
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) List<UUID> doctorIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(appointmentService.findAvailableSlots(specialization, doctorIds, from, days, limit));
+    }
+
     @PostMapping("/request")
     public ResponseEntity<String> requestAppointment(Authentication authentication,
             @RequestBody AppointmentRequestDTO request) {
@@ -0,0 +1,21 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlotAvailabilityDTO {
+    private UUID doctorId;
+    private String doctorName;
+    private String specialization;
+    private LocalDateTime time;
+    private int durationMinutes;
+}
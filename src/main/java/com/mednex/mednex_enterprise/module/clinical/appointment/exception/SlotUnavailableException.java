@@ -0,0 +1,36 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment.exception;
+
+import com.mednex.mednex_enterprise.module.clinical.appointment.dto.SlotAvailabilityDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SlotUnavailableException extends RuntimeException {
+
+    private final UUID doctorId;
+    private final LocalDateTime time;
+    private final List<SlotAvailabilityDTO> alternatives;
+
+    public SlotUnavailableException(UUID doctorId, LocalDateTime time, List<SlotAvailabilityDTO> alternatives) {
+        super("Slot already booked for this doctor at " + time);
+        this.doctorId = doctorId;
+        this.time = time;
+        this.alternatives = alternatives;
+    }
+
+    public UUID getDoctorId() {
+        return doctorId;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public List<SlotAvailabilityDTO> getAlternatives() {
+        return alternatives;
+    }
+}
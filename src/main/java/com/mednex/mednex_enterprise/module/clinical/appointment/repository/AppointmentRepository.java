@@ -1,7 +1,10 @@
 package com.mednex.mednex_enterprise.module.clinical.appointment.repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +23,31 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
         @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.doctor WHERE a.patient.id = :patientId ORDER BY CASE WHEN a.appointmentTime IS NULL THEN 0 ELSE 1 END DESC, a.appointmentTime DESC")
         List<Appointment> findByPatientIdOrderByAppointmentTimeDesc(@Param("patientId") UUID patientId);
 
+        // Keyset pages; unscheduled appointments sort as :unscheduled, i.e. after every scheduled one
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p LEFT JOIN FETCH a.doctor d " +
+                        "WHERE a.doctor.id = :doctorId AND a.status IN :statuses " +
+                        "AND (COALESCE(a.appointmentTime, :unscheduled) > :afterTime " +
+                        "OR (COALESCE(a.appointmentTime, :unscheduled) = :afterTime AND a.id > :afterId)) " +
+                        "ORDER BY COALESCE(a.appointmentTime, :unscheduled), a.id")
+        List<Appointment> findPageByDoctorId(@Param("doctorId") UUID doctorId,
+                        @Param("statuses") Collection<AppointmentStatus> statuses,
+                        @Param("unscheduled") LocalDateTime unscheduled,
+                        @Param("afterTime") LocalDateTime afterTime,
+                        @Param("afterId") UUID afterId,
+                        Pageable pageable);
+
+        @Query("SELECT a FROM Appointment a LEFT JOIN FETCH a.doctor " +
+                        "WHERE a.patient.id = :patientId AND a.status IN :statuses " +
+                        "AND (COALESCE(a.appointmentTime, :unscheduled) < :beforeTime " +
+                        "OR (COALESCE(a.appointmentTime, :unscheduled) = :beforeTime AND a.id < :beforeId)) " +
+                        "ORDER BY COALESCE(a.appointmentTime, :unscheduled) DESC, a.id DESC")
+        List<Appointment> findPageByPatientId(@Param("patientId") UUID patientId,
+                        @Param("statuses") Collection<AppointmentStatus> statuses,
+                        @Param("unscheduled") LocalDateTime unscheduled,
+                        @Param("beforeTime") LocalDateTime beforeTime,
+                        @Param("beforeId") UUID beforeId,
+                        Pageable pageable);
+
         @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p LEFT JOIN FETCH a.doctor d WHERE a.doctor.id = :doctorId AND a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime ASC")
         List<Appointment> findByDoctorIdAndAppointmentTimeBetweenOrderByAppointmentTimeAsc(@Param("doctorId") UUID doctorId,
                         @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -28,6 +56,18 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
 
         List<Appointment> findByBranchId(UUID branchId);
 
+        // Half-open window [start, end); unscheduled appointments never match
+        @Query("SELECT a FROM Appointment a JOIN FETCH a.patient WHERE a.branch.id = :branchId " +
+                        "AND a.appointmentTime >= :start AND a.appointmentTime < :end ORDER BY a.appointmentTime ASC, a.id ASC")
+        List<Appointment> findByBranchIdAndTimeWindow(@Param("branchId") UUID branchId,
+                        @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        // [status, count] for the branch's appointments in the window [start, end)
+        @Query("SELECT a.status, COUNT(a) FROM Appointment a WHERE a.branch.id = :branchId " +
+                        "AND a.appointmentTime >= :start AND a.appointmentTime < :end GROUP BY a.status")
+        List<Object[]> countByBranchIdAndTimeWindowGroupByStatus(@Param("branchId") UUID branchId,
+                        @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
         @Query("SELECT a FROM Appointment a JOIN FETCH a.patient WHERE a.status IN :statuses ORDER BY a.appointmentTime ASC")
         List<Appointment> findByStatusInOrderByAppointmentTimeAsc(@Param("statuses") List<AppointmentStatus> statuses);
 
@@ -36,7 +76,18 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
 
         List<Appointment> findByStatus(AppointmentStatus status);
 
-        boolean existsByDoctorIdAndAppointmentTime(UUID doctorId, LocalDateTime time);
+        // Whether another appointment than `appointmentId` holds the doctor's slot at `time`
+        @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Appointment a " +
+                        "WHERE a.doctor.id = :doctorId AND a.appointmentTime = :time " +
+                        "AND a.status <> 'CANCELLED' AND a.id <> :appointmentId")
+        boolean existsHeldSlot(@Param("doctorId") UUID doctorId, @Param("time") LocalDateTime time,
+                        @Param("appointmentId") UUID appointmentId);
+
+        // [doctorId, appointmentTime] of bookings that hold a slot in the window [start, end)
+        @Query("SELECT a.doctor.id, a.appointmentTime FROM Appointment a WHERE a.doctor.id IN :doctorIds " +
+                        "AND a.appointmentTime >= :start AND a.appointmentTime < :end AND a.status <> 'CANCELLED'")
+        List<Object[]> findBookedTimesByDoctorIdInAndTimeWindow(@Param("doctorIds") Collection<UUID> doctorIds,
+                        @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
         @Query("SELECT a FROM Appointment a JOIN FETCH a.patient WHERE a.appointmentTime BETWEEN :start AND :end ORDER BY a.appointmentTime ASC")
         List<Appointment> findByAppointmentTimeBetweenOrderByAppointmentTimeAsc(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -45,10 +96,16 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
         long countAppointmentsByDoctorAndStatus(@Param("doctorId") UUID doctorId,
                         @Param("status") AppointmentStatus status);
 
-        @Query("SELECT MAX(a.tokenNumber) FROM Appointment a WHERE a.doctor.id = :doctorId AND a.appointmentTime >= :startOfDay AND a.appointmentTime <= :endOfDay")
-        Integer findMaxTokenNumberByDoctorAndDate(@Param("doctorId") UUID doctorId,
-                        @Param("startOfDay") LocalDateTime startOfDay,
-                        @Param("endOfDay") LocalDateTime endOfDay);
+        // Adds `increment` to the doctor's token counter for the day and returns the new value. The counter
+        // row stays locked until the transaction ends, which serialises bookings per doctor and day.
+        @Query(value = "INSERT INTO appointment_token_counters (doctor_id, token_date, last_token) " +
+                        "VALUES (:doctorId, :tokenDate, :increment) " +
+                        "ON CONFLICT (doctor_id, token_date) " +
+                        "DO UPDATE SET last_token = appointment_token_counters.last_token + :increment " +
+                        "RETURNING last_token", nativeQuery = true)
+        int allocateTokenNumber(@Param("doctorId") UUID doctorId, @Param("tokenDate") LocalDate tokenDate,
+                        @Param("increment") int increment);
+
         @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId AND a.status = :status AND a.appointmentTime BETWEEN :start AND :end")
         long countByDoctorIdAndStatusAndAppointmentTimeBetween(@Param("doctorId") UUID doctorId, 
                 @Param("status") AppointmentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
@@ -56,6 +113,22 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
         @Query("SELECT COUNT(DISTINCT a.patient.id) FROM Appointment a WHERE a.doctor.id = :doctorId")
         long countDistinctPatientIdByDoctorId(@Param("doctorId") UUID doctorId);
 
+        // [status, count] for the doctor's appointments in the window [start, end)
+        @Query("SELECT a.status, COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId " +
+                        "AND a.appointmentTime >= :start AND a.appointmentTime < :end GROUP BY a.status")
+        List<Object[]> countByDoctorIdAndTimeWindowGroupByStatus(@Param("doctorId") UUID doctorId,
+                        @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+        @Query("SELECT " +
+                        "(SELECT COUNT(DISTINCT a.patient.id) FROM Appointment a WHERE a.doctor.id = :doctorId) AS totalPatients, " +
+                        "(SELECT COUNT(ad) FROM Admission ad WHERE ad.admittingDoctor.id = :doctorId " +
+                        "AND ad.status = 'ADMITTED') AS activeIpdPatients, " +
+                        "(SELECT MIN(n.appointmentTime) FROM Appointment n WHERE n.doctor.id = :doctorId " +
+                        "AND n.status = 'SCHEDULED' AND n.appointmentTime >= :now) AS nextAppointmentTime " +
+                        "FROM User u WHERE u.id = :doctorId")
+        Optional<DoctorDashboardTotalsRow> findDashboardTotals(@Param("doctorId") UUID doctorId,
+                        @Param("now") LocalDateTime now);
+
         @Query("SELECT a FROM Appointment a JOIN FETCH a.patient p WHERE a.doctor.id = :doctorId AND a.status = :status AND a.appointmentTime >= :now ORDER BY a.appointmentTime ASC")
         List<Appointment> findNextAppointments(@Param("doctorId") UUID doctorId, @Param("status") AppointmentStatus status, @Param("now") LocalDateTime now, org.springframework.data.domain.Pageable pageable);
 
@@ -0,0 +1,18 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The doctor dashboard figures that are not per-status counts, computed in a
+ * single query.
+ */
+public interface DoctorDashboardTotalsRow {
+    // Distinct patients with any appointment with this doctor
+    long getTotalPatients();
+
+    // Open (ADMITTED) admissions under this doctor
+    long getActiveIpdPatients();
+
+    // Earliest upcoming SCHEDULED appointment; null if there is none
+    LocalDateTime getNextAppointmentTime();
+}
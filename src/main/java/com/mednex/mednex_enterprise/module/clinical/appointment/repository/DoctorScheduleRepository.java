@@ -2,8 +2,11 @@ package com.mednex.mednex_enterprise.module.clinical.appointment.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.DoctorSchedule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,4 +14,7 @@ import java.util.UUID;
 public interface DoctorScheduleRepository extends JpaRepository<DoctorSchedule, Long> {
     List<DoctorSchedule> findByDoctorIdAndActiveTrue(UUID doctorId);
     List<DoctorSchedule> findByDoctorIdAndDayOfWeekAndActiveTrue(UUID doctorId, String dayOfWeek);
+
+    @Query("SELECT s FROM DoctorSchedule s WHERE s.doctor.id IN :doctorIds AND s.active = true")
+    List<DoctorSchedule> findActiveByDoctorIdIn(@Param("doctorIds") Collection<UUID> doctorIds);
 }
@@ -0,0 +1,115 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment.service;
+
+import com.mednex.mednex_enterprise.core.entity.StaffProfile;
+import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.dto.SlotAvailabilityDTO;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
+import com.mednex.mednex_enterprise.module.clinical.appointment.exception.SlotUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Books doctors' slots and hands out token numbers, which count up per doctor
+ * and day, without check-then-act races between receptionists.
+ *
+ * A booking first bumps the doctor's token counter for the day with a single
+ * upsert. The counter row stays locked until the transaction ends, so bookings
+ * for the same doctor and day run one after another and the slot check that
+ * follows sees every booking committed before it. The loser of a race gets a
+ * {@link SlotUnavailableException} listing the doctor's free slots that day.
+ * A failed booking rolls its increment back, so tokens have no gaps. A partial
+ * unique index on (doctor, time) backs this up for writes that bypass it.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentAllocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentAllocationService.class);
+
+    private static final String SLOT_INDEX = "uq_appointments_doctor_time_active";
+
+    private final AppointmentRepository appointmentRepository;
+    private final StaffProfileRepository staffProfileRepository;
+    private final DoctorSlotCalendar slotCalendar;
+
+    @Value("${application.appointments.slot-claim.alternatives:5}")
+    private int alternativesLimit;
+
+    /**
+     * Books the doctor's slot at {@code time} for the appointment and gives it
+     * the doctor's next token for that day, unless it already has a token for
+     * the same doctor and day. Runs in the caller's transaction; call before
+     * changing the appointment's doctor or time, which this sets.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claimSlot(Appointment appointment, User doctor, LocalDateTime time) {
+        boolean sameDay = appointment.getDoctor() != null && appointment.getTokenNumber() != null
+                && appointment.getAppointmentTime() != null
+                && appointment.getDoctor().getId().equals(doctor.getId())
+                && appointment.getAppointmentTime().toLocalDate().equals(time.toLocalDate());
+        if (sameDay && time.equals(appointment.getAppointmentTime())
+                && appointment.getStatus() != AppointmentStatus.CANCELLED) {
+            return;
+        }
+
+        // Taken first: the counter row lock is what makes the check below race-free
+        int token = appointmentRepository.allocateTokenNumber(doctor.getId(), time.toLocalDate(), sameDay ? 0 : 1);
+        UUID appointmentId = appointment.getId() != null ? appointment.getId() : KeysetPaging.MIN_ID;
+        if (appointmentRepository.existsHeldSlot(doctor.getId(), time, appointmentId)) {
+            log.info("Slot of doctor {} at {} was booked concurrently or is taken", doctor.getId(), time);
+            throw new SlotUnavailableException(doctor.getId(), time, findAlternatives(doctor, time));
+        }
+
+        appointment.setDoctor(doctor);
+        appointment.setAppointmentTime(time);
+        if (!sameDay) {
+            appointment.setTokenNumber(token);
+        }
+    }
+
+    /**
+     * Whether {@code e} is the unique index on (doctor, time) rejecting a second
+     * open booking of a slot, i.e. a write that bypassed {@link #claimSlot} lost
+     * the slot to another booking.
+     */
+    public static boolean isSlotIndexViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(SLOT_INDEX);
+    }
+
+    private List<SlotAvailabilityDTO> findAlternatives(User doctor, LocalDateTime taken) {
+        LocalDate date = taken.toLocalDate();
+        String specialization = staffProfileRepository.findByUserId(doctor.getId())
+                .map(StaffProfile::getSpecialization)
+                .orElse("General");
+        return slotCalendar.findFreeSlots(List.of(doctor.getId()), date, date, LocalDateTime.now(), alternativesLimit + 1)
+                .stream()
+                // The calendar may not have seen the booking that won yet
+                .filter(slot -> !slot.getTime().equals(taken))
+                .limit(alternativesLimit)
+                .map(slot -> SlotAvailabilityDTO.builder()
+                        .doctorId(doctor.getId())
+                        .doctorName(doctor.getName())
+                        .specialization(specialization)
+                        .time(slot.getTime())
+                        .durationMinutes(slot.getDurationMinutes())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -5,14 +5,15 @@ import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.dto.EmrSectionDTO;
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.ClinicalNote;
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.LabTestRequest;
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Prescription;
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Vitals;
-import com.mednex.mednex_enterprise.module.clinical.doctor.repository.ClinicalNoteRepository;
-import com.mednex.mednex_enterprise.module.clinical.doctor.repository.LabTestRequestRepository;
-import com.mednex.mednex_enterprise.module.clinical.doctor.repository.PrescriptionRepository;
-import com.mednex.mednex_enterprise.module.clinical.doctor.repository.VitalsRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.DoctorDashboardCache;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrAssembler;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSection;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSnapshotCache;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.*;
 import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
 import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientRepository;
@@ -22,8 +23,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,11 +36,12 @@ public class DoctorConsultationService {
 
         private final AppointmentRepository appointmentRepository;
         private final UserRepository userRepository;
-        private final ClinicalNoteRepository clinicalNoteRepository;
-        private final PrescriptionRepository prescriptionRepository;
-        private final LabTestRequestRepository labTestRequestRepository;
-        private final VitalsRepository vitalsRepository;
         private final PatientRepository patientRepository;
+        private final EmrAssembler emrAssembler;
+        private final EmrSnapshotCache emrSnapshotCache;
+        private final DoctorDashboardCache doctorDashboardCache;
+        private final DoctorSlotCalendar slotCalendar;
+        private final AppointmentAllocationService appointmentAllocationService;
 
         @Transactional
         public PatientAppointmentResponseDTO denyAppointment(User doctor, UUID appointmentId, String reason) {
@@ -46,6 +51,7 @@ public class DoctorConsultationService {
                 if (!appointment.getDoctor().getId().equals(doctor.getId())) {
                         throw new RuntimeException("Unauthorized: You are not assigned to this appointment.");
                 }
+                DoctorSlotCalendar.SlotHold heldSlot = slotCalendar.hold(appointment);
 
                 appointment.setStatus(AppointmentStatus.DENIED);
                 appointment.setNotes((appointment.getNotes() == null ? "" : appointment.getNotes() + "\n") +
@@ -57,6 +63,8 @@ public class DoctorConsultationService {
                 appointment.setDoctor(null);
 
                 appointment = appointmentRepository.save(appointment);
+                doctorDashboardCache.invalidate(doctor.getId());
+                slotCalendar.update(heldSlot, appointment);
                 return mapToDTO(appointment);
         }
 
@@ -75,6 +83,7 @@ public class DoctorConsultationService {
                         newDoctor = userRepository.findById(newDoctorId)
                                         .orElseThrow(() -> new RuntimeException("New Doctor not found"));
                 }
+                DoctorSlotCalendar.SlotHold heldSlot = slotCalendar.hold(appointment);
 
                 appointment.setStatus(AppointmentStatus.TRANSFERRED);
                 appointment.setNotes((appointment.getNotes() == null ? "" : appointment.getNotes() + "\n") +
@@ -82,39 +91,60 @@ public class DoctorConsultationService {
                                 (reason != null ? reason : "Not provided"));
 
                 appointment.setDepartmentPreference(newDepartment);
-                appointment.setDoctor(newDoctor); // Might be null if just sending to department
+                if (newDoctor != null && appointment.getAppointmentTime() != null) {
+                        // Keeps the time, so the new doctor must have that slot free
+                        appointmentAllocationService.claimSlot(appointment, newDoctor,
+                                        appointment.getAppointmentTime());
+                } else {
+                        appointment.setDoctor(newDoctor); // Might be null if just sending to department
+                }
 
                 appointment = appointmentRepository.save(appointment);
+                doctorDashboardCache.invalidate(doctor.getId());
+                if (newDoctor != null) {
+                        doctorDashboardCache.invalidate(newDoctor.getId());
+                }
+                slotCalendar.update(heldSlot, appointment);
                 return mapToDTO(appointment);
         }
 
-        @Transactional(readOnly = true)
+        /**
+         * Loads the first page of each EMR section concurrently, see
+         * {@link EmrAssembler}. Not transactional; each section has its own.
+         * Complete records are served from {@link EmrSnapshotCache}.
+         */
         public PatientEMRResponseDTO getPatientFullEMR(UUID patientId) {
-                Patient patient = patientRepository.findById(patientId)
-                                .orElseThrow(() -> new RuntimeException("Patient not found"));
-
-                PatientProfileDTO profile = mapToPatientProfileDTO(patient);
-
-                List<ClinicalNoteResponseDTO> notes = clinicalNoteRepository.findByPatientIdOrderByCreatedAtDesc(patientId)
-                                .stream().map(this::mapToClinicalNoteDTO).collect(Collectors.toList());
-
-                List<PrescriptionResponseDTO> prescriptions = prescriptionRepository
-                                .findByPatientIdOrderByCreatedAtDesc(patientId)
-                                .stream().map(this::mapToPrescriptionDTO).collect(Collectors.toList());
-
-                List<LabTestRequestResponseDTO> labReports = labTestRequestRepository
-                                .findByPatientIdOrderByRequestedAtDesc(patientId)
-                                .stream().map(this::mapToLabTestDTO).collect(Collectors.toList());
+                return emrSnapshotCache.get(patientId, PatientEMRResponseDTO.class,
+                                () -> loadPatientFullEMR(patientId),
+                                emr -> EmrAssembler.isComplete(emr.getSections()));
+        }
 
-                List<VitalsResponseDTO> vitals = vitalsRepository.findByPatientIdOrderByRecordedAtDesc(patientId)
-                                .stream().map(this::mapToVitalsDTO).collect(Collectors.toList());
+        private PatientEMRResponseDTO loadPatientFullEMR(UUID patientId) {
+                CompletableFuture<PatientProfileDTO> profile = emrAssembler.submit(() -> patientRepository.findById(patientId)
+                                .map(this::mapToPatientProfileDTO)
+                                .orElseThrow(() -> new RuntimeException("Patient not found")));
+                CompletableFuture<EmrSectionDTO<ClinicalNoteResponseDTO>> notes =
+                                emrAssembler.clinicalNotes(patientId, null, null, this::mapToClinicalNoteDTO);
+                CompletableFuture<EmrSectionDTO<PrescriptionResponseDTO>> prescriptions =
+                                emrAssembler.prescriptions(patientId, null, null, this::mapToPrescriptionDTO);
+                CompletableFuture<EmrSectionDTO<LabTestRequestResponseDTO>> labReports =
+                                emrAssembler.labReports(patientId, null, null, this::mapToLabTestDTO);
+                CompletableFuture<EmrSectionDTO<VitalsResponseDTO>> vitals =
+                                emrAssembler.vitals(patientId, null, null, this::mapToVitalsDTO);
+
+                Map<EmrSection, EmrSectionDTO<?>> sections = new EnumMap<>(EmrSection.class);
+                sections.put(EmrSection.CLINICAL_NOTES, notes.join());
+                sections.put(EmrSection.PRESCRIPTIONS, prescriptions.join());
+                sections.put(EmrSection.LAB_REPORTS, labReports.join());
+                sections.put(EmrSection.VITALS, vitals.join());
 
                 return PatientEMRResponseDTO.builder()
-                                .patientDetails(profile)
-                                .clinicalNotes(notes)
-                                .prescriptions(prescriptions)
-                                .labReports(labReports)
-                                .vitalsHistory(vitals)
+                                .patientDetails(EmrAssembler.join(profile))
+                                .clinicalNotes(notes.join().getItems())
+                                .prescriptions(prescriptions.join().getItems())
+                                .labReports(labReports.join().getItems())
+                                .vitalsHistory(vitals.join().getItems())
+                                .sections(EmrAssembler.describe(sections))
                                 .build();
         }
 
@@ -17,6 +17,7 @@ import java.util.stream.Collectors;
 public class DoctorScheduleService {
 
     private final DoctorScheduleRepository doctorScheduleRepository;
+    private final DoctorSlotCalendar slotCalendar;
 
     public List<DoctorScheduleDTO> getDoctorSchedules(UUID doctorId) {
         return doctorScheduleRepository.findByDoctorIdAndActiveTrue(doctorId).stream()
@@ -28,12 +29,17 @@ public class DoctorScheduleService {
     public DoctorScheduleDTO saveSchedule(User doctor, DoctorScheduleDTO dto) {
         DoctorSchedule schedule = convertToEntity(dto);
         schedule.setDoctor(doctor);
-        return convertToDTO(doctorScheduleRepository.save(schedule));
+        DoctorScheduleDTO saved = convertToDTO(doctorScheduleRepository.save(schedule));
+        slotCalendar.invalidateDoctor(doctor.getId());
+        return saved;
     }
 
     @Transactional
     public void deleteSchedule(Long id) {
-        doctorScheduleRepository.deleteById(id);
+        doctorScheduleRepository.findById(id).ifPresent(schedule -> {
+            doctorScheduleRepository.delete(schedule);
+            slotCalendar.invalidateDoctor(schedule.getDoctor().getId());
+        });
     }
 
     private DoctorScheduleDTO convertToDTO(DoctorSchedule entity) {
@@ -0,0 +1,569 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment.service;
+
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.DoctorSchedule;
+import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.repository.DoctorScheduleRepository;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-doctor day calendars of bookable slots, keyed by tenant, doctor and date.
+ *
+ * A day's slots come from the doctor's active {@link DoctorSchedule} rows for
+ * that weekday; doctors with no schedule at all get the default working day.
+ * Which slots are taken is a bitset over the day's slots, so checking or
+ * searching availability never rescans appointments. Calendars for many
+ * doctors and days are built together from one schedule query and one
+ * appointment query.
+ *
+ * Services that book, move or cancel an appointment take a {@link #hold} of
+ * it before the change and pass it to {@link #update} afterwards; the bits are
+ * flipped once the transaction commits. As in the EMR and dashboard caches,
+ * every update bumps the day's version, so a calendar loaded concurrently with
+ * a booking is not stored. Changes made elsewhere, e.g. on another node, show
+ * up once the TTL runs out; booking itself is still checked against the
+ * database.
+ */
+@Component
+@RequiredArgsConstructor
+public class DoctorSlotCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(DoctorSlotCalendar.class);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final DoctorScheduleRepository doctorScheduleRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    @Value("${application.appointments.slot-calendar.ttl-ms:120000}")
+    private long ttlMs;
+
+    @Value("${application.appointments.slot-calendar.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${application.appointments.default-day-start:09:00}")
+    private String defaultDayStart;
+
+    @Value("${application.appointments.default-day-end:17:00}")
+    private String defaultDayEnd;
+
+    @Value("${application.appointments.default-slot-minutes:30}")
+    private int defaultSlotMinutes;
+
+    private Slots defaultDay;
+
+    private final Map<DayKey, CachedDay> days = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        defaultDay = Slots.of(List.of(new int[] {
+                minuteOfDay(LocalTime.parse(defaultDayStart)),
+                minuteOfDay(LocalTime.parse(defaultDayEnd)),
+                defaultSlotMinutes }));
+    }
+
+    public DayCalendar getDay(UUID doctorId, LocalDate date) {
+        return getDays(List.of(doctorId), date, date).get(0);
+    }
+
+    /**
+     * Calendars of each doctor for each date in [from, to], ordered by date and
+     * then by the order of {@code doctorIds}.
+     */
+    public List<DayCalendar> getDays(Collection<UUID> doctorIds, LocalDate from, LocalDate to) {
+        String tenantId = TenantContext.getCurrentTenant();
+        Set<UUID> doctors = new LinkedHashSet<>(doctorIds);
+        long now = System.currentTimeMillis();
+
+        Map<DayKey, DayCalendar> found = new HashMap<>();
+        Map<DayKey, Long> missing = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (UUID doctorId : doctors) {
+                DayKey key = new DayKey(tenantId, doctorId, date);
+                CachedDay cached = maxEntries > 0 ? days.get(key) : null;
+                boolean live = cached != null && cached.expiresAt > now;
+                if (live && cached.calendar != null) {
+                    found.put(key, cached.calendar);
+                } else {
+                    missing.put(key, live ? cached.version : 0);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing, now));
+        }
+
+        List<DayCalendar> calendars = new ArrayList<>(found.size());
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (UUID doctorId : doctors) {
+                calendars.add(found.get(new DayKey(tenantId, doctorId, date)));
+            }
+        }
+        return calendars;
+    }
+
+    /**
+     * Free slots of the given doctors between {@code from} and {@code to},
+     * starting after {@code notBefore}, earliest first. Stops after
+     * {@code limit} slots; ties go to the doctor listed first.
+     */
+    public List<FreeSlot> findFreeSlots(Collection<UUID> doctorIds, LocalDate from, LocalDate to,
+                                        LocalDateTime notBefore, int limit) {
+        List<FreeSlot> result = new ArrayList<>();
+        if (doctorIds.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        List<DayCalendar> calendars = getDays(doctorIds, from, to);
+        int doctorsPerDay = new LinkedHashSet<>(doctorIds).size();
+        for (int start = 0; start < calendars.size() && result.size() < limit; start += doctorsPerDay) {
+            List<FreeSlot> day = new ArrayList<>();
+            for (DayCalendar calendar : calendars.subList(start, start + doctorsPerDay)) {
+                // Later slots of a doctor than their first `limit` cannot make the cut
+                int taken = 0;
+                for (int i = calendar.nextFree(calendar.firstAfter(notBefore)); i < calendar.size() && taken < limit;
+                        i = calendar.nextFree(i + 1), taken++) {
+                    day.add(new FreeSlot(calendar.doctorId, calendar.getTime(i), calendar.getDurationMinutes(i)));
+                }
+            }
+            // Stable, so doctors keep their order within a time
+            day.sort(Comparator.comparing(FreeSlot::getTime));
+            result.addAll(day.subList(0, Math.min(day.size(), limit - result.size())));
+        }
+        return result;
+    }
+
+    /**
+     * The slot the appointment currently holds, if any; pass it to
+     * {@link #update} after changing the appointment.
+     */
+    public SlotHold hold(Appointment appointment) {
+        if (appointment.getDoctor() == null || appointment.getAppointmentTime() == null
+                || appointment.getStatus() == AppointmentStatus.CANCELLED) {
+            return SlotHold.NONE;
+        }
+        return new SlotHold(appointment.getDoctor().getId(), appointment.getAppointmentTime());
+    }
+
+    /**
+     * Moves the appointment's booking from the slot it held before to the one
+     * it holds now, once the surrounding transaction commits.
+     */
+    public void update(SlotHold before, Appointment appointment) {
+        SlotHold after = hold(appointment);
+        if (before.equals(after)) {
+            return;
+        }
+        String tenantId = TenantContext.getCurrentTenant();
+        afterCommit(() -> {
+            if (before != SlotHold.NONE) {
+                apply(tenantId, before, false);
+            }
+            if (after != SlotHold.NONE) {
+                apply(tenantId, after, true);
+            }
+        });
+    }
+
+    /**
+     * Drops the current tenant's cached calendars of the doctor once the
+     * surrounding transaction commits, e.g. after a schedule change.
+     */
+    public void invalidateDoctor(UUID doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        String tenantId = TenantContext.getCurrentTenant();
+        afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            days.replaceAll((key, cached) -> key.doctorId.equals(doctorId) && Objects.equals(key.tenantId, tenantId)
+                    ? new CachedDay(cached.expiresAt > now ? cached.version + 1 : 1, null, now + ttlMs)
+                    : cached);
+        });
+    }
+
+    private Map<DayKey, DayCalendar> load(Map<DayKey, Long> missing, long now) {
+        Set<UUID> doctorIds = new LinkedHashSet<>();
+        LocalDate from = LocalDate.MAX;
+        LocalDate to = LocalDate.MIN;
+        for (DayKey key : missing.keySet()) {
+            doctorIds.add(key.doctorId);
+            from = key.date.isBefore(from) ? key.date : from;
+            to = key.date.isAfter(to) ? key.date : to;
+        }
+
+        Map<UUID, Map<DayOfWeek, List<int[]>>> weeks = new HashMap<>();
+        for (DoctorSchedule schedule : doctorScheduleRepository.findActiveByDoctorIdIn(doctorIds)) {
+            DayOfWeek day = dayOfWeek(schedule);
+            if (day != null) {
+                weeks.computeIfAbsent(schedule.getDoctor().getId(), id -> new EnumMap<>(DayOfWeek.class))
+                        .computeIfAbsent(day, d -> new ArrayList<>())
+                        .add(new int[] {
+                                minuteOfDay(schedule.getStartTime()),
+                                minuteOfDay(schedule.getEndTime()),
+                                schedule.getSlotDuration() != null ? schedule.getSlotDuration() : 0 });
+            }
+        }
+
+        Map<DayKey, List<LocalDateTime>> bookings = new HashMap<>();
+        String tenantId = missing.keySet().iterator().next().tenantId;
+        for (Object[] row : appointmentRepository.findBookedTimesByDoctorIdInAndTimeWindow(
+                doctorIds, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            LocalDateTime time = (LocalDateTime) row[1];
+            bookings.computeIfAbsent(new DayKey(tenantId, (UUID) row[0], time.toLocalDate()), k -> new ArrayList<>())
+                    .add(time);
+        }
+
+        // Slot layouts repeat every week, so days share them
+        Map<UUID, Map<DayOfWeek, Slots>> layouts = new HashMap<>();
+        Map<DayKey, DayCalendar> loaded = new HashMap<>();
+        for (Map.Entry<DayKey, Long> entry : missing.entrySet()) {
+            DayKey key = entry.getKey();
+            Map<DayOfWeek, List<int[]>> week = weeks.get(key.doctorId);
+            Slots slots = week == null ? defaultDay : layouts
+                    .computeIfAbsent(key.doctorId, id -> new EnumMap<>(DayOfWeek.class))
+                    .computeIfAbsent(key.date.getDayOfWeek(), day -> Slots.of(week.getOrDefault(day, List.of())));
+
+            BitSet booked = new BitSet(slots.size());
+            for (LocalDateTime time : bookings.getOrDefault(key, List.of())) {
+                int index = slots.indexOf(minuteOfDay(time.toLocalTime()));
+                if (index >= 0) {
+                    booked.set(index);
+                }
+            }
+            DayCalendar calendar = new DayCalendar(key.doctorId, key.date, slots, booked);
+            loaded.put(key, calendar);
+            store(key, entry.getValue(), calendar, now);
+        }
+        return loaded;
+    }
+
+    private void store(DayKey key, long version, DayCalendar calendar, long now) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (days.size() >= maxEntries) {
+            evict(now);
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        days.compute(key, (k, current) -> {
+            long currentVersion = current != null && current.expiresAt > now ? current.version : 0;
+            // Booked or cancelled while loading
+            return currentVersion != version ? current : new CachedDay(version, calendar, expiresAt);
+        });
+    }
+
+    private void apply(String tenantId, SlotHold hold, boolean booked) {
+        DayKey key = new DayKey(tenantId, hold.doctorId, hold.time.toLocalDate());
+        int minute = minuteOfDay(hold.time.toLocalTime());
+        long now = System.currentTimeMillis();
+        days.compute(key, (k, current) -> {
+            if (current == null || current.expiresAt <= now || current.calendar == null) {
+                long version = current != null && current.expiresAt > now ? current.version : 0;
+                return new CachedDay(version + 1, null, now + ttlMs);
+            }
+            return new CachedDay(current.version + 1, current.calendar.with(minute, booked), current.expiresAt);
+        });
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still full, drops arbitrary
+     * calendars other than tombstones until a tenth of the capacity is free.
+     */
+    private void evict(long now) {
+        days.values().removeIf(cached -> cached.expiresAt <= now);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<CachedDay> values = days.values().iterator();
+        while (days.size() > target && values.hasNext()) {
+            if (values.next().calendar != null) {
+                values.remove();
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static DayOfWeek dayOfWeek(DoctorSchedule schedule) {
+        try {
+            return DayOfWeek.valueOf(schedule.getDayOfWeek().trim().toUpperCase());
+        } catch (RuntimeException e) {
+            log.warn("Ignoring doctor schedule {} with invalid day '{}'", schedule.getId(), schedule.getDayOfWeek());
+            return null;
+        }
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * A doctor's slots on one date and which of them are booked. Immutable;
+     * bookings produce a new calendar sharing the slot layout.
+     */
+    public static final class DayCalendar {
+        private final UUID doctorId;
+        private final LocalDate date;
+        private final Slots slots;
+        private final BitSet booked;
+
+        private DayCalendar(UUID doctorId, LocalDate date, Slots slots, BitSet booked) {
+            this.doctorId = doctorId;
+            this.date = date;
+            this.slots = slots;
+            this.booked = booked;
+        }
+
+        public UUID getDoctorId() {
+            return doctorId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public int size() {
+            return slots.size();
+        }
+
+        public LocalDateTime getTime(int index) {
+            return date.atStartOfDay().plusMinutes(slots.starts[index]);
+        }
+
+        public int getDurationMinutes(int index) {
+            return slots.ends[index] - slots.starts[index];
+        }
+
+        public boolean isFree(int index) {
+            return !booked.get(index);
+        }
+
+        /**
+         * Index of the first free slot at or after {@code index}, or
+         * {@link #size()} if there is none.
+         */
+        public int nextFree(int index) {
+            return Math.min(booked.nextClearBit(index), slots.size());
+        }
+
+        /**
+         * Index of the first slot starting after {@code time}.
+         */
+        public int firstAfter(LocalDateTime time) {
+            if (time.toLocalDate().isBefore(date)) {
+                return 0;
+            }
+            if (time.toLocalDate().isAfter(date)) {
+                return slots.size();
+            }
+            int minute = (int) ChronoUnit.MINUTES.between(date.atStartOfDay(), time);
+            // Slots start on whole minutes; one starting in the same minute has begun
+            int found = Arrays.binarySearch(slots.starts, minute + 1);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        private DayCalendar with(int minute, boolean isBooked) {
+            int index = slots.indexOf(minute);
+            if (index < 0 || booked.get(index) == isBooked) {
+                return this;
+            }
+            BitSet updated = (BitSet) booked.clone();
+            updated.set(index, isBooked);
+            return new DayCalendar(doctorId, date, slots, updated);
+        }
+    }
+
+    public static final class FreeSlot {
+        private final UUID doctorId;
+        private final LocalDateTime time;
+        private final int durationMinutes;
+
+        private FreeSlot(UUID doctorId, LocalDateTime time, int durationMinutes) {
+            this.doctorId = doctorId;
+            this.time = time;
+            this.durationMinutes = durationMinutes;
+        }
+
+        public UUID getDoctorId() {
+            return doctorId;
+        }
+
+        public LocalDateTime getTime() {
+            return time;
+        }
+
+        public int getDurationMinutes() {
+            return durationMinutes;
+        }
+    }
+
+    /**
+     * The doctor and time an appointment occupies, see {@link #hold}.
+     */
+    public static final class SlotHold {
+        private static final SlotHold NONE = new SlotHold(null, null);
+
+        private final UUID doctorId;
+        private final LocalDateTime time;
+
+        private SlotHold(UUID doctorId, LocalDateTime time) {
+            this.doctorId = doctorId;
+            this.time = time;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SlotHold other)) {
+                return false;
+            }
+            return Objects.equals(doctorId, other.doctorId) && Objects.equals(time, other.time);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(doctorId, time);
+        }
+    }
+
+    /**
+     * Sorted, non-overlapping slots of a day as minutes since midnight.
+     */
+    private static final class Slots {
+        private final int[] starts;
+        private final int[] ends;
+
+        private Slots(int[] starts, int[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        /**
+         * Cuts each [start, end, slotMinutes] block into whole slots. A slot
+         * overlapping an earlier one, e.g. from overlapping schedules, is dropped.
+         */
+        private static Slots of(List<int[]> blocks) {
+            List<int[]> slots = new ArrayList<>();
+            for (int[] block : blocks) {
+                if (block[2] <= 0) {
+                    continue;
+                }
+                for (int start = block[0]; start + block[2] <= Math.min(block[1], MINUTES_PER_DAY); start += block[2]) {
+                    slots.add(new int[] { start, start + block[2] });
+                }
+            }
+            slots.sort(Comparator.comparingInt(slot -> slot[0]));
+
+            int[] starts = new int[slots.size()];
+            int[] ends = new int[slots.size()];
+            int count = 0;
+            for (int[] slot : slots) {
+                if (count == 0 || slot[0] >= ends[count - 1]) {
+                    starts[count] = slot[0];
+                    ends[count] = slot[1];
+                    count++;
+                }
+            }
+            return new Slots(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+        }
+
+        private int size() {
+            return starts.length;
+        }
+
+        /**
+         * Index of the slot covering the minute, or -1 if it falls between slots.
+         */
+        private int indexOf(int minute) {
+            int found = Arrays.binarySearch(starts, minute);
+            int index = found >= 0 ? found : -found - 2;
+            return index >= 0 && minute < ends[index] ? index : -1;
+        }
+    }
+
+    private static final class DayKey {
+        private final String tenantId;
+        private final UUID doctorId;
+        private final LocalDate date;
+
+        private DayKey(String tenantId, UUID doctorId, LocalDate date) {
+            this.tenantId = tenantId;
+            this.doctorId = doctorId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DayKey other)) {
+                return false;
+            }
+            return Objects.equals(tenantId, other.tenantId) && doctorId.equals(other.doctorId)
+                    && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, doctorId, date);
+        }
+    }
+
+    private static final class CachedDay {
+        private final long version;
+        // null for a tombstone left by an update or invalidation
+        private final DayCalendar calendar;
+        private final long expiresAt;
+
+        private CachedDay(long version, DayCalendar calendar, long expiresAt) {
+            this.version = version;
+            this.calendar = calendar;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
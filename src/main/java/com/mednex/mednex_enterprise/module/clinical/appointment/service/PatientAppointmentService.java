@@ -3,12 +3,14 @@ package com.mednex.mednex_enterprise.module.clinical.appointment.service;
 import com.mednex.mednex_enterprise.core.entity.Branch;
 import com.mednex.mednex_enterprise.core.entity.StaffProfile;
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
 import com.mednex.mednex_enterprise.core.repository.BranchRepository;
 import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.AppointmentRequestDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.AvailableSlotDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.dto.DoctorInfoDTO;
+import com.mednex.mednex_enterprise.module.clinical.appointment.dto.SlotAvailabilityDTO;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.UrgencyLevel;
@@ -16,27 +18,37 @@ import com.mednex.mednex_enterprise.module.clinical.appointment.repository.Appoi
 import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
 import com.mednex.mednex_enterprise.module.clinical.patient.service.PatientService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PatientAppointmentService {
 
+    private static final int DEFAULT_SEARCH_DAYS = 7;
+
     private final StaffProfileRepository staffProfileRepository;
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
     private final BranchRepository branchRepository;
     private final PatientService patientService;
+    private final DoctorSlotCalendar slotCalendar;
+
+    @Value("${application.appointments.max-search-days:31}")
+    private int maxSearchDays;
 
     public List<String> getAvailableSpecializations() {
         return staffProfileRepository.findDistinctDoctorSpecializations();
@@ -65,33 +77,66 @@ public class PatientAppointmentService {
             throw new IllegalArgumentException("User is not a doctor");
         }
 
-        // Generate slots from 9 AM to 5 PM every 30 minutes
-        List<AvailableSlotDTO> slots = new ArrayList<>();
-        LocalTime startTime = LocalTime.of(9, 0);
-        LocalTime endTime = LocalTime.of(17, 0);
+        DoctorSlotCalendar.DayCalendar calendar = slotCalendar.getDay(doctorId, date);
+        LocalDateTime now = LocalDateTime.now();
 
-        LocalDateTime startOfDay = date.atTime(0, 0);
-        LocalDateTime endOfDay = date.atTime(23, 59, 59);
+        // Only slots that are still ahead, if the date is today
+        List<AvailableSlotDTO> slots = new ArrayList<>();
+        for (int i = calendar.firstAfter(now); i < calendar.size(); i++) {
+            slots.add(new AvailableSlotDTO(calendar.getTime(i), calendar.isFree(i)));
+        }
+        return slots;
+    }
 
-        List<Appointment> bookedAppointments = appointmentRepository
-                .findByDoctorIdAndAppointmentTimeBetweenOrderByAppointmentTimeAsc(
-                        doctorId, startOfDay, endOfDay);
+    /**
+     * Earliest free slots across several doctors and days, e.g. the first free
+     * cardiology slot this week. Doctors are those of the specialization, or
+     * the given ones if no specialization is set.
+     */
+    @Transactional(readOnly = true)
+    public List<SlotAvailabilityDTO> findAvailableSlots(String specialization, List<UUID> doctorIds,
+                                                        LocalDate from, Integer days, Integer limit) {
+        int dayCount = days == null ? DEFAULT_SEARCH_DAYS : days;
+        if (dayCount < 1 || dayCount > maxSearchDays) {
+            throw new IllegalArgumentException("Search window must be between 1 and " + maxSearchDays + " days");
+        }
 
-        while (startTime.isBefore(endTime)) {
-            LocalDateTime slotTime = date.atTime(startTime);
-            boolean isBooked = bookedAppointments.stream()
-                    .anyMatch(app -> app.getAppointmentTime().equals(slotTime) &&
-                            app.getStatus() != AppointmentStatus.CANCELLED);
+        List<User> doctors;
+        if (specialization != null && !specialization.isBlank()) {
+            doctors = staffProfileRepository.findDoctorsBySpecialization(specialization);
+        } else if (doctorIds != null && !doctorIds.isEmpty()) {
+            doctors = userRepository.findAllById(doctorIds).stream()
+                    .filter(User::isActive)
+                    .filter(u -> u.getRoles().stream().anyMatch(r -> r.getName().equals("DOCTOR")))
+                    .collect(Collectors.toList());
+        } else {
+            throw new IllegalArgumentException("Either a specialization or doctor IDs are required");
+        }
+        if (doctors.isEmpty()) {
+            return List.of();
+        }
 
-            // Only add slots that are in the future if it's today
-            if (slotTime.isAfter(LocalDateTime.now())) {
-                slots.add(new AvailableSlotDTO(slotTime, !isBooked));
+        Map<UUID, User> doctorsById = doctors.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        Map<UUID, String> specializations = new HashMap<>();
+        for (Object[] row : staffProfileRepository.findSpecializationsByUserIdIn(doctorsById.keySet())) {
+            if (row[1] != null) {
+                specializations.put((UUID) row[0], (String) row[1]);
             }
-
-            startTime = startTime.plusMinutes(30);
         }
 
-        return slots;
+        LocalDate start = from != null ? from : LocalDate.now();
+        int resultLimit = limit == null ? 1 : Math.max(1, Math.min(limit, KeysetPaging.MAX_LIMIT));
+        return slotCalendar.findFreeSlots(doctorsById.keySet(), start, start.plusDays(dayCount - 1L),
+                        LocalDateTime.now(), resultLimit).stream()
+                .map(slot -> SlotAvailabilityDTO.builder()
+                        .doctorId(slot.getDoctorId())
+                        .doctorName(doctorsById.get(slot.getDoctorId()).getName())
+                        .specialization(specializations.getOrDefault(slot.getDoctorId(), "General"))
+                        .time(slot.getTime())
+                        .durationMinutes(slot.getDurationMinutes())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @Transactional
@@ -10,6 +10,7 @@ import com.mednex.mednex_enterprise.module.clinical.appointment.entity.UrgencyLe
 import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.DoctorDashboardCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,6 +31,9 @@ public class ReceptionistAppointmentService {
     private final UserRepository userRepository;
     private final StaffProfileRepository staffProfileRepository;
     private final TriageEngineService triageEngineService;
+    private final DoctorDashboardCache doctorDashboardCache;
+    private final DoctorSlotCalendar slotCalendar;
+    private final AppointmentAllocationService appointmentAllocationService;
 
     @Transactional(readOnly = true)
     public List<AppointmentResponseDTO> getRequestedAppointments() {
@@ -61,6 +65,9 @@ public class ReceptionistAppointmentService {
     public AppointmentResponseDTO triageAppointment(UUID appointmentId, TriageRequestDTO triageRequest) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+        // The previously assigned doctor's dashboard changes too if triage reassigns it
+        invalidateDoctorDashboard(appointment);
+        DoctorSlotCalendar.SlotHold heldSlot = slotCalendar.hold(appointment);
 
         // Use Triage Engine if no specific urgency provided
         if (triageRequest.getUrgencyLevel() == null) {
@@ -73,12 +80,21 @@ public class ReceptionistAppointmentService {
             appointment.setUrgencyLevel(triageRequest.getUrgencyLevel());
         }
 
-        if (triageRequest.getDoctorId() != null) {
-            assignDoctor(appointment, triageRequest.getDoctorId());
+        User doctor = triageRequest.getDoctorId() != null
+                ? findDoctor(triageRequest.getDoctorId())
+                : appointment.getDoctor();
+        LocalDateTime time = triageRequest.getAppointmentTime() != null
+                ? triageRequest.getAppointmentTime()
+                : appointment.getAppointmentTime();
+        if (triageRequest.getAppointmentTime() != null && doctor == null) {
+            throw new IllegalStateException("Cannot schedule slot without an assigned doctor");
         }
 
-        if (triageRequest.getAppointmentTime() != null) {
-            scheduleSlot(appointment, triageRequest.getAppointmentTime());
+        if (doctor != null && time != null) {
+            // Also when only the doctor changed, since the slot and token are per doctor
+            appointmentAllocationService.claimSlot(appointment, doctor, time);
+        } else {
+            appointment.setDoctor(doctor);
         }
 
         // Transition state based on what's assigned
@@ -92,24 +108,20 @@ public class ReceptionistAppointmentService {
             appointment.setNotes(triageRequest.getNotes());
         }
 
+        invalidateDoctorDashboard(appointment);
+        slotCalendar.update(heldSlot, appointment);
         return mapToResponseDTO(appointmentRepository.save(appointment));
     }
 
-    private void assignDoctor(Appointment appointment, UUID doctorId) {
-        appointment.setDoctor(userRepository.findById(doctorId)
-                .orElseThrow(() -> new IllegalArgumentException("Doctor not found")));
-    }
-
-    private void scheduleSlot(Appointment appointment, LocalDateTime time) {
-        if (appointment.getDoctor() == null) {
-            throw new IllegalStateException("Cannot schedule slot without an assigned doctor");
-        }
-
-        if (appointmentRepository.existsByDoctorIdAndAppointmentTime(appointment.getDoctor().getId(), time)) {
-            throw new RuntimeException("Slot already booked for this doctor at " + time);
+    private void invalidateDoctorDashboard(Appointment appointment) {
+        if (appointment.getDoctor() != null) {
+            doctorDashboardCache.invalidate(appointment.getDoctor().getId());
         }
+    }
 
-        appointment.setAppointmentTime(time);
+    private User findDoctor(UUID doctorId) {
+        return userRepository.findById(doctorId)
+                .orElseThrow(() -> new IllegalArgumentException("Doctor not found"));
     }
 
     private UrgencyLevel triageUrgencyOrDefault(UrgencyLevel level) {
@@ -122,6 +134,7 @@ public class ReceptionistAppointmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
 
         appointment.setStatus(AppointmentStatus.CHECKED_IN);
+        invalidateDoctorDashboard(appointment);
         return mapToResponseDTO(appointmentRepository.save(appointment));
     }
 
@@ -129,9 +142,12 @@ public class ReceptionistAppointmentService {
     public AppointmentResponseDTO cancelAppointment(UUID appointmentId, String reason) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
+        DoctorSlotCalendar.SlotHold heldSlot = slotCalendar.hold(appointment);
 
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointment.setNotes(reason);
+        invalidateDoctorDashboard(appointment);
+        slotCalendar.update(heldSlot, appointment);
         return mapToResponseDTO(appointmentRepository.save(appointment));
     }
 
@@ -141,6 +157,7 @@ public class ReceptionistAppointmentService {
                 .orElseThrow(() -> new IllegalArgumentException("Appointment not found"));
 
         appointment.setStatus(AppointmentStatus.CONFIRMED);
+        invalidateDoctorDashboard(appointment);
         return mapToResponseDTO(appointmentRepository.save(appointment));
     }
 
@@ -2,6 +2,7 @@ package com.mednex.mednex_enterprise.module.clinical.diagnostics.controller;
 
 import com.mednex.mednex_enterprise.module.clinical.diagnostics.dto.DiagnosticOrderRequest;
 import com.mednex.mednex_enterprise.module.clinical.diagnostics.dto.DiagnosticResultUploadRequest;
+import com.mednex.mednex_enterprise.module.clinical.diagnostics.entity.OrderStatus;
 import com.mednex.mednex_enterprise.module.clinical.diagnostics.entity.TestType;
 import com.mednex.mednex_enterprise.module.clinical.diagnostics.service.DiagnosticService;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -36,6 +38,15 @@ public class DiagnosticController {
         return ResponseEntity.ok(diagnosticService.getPatientOrders(patientId));
     }
 
+    @GetMapping("/patients/{patientId}/orders/page")
+    public ResponseEntity<?> getPatientOrdersPage(
+            @PathVariable UUID patientId,
+            @RequestParam(required = false) List<OrderStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(diagnosticService.getPatientOrdersPage(patientId, status, cursor, limit));
+    }
+
     @GetMapping("/worklist")
     public ResponseEntity<?> getWorklist(@RequestParam TestType type) {
         return ResponseEntity.ok(diagnosticService.getPendingWorklist(type));
@@ -1,13 +1,29 @@
 package com.mednex.mednex_enterprise.module.clinical.diagnostics.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.diagnostics.entity.DiagnosticOrder;
+import com.mednex.mednex_enterprise.module.clinical.diagnostics.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface DiagnosticOrderRepository extends JpaRepository<DiagnosticOrder, UUID> {
     List<DiagnosticOrder> findByPatientIdOrderByCreatedAtDesc(UUID patientId);
+
+    // Keyset page, newest first
+    @Query("SELECT o FROM DiagnosticOrder o WHERE o.patient.id = :patientId AND o.status IN :statuses " +
+           "AND (o.createdAt < :before OR (o.createdAt = :before AND o.id < :beforeId)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<DiagnosticOrder> findPageByPatientId(@Param("patientId") UUID patientId,
+                                              @Param("statuses") Collection<OrderStatus> statuses,
+                                              @Param("before") LocalDateTime before,
+                                              @Param("beforeId") UUID beforeId,
+                                              Pageable pageable);
 }
@@ -1,6 +1,8 @@
 package com.mednex.mednex_enterprise.module.clinical.diagnostics.service;
 
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
@@ -15,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 
@@ -77,6 +80,24 @@ public class DiagnosticService {
         return orderRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
     }
 
+    /**
+     * One page of the patient's orders, newest first. An empty
+     * {@code statuses} matches every status.
+     */
+    public CursorPage<DiagnosticOrder> getPatientOrdersPage(UUID patientId, List<OrderStatus> statuses, String cursor,
+            Integer limit) {
+        int pageSize = KeysetPaging.pageSize(limit);
+        String[] after = KeysetPaging.decode(cursor, 2);
+        LocalDateTime before = after == null ? KeysetPaging.MAX_TIME : KeysetPaging.parse(after[0], LocalDateTime::parse);
+        UUID beforeId = after == null ? KeysetPaging.MAX_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        List<DiagnosticOrder> rows = orderRepository.findPageByPatientId(patientId,
+                statuses == null || statuses.isEmpty() ? EnumSet.allOf(OrderStatus.class) : statuses,
+                before, beforeId, KeysetPaging.fetch(pageSize));
+        return KeysetPaging.page(rows, pageSize, order -> order,
+                order -> KeysetPaging.encode(order.getCreatedAt(), order.getId()));
+    }
+
     public List<DiagnosticOrderLineItem> getPendingWorklist(TestType type) {
         return lineItemRepository.findByStatusAndCatalogItemType(OrderStatus.PENDING, type);
     }
@@ -1,8 +1,11 @@
 package com.mednex.mednex_enterprise.module.clinical.doctor.controller;
 
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.*;
 import com.mednex.mednex_enterprise.module.clinical.doctor.service.DoctorService;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSection;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -53,6 +56,15 @@ public class DoctorController {
         return ResponseEntity.ok(doctorService.getAllAppointments(doctor.getId()));
     }
 
+    @GetMapping("/appointments/page")
+    public ResponseEntity<CursorPage<AppointmentResponse>> getAppointmentsPage(
+            @AuthenticationPrincipal User doctor,
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(doctorService.getAppointmentsPage(doctor.getId(), status, cursor, limit));
+    }
+
     @GetMapping("/appointments/{id}")
     public ResponseEntity<AppointmentResponse> getAppointmentDetails(
             @AuthenticationPrincipal User doctor,
@@ -73,6 +85,15 @@ public class DoctorController {
         return ResponseEntity.ok(doctorService.getPatientsForDoctor(doctor.getId()));
     }
 
+    @GetMapping("/patients/panel")
+    public ResponseEntity<CursorPage<PatientSummaryDTO>> getPatientPanel(
+            @AuthenticationPrincipal User doctor,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(doctorService.getPatientPanel(doctor.getId(), search, cursor, limit));
+    }
+
     @PostMapping("/appointments/{id}/notes")
     public ResponseEntity<ClinicalNoteResponse> createClinicalNote(
             @AuthenticationPrincipal User doctor,
@@ -84,8 +105,18 @@ public class DoctorController {
     @GetMapping("/patients/{patientId}")
     public ResponseEntity<PatientEMRResponse> getPatientFullEMR(
             @AuthenticationPrincipal User doctor,
-            @PathVariable UUID patientId) {
-        return ResponseEntity.ok(doctorService.getPatientFullEMR(doctor.getId(), patientId));
+            @PathVariable UUID patientId,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(doctorService.getPatientFullEMR(doctor.getId(), patientId, limit));
+    }
+
+    @GetMapping("/patients/{patientId}/emr/{section}")
+    public ResponseEntity<EmrSectionDTO<?>> getPatientEMRSection(
+            @PathVariable UUID patientId,
+            @PathVariable EmrSection section,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(doctorService.getPatientEMRSection(patientId, section, cursor, limit));
     }
 
     @PostMapping("/patients/{patientId}/notes")
@@ -0,0 +1,21 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmrSectionDTO<T> {
+    private List<T> items;
+    // OK, TIMED_OUT or FAILED; items are empty unless OK
+    private String status;
+    // Opaque; pass back as the cursor parameter to load older entries
+    private String nextCursor;
+    private boolean hasMore;
+}
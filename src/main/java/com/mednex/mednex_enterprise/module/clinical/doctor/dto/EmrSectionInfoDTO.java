@@ -0,0 +1,16 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmrSectionInfoDTO {
+    private String status;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -18,4 +19,6 @@ public class PatientEMRResponse {
     private List<VitalsResponse> vitalsHistory;
     private List<LabTestRequestResponse> labReports;
     private List<AdmissionSummaryDTO> admissionHistory;
+    // Status and next-page cursor of each section, keyed by EmrSection name
+    private Map<String, EmrSectionInfoDTO> sections;
 }
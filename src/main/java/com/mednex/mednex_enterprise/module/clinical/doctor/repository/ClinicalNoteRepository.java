@@ -1,9 +1,13 @@
 package com.mednex.mednex_enterprise.module.clinical.doctor.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.ClinicalNote;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,4 +17,12 @@ public interface ClinicalNoteRepository extends JpaRepository<ClinicalNote, UUID
     List<ClinicalNote> findByPatientIdOrderByCreatedAtDesc(UUID patientId);
 
     Optional<ClinicalNote> findByAppointmentId(UUID appointmentId);
+
+    // Keyset page, newest first, continuing after (before, beforeId)
+    @Query("SELECT n FROM ClinicalNote n JOIN FETCH n.doctor d LEFT JOIN FETCH n.appointment a " +
+            "WHERE n.patient.id = :patientId " +
+            "AND (n.createdAt < :before OR (n.createdAt = :before AND n.id < :beforeId)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<ClinicalNote> findPageByPatientId(@Param("patientId") UUID patientId, @Param("before") LocalDateTime before,
+            @Param("beforeId") UUID beforeId, Pageable pageable);
 }
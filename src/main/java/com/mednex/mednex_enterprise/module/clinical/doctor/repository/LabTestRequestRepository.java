@@ -1,13 +1,25 @@
 package com.mednex.mednex_enterprise.module.clinical.doctor.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.LabTestRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface LabTestRequestRepository extends JpaRepository<LabTestRequest, UUID> {
     List<LabTestRequest> findByPatientIdOrderByRequestedAtDesc(UUID patientId);
+
+    // Keyset page, newest first, continuing after (before, beforeId)
+    @Query("SELECT l FROM LabTestRequest l " +
+            "WHERE l.patient.id = :patientId " +
+            "AND (l.requestedAt < :before OR (l.requestedAt = :before AND l.id < :beforeId)) " +
+            "ORDER BY l.requestedAt DESC, l.id DESC")
+    List<LabTestRequest> findPageByPatientId(@Param("patientId") UUID patientId, @Param("before") LocalDateTime before,
+            @Param("beforeId") UUID beforeId, Pageable pageable);
 }
@@ -1,13 +1,25 @@
 package com.mednex.mednex_enterprise.module.clinical.doctor.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Prescription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PrescriptionRepository extends JpaRepository<Prescription, UUID> {
     List<Prescription> findByPatientIdOrderByCreatedAtDesc(UUID patientId);
+
+    // Keyset page, newest first, continuing after (before, beforeId)
+    @Query("SELECT p FROM Prescription p JOIN FETCH p.doctor d " +
+            "WHERE p.patient.id = :patientId " +
+            "AND (p.createdAt < :before OR (p.createdAt = :before AND p.id < :beforeId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Prescription> findPageByPatientId(@Param("patientId") UUID patientId, @Param("before") LocalDateTime before,
+            @Param("beforeId") UUID beforeId, Pageable pageable);
 }
@@ -1,9 +1,13 @@
 package com.mednex.mednex_enterprise.module.clinical.doctor.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Vitals;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,4 +15,12 @@ import java.util.UUID;
 public interface VitalsRepository extends JpaRepository<Vitals, UUID> {
     List<Vitals> findByPatientIdOrderByRecordedAtDesc(UUID patientId);
     List<Vitals> findByAdmissionIdOrderByRecordedAtDesc(UUID admissionId);
+
+    // Keyset page, newest first, continuing after (before, beforeId)
+    @Query("SELECT v FROM Vitals v " +
+            "WHERE v.patient.id = :patientId " +
+            "AND (v.recordedAt < :before OR (v.recordedAt = :before AND v.id < :beforeId)) " +
+            "ORDER BY v.recordedAt DESC, v.id DESC")
+    List<Vitals> findPageByPatientId(@Param("patientId") UUID patientId, @Param("before") LocalDateTime before,
+            @Param("beforeId") UUID beforeId, Pageable pageable);
 }
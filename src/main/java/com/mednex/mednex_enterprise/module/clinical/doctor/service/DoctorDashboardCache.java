@@ -0,0 +1,150 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.service;
+
+import com.mednex.mednex_enterprise.module.clinical.doctor.dto.DoctorDashboardStatsDTO;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of doctor dashboard stats, keyed by tenant and doctor, so
+ * dashboards polled by many logged-in doctors do not each query the tenant
+ * database on every refresh.
+ *
+ * Appointment state changes call {@link #invalidate(UUID)} for the doctors
+ * involved; the entry is dropped once the writing transaction commits. Other
+ * figures, such as open admissions, may lag by up to the TTL. As in
+ * {@link EmrSnapshotCache}, invalidation leaves a tombstone so a load that
+ * started before it is not stored. Returned stats are shared and must be
+ * treated as read-only.
+ */
+@Component
+public class DoctorDashboardCache {
+
+    @Value("${application.doctor.dashboard-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${application.doctor.dashboard-cache.max-entries:5000}")
+    private int maxEntries;
+
+    private final Map<DoctorKey, CachedStats> stats = new ConcurrentHashMap<>();
+
+    public DoctorDashboardStatsDTO get(UUID doctorId, Supplier<DoctorDashboardStatsDTO> loader) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+
+        DoctorKey key = new DoctorKey(TenantContext.getCurrentTenant(), doctorId);
+        long now = System.currentTimeMillis();
+        CachedStats cached = stats.get(key);
+        if (cached != null && cached.expiresAt > now && cached.stats != null) {
+            return cached.stats;
+        }
+
+        long version = cached != null && cached.expiresAt > now ? cached.version : 0;
+        DoctorDashboardStatsDTO loaded = loader.get();
+
+        if (stats.size() >= maxEntries) {
+            evict(now);
+        }
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        stats.compute(key, (k, current) -> {
+            long currentVersion = current != null && current.expiresAt > now ? current.version : 0;
+            // Invalidated while loading
+            return currentVersion != version ? current : new CachedStats(version, loaded, expiresAt);
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops the current tenant's cached stats for the doctor once the
+     * surrounding transaction commits, or immediately outside a transaction.
+     */
+    public void invalidate(UUID doctorId) {
+        if (doctorId == null) {
+            return;
+        }
+        DoctorKey key = new DoctorKey(TenantContext.getCurrentTenant(), doctorId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(key);
+                }
+            });
+        } else {
+            invalidate(key);
+        }
+    }
+
+    private void invalidate(DoctorKey key) {
+        long now = System.currentTimeMillis();
+        stats.compute(key, (k, current) -> {
+            long version = current != null && current.expiresAt > now ? current.version : 0;
+            return new CachedStats(version + 1, null, now + ttlMs);
+        });
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still full, drops arbitrary
+     * entries other than tombstones until a tenth of the capacity is free again.
+     */
+    private void evict(long now) {
+        stats.values().removeIf(cached -> cached.expiresAt <= now);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<CachedStats> values = stats.values().iterator();
+        while (stats.size() > target && values.hasNext()) {
+            if (values.next().stats != null) {
+                values.remove();
+            }
+        }
+    }
+
+    private static final class DoctorKey {
+        private final String tenantId;
+        private final UUID doctorId;
+
+        private DoctorKey(String tenantId, UUID doctorId) {
+            this.tenantId = tenantId;
+            this.doctorId = doctorId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DoctorKey other)) {
+                return false;
+            }
+            return Objects.equals(tenantId, other.tenantId) && doctorId.equals(other.doctorId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, doctorId);
+        }
+    }
+
+    private static final class CachedStats {
+        private final long version;
+        // null for a tombstone left by invalidation
+        private final DoctorDashboardStatsDTO stats;
+        private final long expiresAt;
+
+        private CachedStats(long version, DoctorDashboardStatsDTO stats, long expiresAt) {
+            this.version = version;
+            this.stats = stats;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -4,27 +4,38 @@ import com.mednex.mednex_enterprise.module.clinical.doctor.dto.*;
 import com.mednex.mednex_enterprise.module.clinical.doctor.entity.*;
 import com.mednex.mednex_enterprise.module.clinical.doctor.repository.*;
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Admission;
-import com.mednex.mednex_enterprise.module.clinical.ipd.entity.AdmissionStatus;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.AdmissionRepository;
 import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
+import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientPanelRow;
 import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.repository.DoctorDashboardTotalsRow;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
+import com.mednex.mednex_enterprise.module.clinical.appointment.exception.SlotUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.appointment.service.AppointmentAllocationService;
+import com.mednex.mednex_enterprise.module.clinical.appointment.service.DoctorSlotCalendar;
 import com.mednex.mednex_enterprise.core.entity.User;
-import org.springframework.data.domain.PageRequest;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import org.springframework.data.domain.Pageable;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,47 +52,50 @@ public class DoctorService {
     private final PrescriptionRepository prescriptionRepository;
     private final VitalsRepository vitalsRepository;
     private final LabTestRequestRepository labTestRequestRepository;
-
-    @Transactional(readOnly = true)
+    private final EmrAssembler emrAssembler;
+    private final EmrSnapshotCache emrSnapshotCache;
+    private final DoctorDashboardCache doctorDashboardCache;
+    private final DoctorSlotCalendar slotCalendar;
+    private final AppointmentAllocationService appointmentAllocationService;
+
+    /**
+     * Two queries on a miss: per-status counts for today and the remaining
+     * totals. Served from {@link DoctorDashboardCache} otherwise, so this is
+     * deliberately not transactional.
+     */
     public DoctorDashboardStatsDTO getDashboardStats(UUID doctorId) {
+        return doctorDashboardCache.get(doctorId, () -> loadDashboardStats(doctorId));
+    }
+
+    private DoctorDashboardStatsDTO loadDashboardStats(UUID doctorId) {
         log.info("Fetching production-grade dashboard stats for doctor {}", doctorId);
-        
+
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfDay = now.with(LocalTime.MIN);
-        LocalDateTime endOfDay = now.with(LocalTime.MAX);
-
-        long totalPatients = appointmentRepository.countDistinctPatientIdByDoctorId(doctorId);
-        long todayAppointments = appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.SCHEDULED, startOfDay, endOfDay) + 
-                appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.CHECKED_IN, startOfDay, endOfDay) +
-                appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.IN_PROGRESS, startOfDay, endOfDay) +
-                appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.COMPLETED, startOfDay, endOfDay);
-
-        long waitingQueueCount = appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.CHECKED_IN, startOfDay, endOfDay);
-
-        long completedToday = appointmentRepository.countByDoctorIdAndStatusAndAppointmentTimeBetween(
-                doctorId, AppointmentStatus.COMPLETED, startOfDay, endOfDay);
-
-        long activeIpdPatients = admissionRepository.countByAdmittingDoctorIdAndStatus(
-                doctorId, AdmissionStatus.ADMITTED);
-
-        // Find next appointment time
-        List<Appointment> nextApts = appointmentRepository.findNextAppointments(
-                doctorId, AppointmentStatus.SCHEDULED, now, PageRequest.of(0, 1));
-        
-        String nextAppointmentTime = nextApts.isEmpty() ? "None" : 
-                nextApts.get(0).getAppointmentTime().toLocalTime().toString().substring(0, 5);
+        LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
+
+        Map<AppointmentStatus, Long> todayByStatus = new EnumMap<>(AppointmentStatus.class);
+        for (Object[] row : appointmentRepository.countByDoctorIdAndTimeWindowGroupByStatus(
+                doctorId, startOfDay, startOfDay.plusDays(1))) {
+            todayByStatus.put((AppointmentStatus) row[0], (Long) row[1]);
+        }
+
+        long todayAppointments = todayByStatus.getOrDefault(AppointmentStatus.SCHEDULED, 0L)
+                + todayByStatus.getOrDefault(AppointmentStatus.CHECKED_IN, 0L)
+                + todayByStatus.getOrDefault(AppointmentStatus.IN_PROGRESS, 0L)
+                + todayByStatus.getOrDefault(AppointmentStatus.COMPLETED, 0L);
+
+        DoctorDashboardTotalsRow totals = appointmentRepository.findDashboardTotals(doctorId, now)
+                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+
+        String nextAppointmentTime = totals.getNextAppointmentTime() == null ? "None" :
+                totals.getNextAppointmentTime().toLocalTime().toString().substring(0, 5);
 
         return DoctorDashboardStatsDTO.builder()
-                .totalPatients(totalPatients)
+                .totalPatients(totals.getTotalPatients())
                 .todayAppointments(todayAppointments)
-                .waitingQueueCount(waitingQueueCount)
-                .completedToday(completedToday)
-                .activeIpdPatients(activeIpdPatients)
+                .waitingQueueCount(todayByStatus.getOrDefault(AppointmentStatus.CHECKED_IN, 0L))
+                .completedToday(todayByStatus.getOrDefault(AppointmentStatus.COMPLETED, 0L))
+                .activeIpdPatients(totals.getActiveIpdPatients())
                 .nextAppointmentTime(nextAppointmentTime)
                 .pendingPrescriptions(0)
                 .build();
@@ -136,6 +150,26 @@ public class DoctorService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of the doctor's appointments in schedule order, unscheduled last.
+     * An empty {@code statuses} matches every status.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentResponse> getAppointmentsPage(UUID doctorId, List<AppointmentStatus> statuses,
+            String cursor, Integer limit) {
+        int pageSize = KeysetPaging.pageSize(limit);
+        String[] after = KeysetPaging.decode(cursor, 2);
+        LocalDateTime afterTime = after == null ? KeysetPaging.MIN_TIME : KeysetPaging.parse(after[0], LocalDateTime::parse);
+        UUID afterId = after == null ? KeysetPaging.MIN_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        List<Appointment> rows = appointmentRepository.findPageByDoctorId(doctorId,
+                statuses == null || statuses.isEmpty() ? EnumSet.allOf(AppointmentStatus.class) : statuses,
+                KeysetPaging.MAX_TIME, afterTime, afterId, KeysetPaging.fetch(pageSize));
+        return KeysetPaging.page(rows, pageSize, this::mapToAppointmentResponse,
+                a -> KeysetPaging.encode(
+                        a.getAppointmentTime() != null ? a.getAppointmentTime() : KeysetPaging.MAX_TIME, a.getId()));
+    }
+
     @Transactional(readOnly = true)
     public AppointmentResponse getAppointmentDetails(UUID doctorId, UUID appointmentId) {
         Appointment appointment = appointmentRepository.findById(appointmentId)
@@ -149,8 +183,16 @@ public class DoctorService {
         Appointment appointment = appointmentRepository.findById(appointmentId)
                 .filter(a -> a.getDoctor().getId().equals(doctorId))
                 .orElseThrow(() -> new RuntimeException("Appointment not found or not authorized"));
+        DoctorSlotCalendar.SlotHold heldSlot = slotCalendar.hold(appointment);
 
         if (request.getStatus() != null) {
+            if (appointment.getStatus() == AppointmentStatus.CANCELLED
+                    && request.getStatus() != AppointmentStatus.CANCELLED
+                    && appointment.getAppointmentTime() != null) {
+                // Cancelling gave the slot up; taking it back is a booking like any other
+                appointmentAllocationService.claimSlot(appointment, appointment.getDoctor(),
+                        appointment.getAppointmentTime());
+            }
             appointment.setStatus(request.getStatus());
         }
         if (request.getNotes() != null) {
@@ -160,27 +202,59 @@ public class DoctorService {
             appointment.setPrescription(request.getPrescription());
         }
 
-        Appointment updatedAppointment = appointmentRepository.save(appointment);
+        Appointment updatedAppointment;
+        try {
+            updatedAppointment = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (!AppointmentAllocationService.isSlotIndexViolation(e)) {
+                throw e;
+            }
+            throw new SlotUnavailableException(doctorId, appointment.getAppointmentTime(), List.of());
+        }
+        doctorDashboardCache.invalidate(doctorId);
+        slotCalendar.update(heldSlot, updatedAppointment);
         return mapToAppointmentResponse(updatedAppointment);
     }
 
     @Transactional(readOnly = true)
     public List<PatientSummaryDTO> getPatientsForDoctor(UUID doctorId) {
         log.info("Fetching production-grade summary list for doctor {}", doctorId);
-        
-        List<Patient> assignedPatients = patientRepository.findAssignedPatients(doctorId);
-        
-        return assignedPatients.stream()
-                .map(p -> mapToPatientSummaryDTO(p, doctorId))
+
+        return patientRepository.findPanelPage(doctorId, "%", "", "", KeysetPaging.MIN_ID, Pageable.unpaged())
+                .stream()
+                .map(this::mapToPatientSummaryDTO)
                 .collect(Collectors.toList());
     }
 
-    private PatientSummaryDTO mapToPatientSummaryDTO(Patient p, UUID doctorId) {
-        // Find if they are currently an IPD patient under this doctor
-        boolean isIpd = admissionRepository.findTopByPatientIdAndStatusOrderByAdmissionDateDesc(
-                p.getId(), AdmissionStatus.ADMITTED)
-                .map(a -> a.getAdmittingDoctor().getId().equals(doctorId))
-                .orElse(false);
+    /**
+     * One page of the doctor's patients, ordered by name, from a single query.
+     * {@code search} matches name or phone; {@code cursor} is the value returned
+     * as {@code nextCursor} by the previous page.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PatientSummaryDTO> getPatientPanel(UUID doctorId, String search, String cursor, Integer limit) {
+        int pageSize = KeysetPaging.pageSize(limit);
+        String pattern = KeysetPaging.containsPattern(search);
+
+        String afterLastName = "";
+        String afterFirstName = "";
+        UUID afterId = KeysetPaging.MIN_ID;
+        String[] after = KeysetPaging.decode(cursor, 3);
+        if (after != null) {
+            afterLastName = after[0];
+            afterFirstName = after[1];
+            afterId = KeysetPaging.parse(after[2], UUID::fromString);
+        }
+
+        List<PatientPanelRow> rows = patientRepository.findPanelPage(doctorId, pattern, afterLastName, afterFirstName,
+                afterId, KeysetPaging.fetch(pageSize));
+        return KeysetPaging.page(rows, pageSize, this::mapToPatientSummaryDTO,
+                row -> KeysetPaging.encode(row.getLastName(), row.getFirstName(), row.getId()));
+    }
+
+    private PatientSummaryDTO mapToPatientSummaryDTO(PatientPanelRow p) {
+        // Currently an IPD patient under this doctor
+        boolean isIpd = p.getActiveAdmissions() > 0;
 
         // Calculate age
         Integer age = null;
@@ -196,7 +270,7 @@ public class DoctorService {
                 .gender(p.getGender())
                 .contactNumber(p.getPhone())
                 .patientType(isIpd ? "IPD" : "OPD")
-                .lastVisitDate(p.getUpdatedAt() != null ? p.getUpdatedAt().toLocalDate().toString() : "Never")
+                .lastVisitDate(p.getLastVisit() != null ? p.getLastVisit().toLocalDate().toString() : "Never")
                 .currentStatus(isIpd ? "ADMITTED" : "FOLLOW_UP") // Default for now
                 .build();
     }
@@ -234,6 +308,7 @@ public class DoctorService {
                 .build();
 
         ClinicalNote savedNote = clinicalNoteRepository.save(note);
+        emrSnapshotCache.invalidate(appointment.getPatient().getId());
         return mapToClinicalNoteResponse(savedNote);
     }
 
@@ -252,29 +327,70 @@ public class DoctorService {
         return getClinicalNotesForPatient(patientId);
     }
 
-    @Transactional(readOnly = true)
-    public PatientEMRResponse getPatientFullEMR(UUID doctorId, UUID patientId) {
+    /**
+     * Loads the patient and the first page of every EMR section concurrently.
+     * Not transactional: each section runs in its own read-only transaction, see
+     * {@link EmrAssembler}. Further pages come from {@link #getPatientEMRSection}.
+     * Complete records at the default page size are served from {@link EmrSnapshotCache}.
+     */
+    public PatientEMRResponse getPatientFullEMR(UUID doctorId, UUID patientId, Integer limit) {
         log.info("Fetching production-grade full EMR for patient {} by doctor {}", patientId, doctorId);
-        
-        Patient patient = patientRepository.findById(patientId)
-                .orElseThrow(() -> new RuntimeException("Patient not found"));
-        
-        List<ClinicalNote> notes = clinicalNoteRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
-        List<Prescription> prescriptions = prescriptionRepository.findByPatientIdOrderByCreatedAtDesc(patientId);
-        List<Vitals> vitals = vitalsRepository.findByPatientIdOrderByRecordedAtDesc(patientId);
-        List<LabTestRequest> labRequests = labTestRequestRepository.findByPatientIdOrderByRequestedAtDesc(patientId);
-        List<Admission> admissions = admissionRepository.findByPatientIdOrderByAdmissionDateDesc(patientId);
+
+        if (limit != null) {
+            return loadPatientFullEMR(patientId, limit);
+        }
+        return emrSnapshotCache.get(patientId, PatientEMRResponse.class,
+                () -> loadPatientFullEMR(patientId, null),
+                emr -> EmrAssembler.isComplete(emr.getSections()));
+    }
+
+    private PatientEMRResponse loadPatientFullEMR(UUID patientId, Integer limit) {
+        CompletableFuture<PatientResponse> patient = emrAssembler.submit(() -> patientRepository.findById(patientId)
+                .map(this::mapToPatientResponse)
+                .orElseThrow(() -> new RuntimeException("Patient not found")));
+        CompletableFuture<EmrSectionDTO<ClinicalNoteResponse>> notes =
+                emrAssembler.clinicalNotes(patientId, null, limit, this::mapToClinicalNoteResponse);
+        CompletableFuture<EmrSectionDTO<PrescriptionResponse>> prescriptions =
+                emrAssembler.prescriptions(patientId, null, limit, this::mapToPrescriptionResponse);
+        CompletableFuture<EmrSectionDTO<VitalsResponse>> vitals =
+                emrAssembler.vitals(patientId, null, limit, this::mapToVitalsResponse);
+        CompletableFuture<EmrSectionDTO<LabTestRequestResponse>> labReports =
+                emrAssembler.labReports(patientId, null, limit, this::mapToLabTestRequestResponse);
+        CompletableFuture<EmrSectionDTO<AdmissionSummaryDTO>> admissions =
+                emrAssembler.admissions(patientId, null, limit, this::mapToAdmissionSummaryDTO);
+
+        Map<EmrSection, EmrSectionDTO<?>> sections = new EnumMap<>(EmrSection.class);
+        sections.put(EmrSection.CLINICAL_NOTES, notes.join());
+        sections.put(EmrSection.PRESCRIPTIONS, prescriptions.join());
+        sections.put(EmrSection.VITALS, vitals.join());
+        sections.put(EmrSection.LAB_REPORTS, labReports.join());
+        sections.put(EmrSection.ADMISSIONS, admissions.join());
 
         return PatientEMRResponse.builder()
-                .patientDetails(mapToPatientResponse(patient))
-                .clinicalNotes(notes.stream().map(this::mapToClinicalNoteResponse).collect(Collectors.toList()))
-                .prescriptions(prescriptions.stream().map(this::mapToPrescriptionResponse).collect(Collectors.toList()))
-                .vitalsHistory(vitals.stream().map(this::mapToVitalsResponse).collect(Collectors.toList()))
-                .labReports(labRequests.stream().map(this::mapToLabTestRequestResponse).collect(Collectors.toList()))
-                .admissionHistory(admissions.stream().map(this::mapToAdmissionSummaryDTO).collect(Collectors.toList()))
+                .patientDetails(EmrAssembler.join(patient))
+                .clinicalNotes(notes.join().getItems())
+                .prescriptions(prescriptions.join().getItems())
+                .vitalsHistory(vitals.join().getItems())
+                .labReports(labReports.join().getItems())
+                .admissionHistory(admissions.join().getItems())
+                .sections(EmrAssembler.describe(sections))
                 .build();
     }
 
+    /**
+     * Loads one further page of a single EMR section.
+     */
+    public EmrSectionDTO<?> getPatientEMRSection(UUID patientId, EmrSection section, String cursor, Integer limit) {
+        CompletableFuture<? extends EmrSectionDTO<?>> page = switch (section) {
+            case CLINICAL_NOTES -> emrAssembler.clinicalNotes(patientId, cursor, limit, this::mapToClinicalNoteResponse);
+            case PRESCRIPTIONS -> emrAssembler.prescriptions(patientId, cursor, limit, this::mapToPrescriptionResponse);
+            case VITALS -> emrAssembler.vitals(patientId, cursor, limit, this::mapToVitalsResponse);
+            case LAB_REPORTS -> emrAssembler.labReports(patientId, cursor, limit, this::mapToLabTestRequestResponse);
+            case ADMISSIONS -> emrAssembler.admissions(patientId, cursor, limit, this::mapToAdmissionSummaryDTO);
+        };
+        return page.join();
+    }
+
     @Transactional
     public PrescriptionResponse createPrescription(UUID doctorId, UUID patientId, CreatePrescriptionRequest request) {
         Patient patient = patientRepository.findById(patientId)
@@ -291,7 +407,9 @@ public class DoctorService {
                 .duration(request.getDuration())
                 .build();
 
-        return mapToPrescriptionResponse(prescriptionRepository.save(prescription));
+        Prescription savedPrescription = prescriptionRepository.save(prescription);
+        emrSnapshotCache.invalidate(patientId);
+        return mapToPrescriptionResponse(savedPrescription);
     }
 
     @Transactional
@@ -309,7 +427,9 @@ public class DoctorService {
                 .weight(request.getWeight())
                 .build();
 
-        return mapToVitalsResponse(vitalsRepository.save(vitals));
+        Vitals savedVitals = vitalsRepository.save(vitals);
+        emrSnapshotCache.invalidate(patientId);
+        return mapToVitalsResponse(savedVitals);
     }
 
     @Transactional
@@ -327,7 +447,9 @@ public class DoctorService {
                 .notes(request.getNotes())
                 .build();
 
-        return mapToLabTestRequestResponse(labTestRequestRepository.save(labRequest));
+        LabTestRequest savedRequest = labTestRequestRepository.save(labRequest);
+        emrSnapshotCache.invalidate(patientId);
+        return mapToLabTestRequestResponse(savedRequest);
     }
 
     private PrescriptionResponse mapToPrescriptionResponse(Prescription p) {
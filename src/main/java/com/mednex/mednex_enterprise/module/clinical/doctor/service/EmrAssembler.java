@@ -0,0 +1,259 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.service;
+
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import com.mednex.mednex_enterprise.module.clinical.doctor.dto.EmrSectionDTO;
+import com.mednex.mednex_enterprise.module.clinical.doctor.dto.EmrSectionInfoDTO;
+import com.mednex.mednex_enterprise.module.clinical.doctor.entity.ClinicalNote;
+import com.mednex.mednex_enterprise.module.clinical.doctor.entity.LabTestRequest;
+import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Prescription;
+import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Vitals;
+import com.mednex.mednex_enterprise.module.clinical.doctor.repository.ClinicalNoteRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.repository.LabTestRequestRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.repository.PrescriptionRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.repository.VitalsRepository;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Admission;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.AdmissionRepository;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the sections of a patient's EMR concurrently.
+ *
+ * Each section is a keyset page, newest first, loaded on its own virtual thread
+ * in its own read-only transaction with the caller's tenant. A section that
+ * misses its deadline or fails comes back empty with a TIMED_OUT or FAILED
+ * status instead of failing the whole record, so an EMR takes about as long as
+ * its slowest section, capped at the timeout.
+ *
+ * Each section holds a connection of the tenant's pool while it loads, so a
+ * tenant's sections load at most half its pool size at a time; the rest wait
+ * for a turn within their deadline and leave connections for other requests.
+ */
+@Service
+public class EmrAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(EmrAssembler.class);
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_TIMED_OUT = "TIMED_OUT";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private final ClinicalNoteRepository clinicalNoteRepository;
+    private final PrescriptionRepository prescriptionRepository;
+    private final VitalsRepository vitalsRepository;
+    private final LabTestRequestRepository labTestRequestRepository;
+    private final AdmissionRepository admissionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Connection slots per tenant ID
+    private final Map<String, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+
+    @Value("${application.emr.section-timeout-ms:3000}")
+    private long sectionTimeoutMs;
+
+    @Value("${application.emr.default-section-limit:50}")
+    private int defaultSectionLimit;
+
+    @Value("${application.emr.max-section-limit:200}")
+    private int maxSectionLimit;
+
+    @Value("${application.tenancy.pool.max-size:10}")
+    private int tenantPoolMaxSize;
+
+    public EmrAssembler(ClinicalNoteRepository clinicalNoteRepository,
+                        PrescriptionRepository prescriptionRepository,
+                        VitalsRepository vitalsRepository,
+                        LabTestRequestRepository labTestRequestRepository,
+                        AdmissionRepository admissionRepository,
+                        PlatformTransactionManager transactionManager) {
+        this.clinicalNoteRepository = clinicalNoteRepository;
+        this.prescriptionRepository = prescriptionRepository;
+        this.vitalsRepository = vitalsRepository;
+        this.labTestRequestRepository = labTestRequestRepository;
+        this.admissionRepository = admissionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        // Queries of a section that timed out are cancelled by the database shortly after
+        readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(sectionTimeoutMs) + 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a task on a virtual thread in a read-only transaction for the
+     * caller's tenant, once one of the tenant's connection slots is free.
+     * Entities must be mapped inside the task. Fails if no slot frees up
+     * within the section timeout.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        String tenantId = TenantContext.getCurrentTenant();
+        Semaphore permits = tenantPermits.computeIfAbsent(Objects.requireNonNullElse(tenantId, ""),
+                id -> new Semaphore(Math.max(1, tenantPoolMaxSize / 2)));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        return CompletableFuture.supplyAsync(() -> {
+            acquire(permits, deadline);
+            TenantContext.setCurrentTenant(tenantId);
+            try {
+                return readOnlyTransaction.execute(status -> task.get());
+            } finally {
+                TenantContext.clear();
+                permits.release();
+            }
+        }, executor);
+    }
+
+    public <T> CompletableFuture<EmrSectionDTO<T>> clinicalNotes(UUID patientId, String cursor, Integer limit,
+            Function<ClinicalNote, T> mapper) {
+        return section(EmrSection.CLINICAL_NOTES, cursor, limit,
+                (before, beforeId, page) -> clinicalNoteRepository.findPageByPatientId(patientId, before, beforeId, page),
+                ClinicalNote::getCreatedAt, ClinicalNote::getId, mapper);
+    }
+
+    public <T> CompletableFuture<EmrSectionDTO<T>> prescriptions(UUID patientId, String cursor, Integer limit,
+            Function<Prescription, T> mapper) {
+        return section(EmrSection.PRESCRIPTIONS, cursor, limit,
+                (before, beforeId, page) -> prescriptionRepository.findPageByPatientId(patientId, before, beforeId, page),
+                Prescription::getCreatedAt, Prescription::getId, mapper);
+    }
+
+    public <T> CompletableFuture<EmrSectionDTO<T>> vitals(UUID patientId, String cursor, Integer limit,
+            Function<Vitals, T> mapper) {
+        return section(EmrSection.VITALS, cursor, limit,
+                (before, beforeId, page) -> vitalsRepository.findPageByPatientId(patientId, before, beforeId, page),
+                Vitals::getRecordedAt, Vitals::getId, mapper);
+    }
+
+    public <T> CompletableFuture<EmrSectionDTO<T>> labReports(UUID patientId, String cursor, Integer limit,
+            Function<LabTestRequest, T> mapper) {
+        return section(EmrSection.LAB_REPORTS, cursor, limit,
+                (before, beforeId, page) -> labTestRequestRepository.findPageByPatientId(patientId, before, beforeId, page),
+                LabTestRequest::getRequestedAt, LabTestRequest::getId, mapper);
+    }
+
+    public <T> CompletableFuture<EmrSectionDTO<T>> admissions(UUID patientId, String cursor, Integer limit,
+            Function<Admission, T> mapper) {
+        return section(EmrSection.ADMISSIONS, cursor, limit,
+                (before, beforeId, page) -> admissionRepository.findPageByPatientId(patientId, before, beforeId, page),
+                Admission::getAdmissionDate, Admission::getId, mapper);
+    }
+
+    /**
+     * Waits for a task from {@link #submit}, rethrowing its own exception rather
+     * than the {@link CompletionException} wrapping it.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Whether every described section loaded fully, i.e. none timed out or failed.
+     */
+    public static boolean isComplete(Map<String, EmrSectionInfoDTO> sections) {
+        return sections != null && sections.values().stream()
+                .allMatch(section -> STATUS_OK.equals(section.getStatus()));
+    }
+
+    /**
+     * Paging and status details of loaded sections, without their items.
+     */
+    public static Map<String, EmrSectionInfoDTO> describe(Map<EmrSection, EmrSectionDTO<?>> sections) {
+        return sections.entrySet().stream().collect(Collectors.toMap(
+                entry -> entry.getKey().name(),
+                entry -> EmrSectionInfoDTO.builder()
+                        .status(entry.getValue().getStatus())
+                        .nextCursor(entry.getValue().getNextCursor())
+                        .hasMore(entry.getValue().isHasMore())
+                        .build()));
+    }
+
+    private <E, T> CompletableFuture<EmrSectionDTO<T>> section(EmrSection section, String cursor, Integer limit,
+            PageQuery<E> query, Function<E, LocalDateTime> timeKey, Function<E, UUID> idKey,
+            Function<E, T> mapper) {
+        int pageSize = limit == null ? defaultSectionLimit : Math.max(1, Math.min(limit, maxSectionLimit));
+        // Decoded up front so a bad cursor is reported to the caller rather than as a failed section
+        String[] after = KeysetPaging.decode(cursor, 2);
+        LocalDateTime before = after == null ? KeysetPaging.MAX_TIME : KeysetPaging.parse(after[0], LocalDateTime::parse);
+        UUID beforeId = after == null ? KeysetPaging.MAX_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        return this.<EmrSectionDTO<T>>submit(() -> {
+            List<E> rows = query.find(before, beforeId, KeysetPaging.fetch(pageSize));
+            boolean hasMore = rows.size() > pageSize;
+            if (hasMore) {
+                rows = rows.subList(0, pageSize);
+            }
+            E last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            return EmrSectionDTO.<T>builder()
+                    .items(rows.stream().map(mapper).collect(Collectors.toList()))
+                    .status(STATUS_OK)
+                    .nextCursor(hasMore ? KeysetPaging.encode(timeKey.apply(last), idKey.apply(last)) : null)
+                    .hasMore(hasMore)
+                    .build();
+        }).exceptionally(error -> {
+            log.warn("Failed to load EMR section {}", section, error);
+            return empty(STATUS_FAILED);
+        }).completeOnTimeout(empty(STATUS_TIMED_OUT), sectionTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void acquire(Semaphore permits, long deadline) {
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("No connection free for an EMR section within the timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a connection", e);
+        }
+    }
+
+    private static <T> EmrSectionDTO<T> empty(String status) {
+        return EmrSectionDTO.<T>builder()
+                .items(List.of())
+                .status(status)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<E> {
+        List<E> find(LocalDateTime before, UUID beforeId, Pageable pageable);
+    }
+}
@@ -0,0 +1,9 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.service;
+
+public enum EmrSection {
+    CLINICAL_NOTES,
+    PRESCRIPTIONS,
+    VITALS,
+    LAB_REPORTS,
+    ADMISSIONS
+}
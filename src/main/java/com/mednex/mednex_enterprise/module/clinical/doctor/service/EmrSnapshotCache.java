@@ -0,0 +1,214 @@
+package com.mednex.mednex_enterprise.module.clinical.doctor.service;
+
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of assembled EMR views, keyed by tenant and patient.
+ *
+ * A patient's entry holds one snapshot per view type, since the doctor and
+ * consultation APIs render the same record differently. Anything that writes
+ * to a patient's record must call {@link #invalidate(UUID)}; the entry is
+ * dropped once the writing transaction commits.
+ *
+ * Each entry carries a version. Invalidating a patient whose view is being
+ * loaded bumps it, leaving a tombstone until the last of those loads finishes
+ * or the TTL runs out, so a load that started before an invalidation is not
+ * stored even if it finishes after it. Without a load in flight the entry is
+ * simply removed, so invalidating patients nobody reads leaves nothing behind.
+ * Returned snapshots are shared and must be treated as read-only.
+ */
+@Component
+public class EmrSnapshotCache {
+
+    @Value("${application.emr.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${application.emr.cache.max-entries:2000}")
+    private int maxEntries;
+
+    private final Map<PatientKey, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Loads in flight by key; absent when none
+    private final Map<PatientKey, Integer> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Returns the cached view of the current tenant's patient, or loads it. A
+     * loaded view is only stored if {@code cacheable} accepts it, so partial
+     * results are served once but not kept.
+     */
+    public <T> T get(UUID patientId, Class<T> view, Supplier<T> loader, Predicate<T> cacheable) {
+        if (maxEntries <= 0) {
+            return loader.get();
+        }
+
+        PatientKey key = new PatientKey(TenantContext.getCurrentTenant(), patientId);
+        long now = System.currentTimeMillis();
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && snapshot.expiresAt > now) {
+            Object cached = snapshot.views.get(view);
+            if (cached != null) {
+                hits.increment();
+                return view.cast(cached);
+            }
+        }
+
+        misses.increment();
+        loads.merge(key, 1, Integer::sum);
+        try {
+            // Read after registering the load, so any invalidation from here on leaves a tombstone
+            snapshot = snapshots.get(key);
+            long version = snapshot != null && snapshot.expiresAt > now ? snapshot.version : 0;
+            T loaded = loader.get();
+            if (loaded == null || !cacheable.test(loaded)) {
+                return loaded;
+            }
+
+            if (snapshots.size() >= maxEntries) {
+                evict(now);
+            }
+            long expiresAt = System.currentTimeMillis() + ttlMs;
+            snapshots.compute(key, (k, current) -> {
+                boolean live = current != null && current.expiresAt > now;
+                if ((live ? current.version : 0) != version) {
+                    // Invalidated while loading
+                    return current;
+                }
+                Map<Class<?>, Object> views = new HashMap<>(live ? current.views : Map.of());
+                views.put(view, loaded);
+                return new Snapshot(version, views, live && !current.views.isEmpty() ? current.expiresAt : expiresAt);
+            });
+            return loaded;
+        } finally {
+            finishLoad(key);
+        }
+    }
+
+    /**
+     * Drops every view of the current tenant's patient once the surrounding
+     * transaction commits, or immediately outside a transaction.
+     */
+    public void invalidate(UUID patientId) {
+        if (patientId == null) {
+            return;
+        }
+        PatientKey key = new PatientKey(TenantContext.getCurrentTenant(), patientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(key);
+                }
+            });
+        } else {
+            invalidate(key);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long total = hits.sum() + misses.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", snapshots.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits.sum() / total);
+        return stats;
+    }
+
+    private void invalidate(PatientKey key) {
+        invalidations.increment();
+        long now = System.currentTimeMillis();
+        snapshots.compute(key, (k, current) -> {
+            if (!loads.containsKey(k)) {
+                // No load can still store a stale view
+                return null;
+            }
+            long version = current != null && current.expiresAt > now ? current.version : 0;
+            return new Snapshot(version + 1, Map.of(), now + ttlMs);
+        });
+    }
+
+    // Once the last load of a key is done its tombstone has served its purpose
+    private void finishLoad(PatientKey key) {
+        if (loads.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null) == null) {
+            snapshots.computeIfPresent(key,
+                    (k, current) -> current.views.isEmpty() && !loads.containsKey(k) ? null : current);
+        }
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still full, drops arbitrary
+     * entries until a tenth of the capacity is free again.
+     */
+    private void evict(long now) {
+        snapshots.values().removeIf(snapshot -> snapshot.expiresAt <= now);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<Snapshot> values = snapshots.values().iterator();
+        while (snapshots.size() > target && values.hasNext()) {
+            // Tombstones stay until they expire so in-flight loads still see them
+            if (!values.next().views.isEmpty()) {
+                values.remove();
+            }
+        }
+    }
+
+    private static final class PatientKey {
+        private final String tenantId;
+        private final UUID patientId;
+
+        private PatientKey(String tenantId, UUID patientId) {
+            this.tenantId = tenantId;
+            this.patientId = patientId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PatientKey other)) {
+                return false;
+            }
+            return Objects.equals(tenantId, other.tenantId) && patientId.equals(other.patientId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, patientId);
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        // Empty for a tombstone left by invalidation
+        private final Map<Class<?>, Object> views;
+        private final long expiresAt;
+
+        private Snapshot(long version, Map<Class<?>, Object> views, long expiresAt) {
+            this.version = version;
+            this.views = views;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.controller;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardSnapshotDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedBoardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/clinical/ipd/bed-board")
+@RequiredArgsConstructor
+public class BedBoardController {
+
+    private final BedBoardService bedBoardService;
+
+    @GetMapping("/wards/{wardId}")
+    public ResponseEntity<BedBoardSnapshotDTO> getWardBoard(@PathVariable UUID wardId) {
+        return ResponseEntity.ok(bedBoardService.getWardBoard(wardId));
+    }
+
+    @GetMapping("/wards/{wardId}/availability")
+    public ResponseEntity<Map<BedStatus, Integer>> getWardAvailability(@PathVariable UUID wardId) {
+        return ResponseEntity.ok(bedBoardService.getWardAvailability(wardId));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @RequestParam(required = false) UUID branchId,
+            @RequestParam(required = false) UUID wardId) {
+        return bedBoardService.subscribe(branchId, wardId);
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Void> reload() {
+        bedBoardService.reload();
+        return ResponseEntity.ok().build();
+    }
+}
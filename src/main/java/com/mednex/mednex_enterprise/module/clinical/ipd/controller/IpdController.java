@@ -5,6 +5,9 @@ import com.mednex.mednex_enterprise.module.clinical.ipd.dto.*;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.VitalsRequest;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.VitalsResponse;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.PrescriptionResponse;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedRecommendationService;
 import com.mednex.mednex_enterprise.module.clinical.ipd.service.IpdService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -21,12 +24,18 @@ import java.util.UUID;
 public class IpdController {
 
     private final IpdService ipdService;
+    private final BedRecommendationService bedRecommendationService;
 
     @GetMapping("/wards")
     public ResponseEntity<List<WardDTO>> getWardsByBranch(@RequestParam UUID branchId) {
         return ResponseEntity.ok(ipdService.getWardsByBranch(branchId));
     }
 
+    @GetMapping("/occupancy")
+    public ResponseEntity<BranchOccupancyDTO> getBranchOccupancy(@RequestParam UUID branchId) {
+        return ResponseEntity.ok(ipdService.getBranchOccupancy(branchId));
+    }
+
     @PostMapping("/admissions/request")
     public ResponseEntity<AdmissionDTO> requestAdmission(
             @AuthenticationPrincipal User currentUser,
@@ -39,6 +48,16 @@ public class IpdController {
         return ResponseEntity.ok(ipdService.getPendingAdmissions());
     }
 
+    @GetMapping("/admissions/{id}/bed-recommendations")
+    public ResponseEntity<List<BedRecommendationDTO>> recommendBeds(
+            @PathVariable UUID id,
+            @RequestParam UUID branchId,
+            @RequestParam(required = false) WardType wardType,
+            @RequestParam(required = false) BedType bedType,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bedRecommendationService.recommendForAdmission(id, branchId, wardType, bedType, limit));
+    }
+
     @PatchMapping("/admissions/{id}/assign-bed")
     public ResponseEntity<AdmissionDTO> assignBed(
             @AuthenticationPrincipal User currentUser,
@@ -0,0 +1,26 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BedBoardDeltaDTO {
+    // Increases by one per change within a tenant; a gap means the client missed deltas
+    private long sequence;
+    private UUID bedId;
+    private UUID wardId;
+    private UUID branchId;
+    private String bedNumber;
+    private BedStatus previousStatus;
+    private BedStatus status;
+    private LocalDateTime changedAt;
+}
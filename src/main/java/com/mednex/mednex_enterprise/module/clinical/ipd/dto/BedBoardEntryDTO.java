@@ -0,0 +1,28 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BedBoardEntryDTO {
+    private UUID bedId;
+    private UUID wardId;
+    private UUID branchId;
+    private UUID roomId;
+    private String bedNumber;
+    private BedType bedType;
+    private WardType wardType;
+    private BedStatus status;
+    private LocalDateTime updatedAt;
+}
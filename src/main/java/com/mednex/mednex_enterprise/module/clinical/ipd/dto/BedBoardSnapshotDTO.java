@@ -0,0 +1,23 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BedBoardSnapshotDTO {
+    private UUID wardId;
+    // Sequence of the last delta included; stream deltas at or below it can be ignored
+    private long sequence;
+    private Map<BedStatus, Integer> bedsByStatus;
+    private List<BedBoardEntryDTO> beds;
+}
@@ -0,0 +1,17 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BedRecommendationDTO {
+    // 1 is the best fit
+    private int rank;
+    private String reason;
+    private BedBoardEntryDTO bed;
+}
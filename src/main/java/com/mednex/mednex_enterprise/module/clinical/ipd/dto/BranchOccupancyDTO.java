@@ -0,0 +1,26 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BranchOccupancyDTO {
+    private UUID branchId;
+    private long totalCapacity;
+    private long totalBeds;
+    private long occupiedBeds;
+    private long availableBeds;
+    private double occupancyRate;
+    private Map<BedStatus, Long> bedsByStatus;
+    private List<WardDTO> wards;
+}
@@ -1,11 +1,14 @@
 package com.mednex.mednex_enterprise.module.clinical.ipd.dto;
 
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -15,9 +18,12 @@ import java.util.UUID;
 public class WardDTO {
     private UUID id;
     private String name;
+    private WardType wardType;
     private UUID branchId;
     private Integer totalCapacity;
     private long occupiedBeds;
     private long availableBeds;
+    private long totalBeds;
+    private Map<BedStatus, Long> bedsByStatus;
     private LocalDateTime createdAt;
 }
@@ -41,6 +41,10 @@ public class Bed {
     @Column(nullable = false)
     private BedStatus status;
 
+    // Bumped on every change, including conditional status updates
+    @Version
+    private Long version;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -0,0 +1,29 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.exception;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardEntryDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class BedUnavailableException extends RuntimeException {
+
+    private final UUID bedId;
+    private final List<BedBoardEntryDTO> alternatives;
+
+    public BedUnavailableException(UUID bedId, List<BedBoardEntryDTO> alternatives) {
+        super("Bed is no longer available");
+        this.bedId = bedId;
+        this.alternatives = alternatives;
+    }
+
+    public UUID getBedId() {
+        return bedId;
+    }
+
+    public List<BedBoardEntryDTO> getAlternatives() {
+        return alternatives;
+    }
+}
@@ -2,11 +2,14 @@ package com.mednex.mednex_enterprise.module.clinical.ipd.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Admission;
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.AdmissionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +19,14 @@ public interface AdmissionRepository extends JpaRepository<Admission, UUID> {
     @Query("SELECT a FROM Admission a JOIN FETCH a.patient p JOIN FETCH a.currentBed b JOIN FETCH b.ward w WHERE a.patient.id = :patientId ORDER BY a.admissionDate DESC")
     List<Admission> findByPatientIdOrderByAdmissionDateDesc(@Param("patientId") UUID patientId);
 
+    // Keyset page, newest first, continuing after (before, beforeId); admissions without a bed are included
+    @Query("SELECT a FROM Admission a LEFT JOIN FETCH a.currentBed b LEFT JOIN FETCH b.ward w " +
+            "WHERE a.patient.id = :patientId " +
+            "AND (a.admissionDate < :before OR (a.admissionDate = :before AND a.id < :beforeId)) " +
+            "ORDER BY a.admissionDate DESC, a.id DESC")
+    List<Admission> findPageByPatientId(@Param("patientId") UUID patientId, @Param("before") LocalDateTime before,
+            @Param("beforeId") UUID beforeId, Pageable pageable);
+
     List<Admission> findByStatusOrderByAdmissionDateDesc(AdmissionStatus status);
 
     @Query("SELECT a FROM Admission a JOIN FETCH a.patient p JOIN FETCH a.currentBed b JOIN FETCH b.ward w WHERE a.admittingDoctor.id = :doctorId AND a.status = :status")
@@ -25,6 +36,13 @@ public interface AdmissionRepository extends JpaRepository<Admission, UUID> {
 
     Optional<Admission> findTopByCurrentBedIdAndStatusOrderByAdmissionDateDesc(UUID currentBedId, AdmissionStatus status);
 
+    // Each row is [Admission, doctor name]. Only the name is selected, so the doctor and its eager branch,
+    // roles and permissions are not loaded.
+    @Query("SELECT a, d.name FROM Admission a JOIN FETCH a.patient p JOIN a.admittingDoctor d " +
+            "WHERE a.currentBed.id IN :bedIds AND a.status = :status ORDER BY a.admissionDate DESC")
+    List<Object[]> findWithDoctorNameByCurrentBedIdInAndStatus(@Param("bedIds") Collection<UUID> bedIds,
+            @Param("status") AdmissionStatus status);
+
     @Query("SELECT COUNT(a) FROM Admission a WHERE a.admittingDoctor.id = :doctorId AND a.status = :status")
     long countByAdmittingDoctorIdAndStatus(@Param("doctorId") UUID doctorId, @Param("status") AdmissionStatus status);
 
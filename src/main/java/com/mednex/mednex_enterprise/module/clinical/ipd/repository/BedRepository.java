@@ -3,8 +3,12 @@ package com.mednex.mednex_enterprise.module.clinical.ipd.repository;
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Bed;
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +21,14 @@ public interface BedRepository extends JpaRepository<Bed, UUID> {
     List<Bed> findByWardIdAndStatus(UUID wardId, BedStatus status);
 
     long countByWardIdAndStatus(UUID wardId, BedStatus status);
+
+    @Query("SELECT b FROM Bed b JOIN FETCH b.ward w")
+    List<Bed> findAllWithWard();
+
+    // Compare-and-set on the bed row; returns 0 when the bed was not in the expected status
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Bed b SET b.status = :newStatus, b.version = b.version + 1, b.updatedAt = :now " +
+            "WHERE b.id = :bedId AND b.status = :expectedStatus")
+    int transitionStatus(@Param("bedId") UUID bedId, @Param("expectedStatus") BedStatus expectedStatus,
+            @Param("newStatus") BedStatus newStatus, @Param("now") LocalDateTime now);
 }
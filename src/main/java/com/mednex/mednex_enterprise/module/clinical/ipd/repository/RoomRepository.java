@@ -2,6 +2,8 @@ package com.mednex.mednex_enterprise.module.clinical.ipd.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Room;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +12,8 @@ import java.util.UUID;
 @Repository
 public interface RoomRepository extends JpaRepository<Room, UUID> {
     List<Room> findByWardId(UUID wardId);
+
+    // Each row is [Room, Bed]; the bed is null for rooms without beds
+    @Query("SELECT r, b FROM Room r LEFT JOIN Bed b ON b.room = r WHERE r.ward.id = :wardId ORDER BY r.roomNumber, b.bedNumber")
+    List<Object[]> findRoomsWithBedsByWardId(@Param("wardId") UUID wardId);
 }
@@ -0,0 +1,28 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.repository;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row of the grouped occupancy query: a ward and the number of its beds in
+ * one status. Wards without beds come back once with a null status and a zero
+ * count.
+ */
+public interface WardOccupancyRow {
+    UUID getWardId();
+
+    String getWardName();
+
+    WardType getWardType();
+
+    Integer getTotalCapacity();
+
+    LocalDateTime getCreatedAt();
+
+    BedStatus getStatus();
+
+    long getBedCount();
+}
@@ -2,6 +2,8 @@ package com.mednex.mednex_enterprise.module.clinical.ipd.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Ward;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +12,12 @@ import java.util.UUID;
 @Repository
 public interface WardRepository extends JpaRepository<Ward, UUID> {
     List<Ward> findByBranchId(UUID branchId);
+
+    @Query("SELECT w.id AS wardId, w.name AS wardName, w.wardType AS wardType, w.totalCapacity AS totalCapacity, " +
+            "w.createdAt AS createdAt, b.status AS status, COUNT(b) AS bedCount " +
+            "FROM Ward w LEFT JOIN Bed b ON b.ward = w " +
+            "WHERE w.branch.id = :branchId " +
+            "GROUP BY w.id, w.name, w.wardType, w.totalCapacity, w.createdAt, b.status " +
+            "ORDER BY w.name")
+    List<WardOccupancyRow> findOccupancyByBranchId(@Param("branchId") UUID branchId);
 }
@@ -0,0 +1,58 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.service;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Bed;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.exception.BedUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.BedRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claims beds with a single conditional update, so two receptionists assigning
+ * the same bed cannot both succeed: the row only moves from AVAILABLE to
+ * OCCUPIED once, and the loser gets a {@link BedUnavailableException} listing
+ * free beds nearby instead of a double booking.
+ */
+@Service
+@RequiredArgsConstructor
+public class BedAllocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BedAllocationService.class);
+
+    private final BedRepository bedRepository;
+    private final BedBoardService bedBoardService;
+
+    @Value("${application.ipd.bed-claim.alternatives:5}")
+    private int alternativesLimit;
+
+    /**
+     * Marks an available bed as occupied and returns it. Runs in the caller's
+     * transaction, so the claim is rolled back with the admission if anything
+     * later fails. Call before the bed is loaded in the same transaction,
+     * otherwise the returned entity carries the pre-claim state.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Bed claim(UUID bedId) {
+        int updated = bedRepository.transitionStatus(bedId, BedStatus.AVAILABLE, BedStatus.OCCUPIED, LocalDateTime.now());
+        if (updated == 0) {
+            if (!bedRepository.existsById(bedId)) {
+                throw new IllegalArgumentException("Bed not found");
+            }
+            log.info("Bed {} was claimed concurrently or is not available", bedId);
+            throw new BedUnavailableException(bedId, bedBoardService.findAlternatives(bedId, alternativesLimit));
+        }
+
+        Bed bed = bedRepository.findById(bedId)
+                .orElseThrow(() -> new IllegalArgumentException("Bed not found"));
+        bedBoardService.bedChanged(bed);
+        return bed;
+    }
+}
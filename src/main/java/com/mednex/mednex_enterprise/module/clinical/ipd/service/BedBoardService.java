@@ -0,0 +1,540 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.service;
+
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardDeltaDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardEntryDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardSnapshotDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Bed;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.BedRepository;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * Live bed board: the status of every bed, per tenant, held in memory.
+ *
+ * A tenant's board is seeded from {@link BedRepository} on first read and then
+ * kept current by the services that change bed status, which report each change
+ * through {@link #bedChanged(Bed)}. Changes are applied after the surrounding
+ * transaction commits and pushed to nurse stations subscribed over SSE, so
+ * dashboards no longer poll and per-ward availability is a counter lookup.
+ * Changes that commit while a board is being seeded are replayed onto it once
+ * the seed is read, so a seed never misses a commit it raced with. Each change
+ * carries the bed's version, and one older than what the board holds is
+ * dropped, since commit callbacks of concurrent transactions can run in either
+ * order. Each tenant's deltas are published in order by a thread of its own.
+ * Available beds are also indexed by branch, ward type and bed type for bed
+ * recommendations.
+ *
+ * Beds changed outside these services (SQL seed scripts, other nodes) are not
+ * seen until the board is reloaded with {@link #reload()}.
+ */
+@Service
+public class BedBoardService {
+
+    private static final Logger log = LoggerFactory.getLogger(BedBoardService.class);
+
+    private static final BedStatus[] STATUSES = BedStatus.values();
+
+    private final BedRepository bedRepository;
+
+    @Value("${application.ipd.bed-board.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    private final Map<String, TenantSlot> tenants = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    public BedBoardService(BedRepository bedRepository) {
+        this.bedRepository = bedRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public BedBoardSnapshotDTO getWardBoard(UUID wardId) {
+        TenantBoard board = currentBoard();
+        // Read before the beds: replaying a delta the snapshot already reflects is harmless
+        long sequence = board.sequence;
+        List<BedBoardEntryDTO> beds = board.beds.values().stream()
+                .filter(state -> state.wardId.equals(wardId))
+                .sorted(Comparator.comparing(state -> state.bedNumber))
+                .map(BedState::toDTO)
+                .collect(Collectors.toList());
+
+        return BedBoardSnapshotDTO.builder()
+                .wardId(wardId)
+                .sequence(sequence)
+                .bedsByStatus(board.countsFor(wardId))
+                .beds(beds)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public Map<BedStatus, Integer> getWardAvailability(UUID wardId) {
+        return currentBoard().countsFor(wardId);
+    }
+
+    @Transactional(readOnly = true)
+    public long countAvailable(UUID wardId) {
+        AtomicIntegerArray counts = currentBoard().wardCounts.get(wardId);
+        return counts != null ? counts.get(BedStatus.AVAILABLE.ordinal()) : 0;
+    }
+
+    /**
+     * Free beds to offer when a bed cannot be claimed: others in the same ward
+     * first, then beds in wards of the same type in the branch, then anywhere in
+     * the branch.
+     */
+    @Transactional(readOnly = true)
+    public List<BedBoardEntryDTO> findAlternatives(UUID bedId, int limit) {
+        TenantBoard board = currentBoard();
+        BedState requested = board.beds.get(bedId);
+        if (requested == null) {
+            return List.of();
+        }
+        return board.beds.values().stream()
+                .filter(state -> state.status == BedStatus.AVAILABLE
+                        && !state.bedId.equals(bedId)
+                        && state.branchId.equals(requested.branchId))
+                .sorted(Comparator.<BedState>comparingInt(state -> proximity(requested, state))
+                        .thenComparing(state -> state.bedNumber))
+                .limit(limit)
+                .map(BedState::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Available beds in a branch with the given ward type and, when not null, bed
+     * type. Served from the availability index without scanning other beds. Beds
+     * without a recorded bed type only match when {@code bedType} is null.
+     */
+    @Transactional(readOnly = true)
+    public List<BedBoardEntryDTO> findAvailable(UUID branchId, WardType wardType, BedType bedType) {
+        TenantBoard board = currentBoard();
+        Map<BedType, Set<UUID>> byBedType = board.available
+                .getOrDefault(branchId, Map.of())
+                .getOrDefault(wardType, Map.of());
+        if (bedType != null) {
+            return toEntries(board, byBedType.getOrDefault(bedType, Set.of()));
+        }
+        List<BedBoardEntryDTO> result = new ArrayList<>();
+        byBedType.values().forEach(ids -> result.addAll(toEntries(board, ids)));
+        result.addAll(toEntries(board, board.availableUntyped
+                .getOrDefault(branchId, Map.of())
+                .getOrDefault(wardType, Set.of())));
+        return result;
+    }
+
+    /**
+     * Available beds in a branch whose ward type has not been recorded.
+     */
+    @Transactional(readOnly = true)
+    public List<BedBoardEntryDTO> findAvailableUnclassified(UUID branchId) {
+        TenantBoard board = currentBoard();
+        return toEntries(board, board.availableUnclassified.getOrDefault(branchId, Set.of()));
+    }
+
+    /**
+     * Streams deltas for the current tenant, optionally limited to one branch or
+     * ward. Clients should load a snapshot first and apply deltas with a higher
+     * sequence on top of it.
+     */
+    public SseEmitter subscribe(UUID branchId, UUID wardId) {
+        String tenantId = requireTenant();
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Subscriber subscriber = new Subscriber(tenantId, branchId, wardId, emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Reports a bed whose status was just changed and saved. Must be called inside
+     * the writing transaction; the board and subscribers are updated only once it
+     * commits.
+     */
+    public void bedChanged(Bed bed) {
+        String tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            return;
+        }
+        TenantSlot slot = slot(tenantId);
+
+        // Capture the associations now: the entity is detached after commit
+        TenantBoard board = slot.board;
+        BedState known = board != null ? board.beds.get(bed.getId()) : null;
+        BedState template = known != null ? known : BedState.of(bed);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Status and version as flushed by the commit
+                    apply(tenantId, slot, template.withStatus(bed.getStatus(), bed.getVersion()));
+                }
+            });
+        } else {
+            apply(tenantId, slot, template.withStatus(bed.getStatus(), bed.getVersion()));
+        }
+    }
+
+    /**
+     * Drops the current tenant's board so the next read reseeds it from the
+     * database. Subscribers stay connected.
+     */
+    public void reload() {
+        TenantSlot slot = slot(requireTenant());
+        synchronized (slot) {
+            slot.board = null;
+        }
+    }
+
+    // Comment lines keep idle connections open through proxies and flush out dead clients
+    @Scheduled(fixedDelayString = "${application.ipd.bed-board.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        subscribers.stream()
+                .collect(Collectors.groupingBy(subscriber -> subscriber.tenantId))
+                .forEach((tenantId, tenantSubscribers) -> slot(tenantId).publisher.execute(() -> tenantSubscribers
+                        .forEach(subscriber -> send(subscriber, SseEmitter.event().comment("ping")))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tenants.values().forEach(slot -> slot.publisher.shutdownNow());
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private TenantBoard currentBoard() {
+        String tenantId = requireTenant();
+        TenantSlot slot = slot(tenantId);
+        TenantBoard board = slot.board;
+        if (board != null) {
+            return board;
+        }
+        // One seed per tenant at a time; commits are not held up while it reads
+        synchronized (slot.seedLock) {
+            synchronized (slot) {
+                if (slot.board != null) {
+                    return slot.board;
+                }
+                slot.committedWhileSeeding = new ArrayList<>();
+            }
+            List<BedState> replay;
+            TenantBoard seeded = null;
+            try {
+                seeded = seed(tenantId);
+            } finally {
+                synchronized (slot) {
+                    replay = slot.committedWhileSeeding;
+                    slot.committedWhileSeeding = null;
+                    if (seeded != null) {
+                        slot.board = seeded;
+                    }
+                }
+            }
+            // The seed may or may not include these; they carry the committed status either way
+            replay.forEach(changed -> apply(tenantId, slot, changed));
+            return seeded;
+        }
+    }
+
+    private TenantSlot slot(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, TenantSlot::new);
+    }
+
+    private TenantBoard seed(String tenantId) {
+        TenantBoard board = new TenantBoard();
+        for (Bed bed : bedRepository.findAllWithWard()) {
+            board.put(BedState.of(bed));
+        }
+        log.info("Seeded bed board for tenant {} with {} beds", tenantId, board.beds.size());
+        return board;
+    }
+
+    /**
+     * Applies a committed change to whatever board the tenant holds now, or
+     * keeps it for the seed in progress. With neither, the next seed reads it
+     * from the database. A change older than the board's state of the bed is
+     * dropped.
+     */
+    private void apply(String tenantId, TenantSlot slot, BedState changed) {
+        synchronized (slot) {
+            TenantBoard board = slot.board;
+            if (board == null) {
+                if (slot.committedWhileSeeding != null) {
+                    slot.committedWhileSeeding.add(changed);
+                }
+                return;
+            }
+            BedState current = board.beds.get(changed.bedId);
+            if (current != null && !changed.isNewerThan(current)) {
+                return;
+            }
+            BedState previous = board.put(changed);
+            if (previous != null && previous.status == changed.status) {
+                return;
+            }
+            board.sequence++;
+            BedBoardDeltaDTO delta = BedBoardDeltaDTO.builder()
+                    .sequence(board.sequence)
+                    .bedId(changed.bedId)
+                    .wardId(changed.wardId)
+                    .branchId(changed.branchId)
+                    .bedNumber(changed.bedNumber)
+                    .previousStatus(previous != null ? previous.status : null)
+                    .status(changed.status)
+                    .changedAt(changed.updatedAt)
+                    .build();
+            // Queued under the monitor, so deltas go out in sequence order
+            if (!subscribers.isEmpty()) {
+                slot.publisher.execute(() -> publish(tenantId, delta));
+            }
+        }
+    }
+
+    private void publish(String tenantId, BedBoardDeltaDTO delta) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(tenantId, delta)) {
+                send(subscriber, SseEmitter.event()
+                        .id(String.valueOf(delta.getSequence()))
+                        .name("bed")
+                        .data(delta));
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private List<BedBoardEntryDTO> toEntries(TenantBoard board, Set<UUID> bedIds) {
+        List<BedBoardEntryDTO> result = new ArrayList<>(bedIds.size());
+        for (UUID bedId : bedIds) {
+            BedState state = board.beds.get(bedId);
+            // The set and the bed map are updated separately; skip beds caught mid-change
+            if (state != null && state.status == BedStatus.AVAILABLE) {
+                result.add(state.toDTO());
+            }
+        }
+        return result;
+    }
+
+    private static int proximity(BedState requested, BedState candidate) {
+        if (candidate.wardId.equals(requested.wardId)) {
+            return 0;
+        }
+        return candidate.wardType == requested.wardType ? 1 : 2;
+    }
+
+    private String requireTenant() {
+        String tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            throw new IllegalStateException("No tenant selected for bed board");
+        }
+        return tenantId;
+    }
+
+    /**
+     * A tenant's board, if loaded, the changes committed while it is being
+     * seeded, and the thread publishing its deltas. Guarded by its own monitor;
+     * {@code seedLock} serializes seeds.
+     */
+    private static final class TenantSlot {
+        private final Object seedLock = new Object();
+        private volatile TenantBoard board;
+        // Not null while a seed is reading
+        private List<BedState> committedWhileSeeding;
+        // One thread so each subscriber receives the tenant's deltas in sequence order
+        private final ExecutorService publisher;
+
+        private TenantSlot(String tenantId) {
+            this.publisher = Executors.newSingleThreadExecutor(
+                    Thread.ofVirtual().name("bed-board-publisher-" + tenantId).factory());
+        }
+    }
+
+    private static class TenantBoard {
+        private final Map<UUID, BedState> beds = new ConcurrentHashMap<>();
+        // ward ID -> bed count per status, indexed by BedStatus ordinal
+        private final Map<UUID, AtomicIntegerArray> wardCounts = new ConcurrentHashMap<>();
+        // branch ID -> ward type -> bed type -> IDs of AVAILABLE beds
+        private final Map<UUID, Map<WardType, Map<BedType, Set<UUID>>>> available = new ConcurrentHashMap<>();
+        // branch ID -> ward type -> IDs of AVAILABLE beds whose bed type is not set, e.g. beds from before V14
+        private final Map<UUID, Map<WardType, Set<UUID>>> availableUntyped = new ConcurrentHashMap<>();
+        // branch ID -> IDs of AVAILABLE beds whose ward type is not set
+        private final Map<UUID, Set<UUID>> availableUnclassified = new ConcurrentHashMap<>();
+        // Written under the tenant slot's monitor
+        private volatile long sequence;
+
+        private BedState put(BedState state) {
+            BedState previous = beds.put(state.bedId, state);
+            if (previous != null) {
+                counts(previous.wardId).decrementAndGet(previous.status.ordinal());
+                if (previous.status == BedStatus.AVAILABLE) {
+                    availableSet(previous).remove(previous.bedId);
+                }
+            }
+            counts(state.wardId).incrementAndGet(state.status.ordinal());
+            if (state.status == BedStatus.AVAILABLE) {
+                availableSet(state).add(state.bedId);
+            }
+            return previous;
+        }
+
+        private Set<UUID> availableSet(BedState state) {
+            if (state.wardType == null) {
+                return availableUnclassified.computeIfAbsent(state.branchId, id -> ConcurrentHashMap.newKeySet());
+            }
+            if (state.bedType == null) {
+                return availableUntyped
+                        .computeIfAbsent(state.branchId, id -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(state.wardType, type -> ConcurrentHashMap.newKeySet());
+            }
+            return available
+                    .computeIfAbsent(state.branchId, id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(state.wardType, type -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(state.bedType, type -> ConcurrentHashMap.newKeySet());
+        }
+
+        private AtomicIntegerArray counts(UUID wardId) {
+            return wardCounts.computeIfAbsent(wardId, id -> new AtomicIntegerArray(STATUSES.length));
+        }
+
+        private Map<BedStatus, Integer> countsFor(UUID wardId) {
+            Map<BedStatus, Integer> result = new EnumMap<>(BedStatus.class);
+            AtomicIntegerArray counts = wardCounts.get(wardId);
+            if (counts != null) {
+                for (BedStatus status : STATUSES) {
+                    int count = counts.get(status.ordinal());
+                    if (count > 0) {
+                        result.put(status, count);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // Immutable so readers never see a half-applied change
+    private static final class BedState {
+        private final UUID bedId;
+        private final UUID wardId;
+        private final UUID branchId;
+        private final UUID roomId;
+        private final String bedNumber;
+        private final BedType bedType;
+        private final WardType wardType;
+        private final BedStatus status;
+        // The bed's @Version; null when unknown
+        private final Long version;
+        private final LocalDateTime updatedAt;
+
+        private BedState(UUID bedId, UUID wardId, UUID branchId, UUID roomId, String bedNumber, BedType bedType,
+                WardType wardType, BedStatus status, Long version, LocalDateTime updatedAt) {
+            this.bedId = bedId;
+            this.wardId = wardId;
+            this.branchId = branchId;
+            this.roomId = roomId;
+            this.bedNumber = bedNumber;
+            this.bedType = bedType;
+            this.wardType = wardType;
+            this.status = status;
+            this.version = version;
+            this.updatedAt = updatedAt;
+        }
+
+        private static BedState of(Bed bed) {
+            return new BedState(
+                    bed.getId(),
+                    bed.getWard().getId(),
+                    bed.getWard().getBranch().getId(),
+                    bed.getRoom() != null ? bed.getRoom().getId() : null,
+                    bed.getBedNumber(),
+                    bed.getBedType(),
+                    bed.getWard().getWardType(),
+                    bed.getStatus(),
+                    bed.getVersion(),
+                    LocalDateTime.now());
+        }
+
+        private BedState withStatus(BedStatus newStatus, Long newVersion) {
+            return new BedState(bedId, wardId, branchId, roomId, bedNumber, bedType, wardType, newStatus,
+                    newVersion, LocalDateTime.now());
+        }
+
+        // Unversioned states are taken as they come
+        private boolean isNewerThan(BedState other) {
+            return version == null || other.version == null || version > other.version;
+        }
+
+        private BedBoardEntryDTO toDTO() {
+            return BedBoardEntryDTO.builder()
+                    .bedId(bedId)
+                    .wardId(wardId)
+                    .branchId(branchId)
+                    .roomId(roomId)
+                    .bedNumber(bedNumber)
+                    .bedType(bedType)
+                    .wardType(wardType)
+                    .status(status)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+    }
+
+    private static final class Subscriber {
+        private final String tenantId;
+        private final UUID branchId;
+        private final UUID wardId;
+        private final SseEmitter emitter;
+
+        private Subscriber(String tenantId, UUID branchId, UUID wardId, SseEmitter emitter) {
+            this.tenantId = tenantId;
+            this.branchId = branchId;
+            this.wardId = wardId;
+            this.emitter = emitter;
+        }
+
+        private boolean accepts(String deltaTenantId, BedBoardDeltaDTO delta) {
+            return tenantId.equals(deltaTenantId)
+                    && (branchId == null || branchId.equals(delta.getBranchId()))
+                    && (wardId == null || wardId.equals(delta.getWardId()));
+        }
+    }
+}
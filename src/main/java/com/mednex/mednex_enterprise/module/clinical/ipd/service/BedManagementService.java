@@ -13,8 +13,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,33 +32,68 @@ public class BedManagementService {
     private final RoomRepository roomRepository;
     private final AdmissionRepository admissionRepository;
     private final MedicalAssetRepository medicalAssetRepository;
+    private final BedBoardService bedBoardService;
 
+    /**
+     * Builds the ward matrix in at most four queries: the ward, its rooms
+     * joined with their beds, then active admissions with their patients and
+     * doctors' names, and attached assets for all of those beds at once.
+     * Results are stitched together in memory.
+     */
     @Transactional(readOnly = true)
     public WardMapDTO getWardMap(UUID wardId) {
         log.info("Generating Matrix View for Ward: {}", wardId);
         Ward ward = wardRepository.findById(wardId)
                 .orElseThrow(() -> new IllegalArgumentException("Ward not found"));
 
-        List<RoomWithBedsDTO> rooms = roomRepository.findByWardId(wardId).stream()
-                .map(room -> {
-                    List<BedDTO> beds = bedRepository.findByRoomId(room.getId()).stream()
-                            .map(this::mapToBedDTO)
-                            .collect(Collectors.toList());
+        Map<UUID, Room> rooms = new LinkedHashMap<>();
+        Map<UUID, List<Bed>> bedsByRoom = new HashMap<>();
+        List<UUID> bedIds = new ArrayList<>();
+        for (Object[] row : roomRepository.findRoomsWithBedsByWardId(wardId)) {
+            Room room = (Room) row[0];
+            Bed bed = (Bed) row[1];
+            rooms.putIfAbsent(room.getId(), room);
+            List<Bed> beds = bedsByRoom.computeIfAbsent(room.getId(), id -> new ArrayList<>());
+            if (bed != null) {
+                beds.add(bed);
+                bedIds.add(bed.getId());
+            }
+        }
+
+        Map<UUID, BedPatientDTO> patientsByBed = new HashMap<>();
+        Map<UUID, List<MedicalAssetDTO>> assetsByBed = new HashMap<>();
+        if (!bedIds.isEmpty()) {
+            // Newest first, so the first admission seen for a bed is the current one
+            for (Object[] row : admissionRepository.findWithDoctorNameByCurrentBedIdInAndStatus(bedIds,
+                    AdmissionStatus.ADMITTED)) {
+                Admission admission = (Admission) row[0];
+                patientsByBed.computeIfAbsent(admission.getCurrentBed().getId(),
+                        id -> mapToBedPatientDTO(admission, (String) row[1]));
+            }
+            for (MedicalAsset asset : medicalAssetRepository.findByCurrentLocationTypeAndCurrentLocationIdIn("BED", bedIds)) {
+                assetsByBed.computeIfAbsent(asset.getCurrentLocationId(), id -> new ArrayList<>())
+                        .add(mapToAssetDTO(asset));
+            }
+        }
 
-                    return RoomWithBedsDTO.builder()
-                            .id(room.getId())
-                            .roomNumber(room.getRoomNumber())
-                            .roomType(room.getRoomType())
-                            .status(room.getStatus())
-                            .beds(beds)
-                            .build();
-                }).collect(Collectors.toList());
+        List<RoomWithBedsDTO> roomDTOs = rooms.values().stream()
+                .map(room -> RoomWithBedsDTO.builder()
+                        .id(room.getId())
+                        .roomNumber(room.getRoomNumber())
+                        .roomType(room.getRoomType())
+                        .status(room.getStatus())
+                        .beds(bedsByRoom.get(room.getId()).stream()
+                                .map(bed -> mapToBedDTO(bed, room.getId(), patientsByBed.get(bed.getId()),
+                                        assetsByBed.getOrDefault(bed.getId(), List.of())))
+                                .collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
 
         return WardMapDTO.builder()
                 .wardId(ward.getId())
                 .wardName(ward.getName())
                 .wardType(ward.getWardType())
-                .rooms(rooms)
+                .rooms(roomDTOs)
                 .build();
     }
 
@@ -68,6 +106,7 @@ public class BedManagementService {
         // Logical validation of state machine can be added here
         bed.setStatus(status);
         bedRepository.save(bed);
+        bedBoardService.bedChanged(bed);
     }
 
     @Transactional
@@ -79,35 +118,23 @@ public class BedManagementService {
         bedRepository.save(bed);
     }
 
-    private BedDTO mapToBedDTO(Bed bed) {
-        BedPatientDTO patientDTO = null;
-        
-        // Find if any active admission is linked to this bed
-        Optional<Admission> activeAdmission = admissionRepository.findTopByCurrentBedIdAndStatusOrderByAdmissionDateDesc(
-                bed.getId(), AdmissionStatus.ADMITTED);
-        
-        if (activeAdmission.isPresent()) {
-            Admission admission = activeAdmission.get();
-            patientDTO = BedPatientDTO.builder()
-                    .id(admission.getPatient().getId())
-                    .name(admission.getPatient().getFirstName() + " " + admission.getPatient().getLastName())
-                    .diagnosis(admission.getReasonForAdmission())
-                    .admissionDate(admission.getAdmissionDate().toString())
-                    .doctorName(admission.getAdmittingDoctor().getName())
-                    .build();
-        }
-
-        List<MedicalAssetDTO> assets = medicalAssetRepository.findByCurrentLocationTypeAndCurrentLocationId("BED", bed.getId())
-                .stream()
-                .map(this::mapToAssetDTO)
-                .collect(Collectors.toList());
+    private BedPatientDTO mapToBedPatientDTO(Admission admission, String doctorName) {
+        return BedPatientDTO.builder()
+                .id(admission.getPatient().getId())
+                .name(admission.getPatient().getFirstName() + " " + admission.getPatient().getLastName())
+                .diagnosis(admission.getReasonForAdmission())
+                .admissionDate(admission.getAdmissionDate().toString())
+                .doctorName(doctorName)
+                .build();
+    }
 
+    private BedDTO mapToBedDTO(Bed bed, UUID roomId, BedPatientDTO patientDTO, List<MedicalAssetDTO> assets) {
         return BedDTO.builder()
                 .id(bed.getId())
                 .bedNumber(bed.getBedNumber())
                 .bedType(bed.getBedType())
                 .status(bed.getStatus())
-                .roomId(bed.getRoom() != null ? bed.getRoom().getId() : null)
+                .roomId(roomId)
                 .coordinatesX(bed.getCoordinatesX())
                 .coordinatesY(bed.getCoordinatesY())
                 .patient(patientDTO)
@@ -0,0 +1,174 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd.service;
+
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.UrgencyLevel;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedBoardEntryDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BedRecommendationDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Admission;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.AdmissionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ranks free beds for an admission from the bed board's availability index.
+ *
+ * The requested ward type (or one derived from urgency and department) is tried
+ * first, then fallbacks for that urgency. Within a ward type, beds of the
+ * requested bed type come first. Critical-care wards are only offered for
+ * urgent admissions or when explicitly requested.
+ */
+@Service
+@RequiredArgsConstructor
+public class BedRecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BedRecommendationService.class);
+
+    // Department keyword -> ward type; first match wins
+    private static final Map<String, WardType> DEPARTMENT_WARDS = new LinkedHashMap<>();
+
+    static {
+        DEPARTMENT_WARDS.put("neonat", WardType.NICU);
+        DEPARTMENT_WARDS.put("pediatric", WardType.PEDIATRIC);
+        DEPARTMENT_WARDS.put("paediatric", WardType.PEDIATRIC);
+        DEPARTMENT_WARDS.put("obstetric", WardType.MATERNITY);
+        DEPARTMENT_WARDS.put("gynec", WardType.MATERNITY);
+        DEPARTMENT_WARDS.put("maternity", WardType.MATERNITY);
+        DEPARTMENT_WARDS.put("surg", WardType.SURGICAL);
+        DEPARTMENT_WARDS.put("ortho", WardType.SURGICAL);
+        DEPARTMENT_WARDS.put("infectious", WardType.ISOLATION);
+        DEPARTMENT_WARDS.put("emergency", WardType.EMERGENCY);
+        // Critical care comes from urgency or an explicit request, not the department
+        DEPARTMENT_WARDS.put("cardio", WardType.GENERAL);
+    }
+
+    private final AdmissionRepository admissionRepository;
+    private final BedBoardService bedBoardService;
+
+    @Transactional(readOnly = true)
+    public List<BedRecommendationDTO> recommendForAdmission(UUID admissionId, UUID branchId,
+            WardType wardType, BedType bedType, int limit) {
+        Admission admission = admissionRepository.findById(admissionId)
+                .orElseThrow(() -> new IllegalArgumentException("Admission not found"));
+        return recommend(branchId, admission.getUrgencyLevel(), admission.getDepartment(), wardType, bedType, limit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BedRecommendationDTO> recommend(UUID branchId, UrgencyLevel urgency, String department,
+            WardType wardType, BedType bedType, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<WardType> wardTypes = preferredWardTypes(urgency, department, wardType);
+        log.debug("Recommending beds in branch {} from ward types {}", branchId, wardTypes);
+
+        List<BedRecommendationDTO> result = new ArrayList<>();
+        for (WardType candidateWard : wardTypes) {
+            BedType wantedBed = bedType != null ? bedType : defaultBedType(candidateWard);
+            boolean requestedWard = candidateWard == wardTypes.get(0);
+
+            List<BedBoardEntryDTO> beds = bedBoardService.findAvailable(branchId, candidateWard, null);
+            beds.sort(Comparator.comparing((BedBoardEntryDTO bed) -> bed.getBedType() != wantedBed)
+                    .thenComparing(BedBoardEntryDTO::getBedNumber));
+            for (BedBoardEntryDTO bed : beds) {
+                String reason = (requestedWard ? "Preferred ward type " : "Fallback ward type ") + candidateWard
+                        + (bed.getBedType() == null ? ", bed type not recorded"
+                                : (bed.getBedType() == wantedBed ? ", matching bed type " : ", bed type ")
+                                        + bed.getBedType());
+                result.add(toRecommendation(result.size() + 1, reason, bed));
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+
+        // Beds without a recorded ward type are offered last
+        List<BedBoardEntryDTO> unclassified = bedBoardService.findAvailableUnclassified(branchId);
+        unclassified.sort(Comparator.comparing(BedBoardEntryDTO::getBedNumber));
+        for (BedBoardEntryDTO bed : unclassified) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(toRecommendation(result.size() + 1, "Unclassified bed", bed));
+        }
+        return result;
+    }
+
+    private List<WardType> preferredWardTypes(UrgencyLevel urgency, String department, WardType requested) {
+        Set<WardType> order = new LinkedHashSet<>();
+        if (requested != null) {
+            order.add(requested);
+        }
+
+        UrgencyLevel level = urgency != null ? urgency : UrgencyLevel.ROUTINE;
+        switch (level) {
+            case CRITICAL -> {
+                order.add(WardType.ICU);
+                order.add(WardType.HDU);
+            }
+            case EMERGENCY -> {
+                order.add(WardType.EMERGENCY);
+                order.add(WardType.HDU);
+                order.add(WardType.ICU);
+            }
+            default -> {
+                // ROUTINE and URGENT stay out of critical care unless asked for
+            }
+        }
+
+        WardType departmentWard = departmentWard(department);
+        if (departmentWard != null) {
+            order.add(departmentWard);
+        }
+        if (level == UrgencyLevel.URGENT) {
+            order.add(WardType.HDU);
+        }
+        order.add(WardType.GENERAL);
+        return new ArrayList<>(order);
+    }
+
+    private WardType departmentWard(String department) {
+        if (department == null || department.isBlank()) {
+            return null;
+        }
+        String lower = department.toLowerCase();
+        for (Map.Entry<String, WardType> entry : DEPARTMENT_WARDS.entrySet()) {
+            if (lower.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private BedType defaultBedType(WardType wardType) {
+        return switch (wardType) {
+            case ICU -> BedType.ICU;
+            case HDU -> BedType.HDU;
+            case PICU, NICU, PEDIATRIC -> BedType.PEDIATRIC;
+            case MATERNITY -> BedType.BIRTHING;
+            case ISOLATION -> BedType.ISOLATION;
+            case SURGICAL, EMERGENCY -> BedType.ELECTRIC;
+            default -> BedType.GENERAL;
+        };
+    }
+
+    private BedRecommendationDTO toRecommendation(int rank, String reason, BedBoardEntryDTO bed) {
+        return BedRecommendationDTO.builder()
+                .rank(rank)
+                .reason(reason)
+                .bed(bed)
+                .build();
+    }
+}
@@ -24,6 +24,7 @@ public class HospitalSupportService {
     private final BedRepository bedRepository;
     private final MedicalAssetRepository medicalAssetRepository;
     private final RoomRepository roomRepository;
+    private final BedBoardService bedBoardService;
 
     @Transactional
     public void requestCleaning(UUID bedId, User requestedBy, String priority) {
@@ -41,6 +42,7 @@ public class HospitalSupportService {
         cleaningTaskRepository.save(task);
         bed.setStatus(BedStatus.CLEANING_REQUIRED);
         bedRepository.save(bed);
+        bedBoardService.bedChanged(bed);
     }
 
     @Transactional
@@ -56,6 +58,7 @@ public class HospitalSupportService {
         Bed bed = task.getBed();
         bed.setStatus(BedStatus.AVAILABLE);
         bedRepository.save(bed);
+        bedBoardService.bedChanged(bed);
     }
 
     @Transactional
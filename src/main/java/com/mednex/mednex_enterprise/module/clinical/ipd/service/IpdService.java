@@ -6,6 +6,7 @@ import com.mednex.mednex_enterprise.module.clinical.ipd.entity.*;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.AdmissionRepository;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.BedRepository;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.DailyRoundRepository;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.WardOccupancyRow;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.WardRepository;
 import com.mednex.mednex_enterprise.module.clinical.ipd.entity.EquipmentRequest;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.EquipmentRequestRepository;
@@ -14,6 +15,7 @@ import com.mednex.mednex_enterprise.module.clinical.doctor.entity.Vitals;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.VitalsRequest;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.VitalsResponse;
 import com.mednex.mednex_enterprise.module.clinical.doctor.repository.VitalsRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSnapshotCache;
 import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
 import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientRepository;
 import com.mednex.mednex_enterprise.module.clinical.ipd.repository.MedicationAdministrationRepository;
@@ -27,7 +29,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -46,23 +52,72 @@ public class IpdService {
     private final EquipmentRequestRepository equipmentRequestRepository;
     private final MedicationAdministrationRepository medicationAdministrationRepository;
     private final PrescriptionRepository prescriptionRepository;
+    private final BedBoardService bedBoardService;
+    private final BedAllocationService bedAllocationService;
+    private final EmrSnapshotCache emrSnapshotCache;
 
     @Transactional(readOnly = true)
     public List<WardDTO> getWardsByBranch(UUID branchId) {
         log.info("Fetching wards for branch {}", branchId);
-        return wardRepository.findByBranchId(branchId).stream().map(ward -> {
-            long occupied = bedRepository.countByWardIdAndStatus(ward.getId(), BedStatus.OCCUPIED);
-            long available = bedRepository.countByWardIdAndStatus(ward.getId(), BedStatus.AVAILABLE);
-            return WardDTO.builder()
-                    .id(ward.getId())
-                    .name(ward.getName())
-                    .branchId(ward.getBranch().getId())
-                    .totalCapacity(ward.getTotalCapacity())
-                    .occupiedBeds(occupied)
-                    .availableBeds(available)
-                    .createdAt(ward.getCreatedAt())
-                    .build();
-        }).collect(Collectors.toList());
+        return loadWardOccupancy(branchId);
+    }
+
+    /**
+     * Occupancy for every ward in a branch plus branch totals, from a single
+     * grouped query regardless of the number of wards.
+     */
+    @Transactional(readOnly = true)
+    public BranchOccupancyDTO getBranchOccupancy(UUID branchId) {
+        log.info("Fetching bed occupancy for branch {}", branchId);
+        List<WardDTO> wards = loadWardOccupancy(branchId);
+
+        Map<BedStatus, Long> bedsByStatus = new EnumMap<>(BedStatus.class);
+        long totalCapacity = 0;
+        long totalBeds = 0;
+        for (WardDTO ward : wards) {
+            totalCapacity += ward.getTotalCapacity() != null ? ward.getTotalCapacity() : 0;
+            totalBeds += ward.getTotalBeds();
+            ward.getBedsByStatus().forEach((status, count) -> bedsByStatus.merge(status, count, Long::sum));
+        }
+        long occupied = bedsByStatus.getOrDefault(BedStatus.OCCUPIED, 0L);
+
+        return BranchOccupancyDTO.builder()
+                .branchId(branchId)
+                .totalCapacity(totalCapacity)
+                .totalBeds(totalBeds)
+                .occupiedBeds(occupied)
+                .availableBeds(bedsByStatus.getOrDefault(BedStatus.AVAILABLE, 0L))
+                .occupancyRate(totalBeds == 0 ? 0.0 : (double) occupied / totalBeds)
+                .bedsByStatus(bedsByStatus)
+                .wards(wards)
+                .build();
+    }
+
+    private List<WardDTO> loadWardOccupancy(UUID branchId) {
+        // Rows arrive grouped by ward, ordered by ward name; fold them into one DTO per ward
+        Map<UUID, WardDTO> wards = new LinkedHashMap<>();
+        for (WardOccupancyRow row : wardRepository.findOccupancyByBranchId(branchId)) {
+            WardDTO ward = wards.computeIfAbsent(row.getWardId(), id -> WardDTO.builder()
+                    .id(id)
+                    .name(row.getWardName())
+                    .wardType(row.getWardType())
+                    .branchId(branchId)
+                    .totalCapacity(row.getTotalCapacity())
+                    .bedsByStatus(new EnumMap<>(BedStatus.class))
+                    .createdAt(row.getCreatedAt())
+                    .build());
+            if (row.getStatus() == null) {
+                continue;
+            }
+            ward.getBedsByStatus().put(row.getStatus(), row.getBedCount());
+            ward.setTotalBeds(ward.getTotalBeds() + row.getBedCount());
+            if (row.getStatus() == BedStatus.OCCUPIED) {
+                ward.setOccupiedBeds(row.getBedCount());
+            } else if (row.getStatus() == BedStatus.AVAILABLE) {
+                ward.setAvailableBeds(row.getBedCount());
+            }
+        }
+        return new ArrayList<>(wards.values());
     }
 
     @Transactional(readOnly = true)
@@ -107,6 +162,7 @@ public class IpdService {
                 .build();
 
         Admission savedAdmission = admissionRepository.save(admission);
+        emrSnapshotCache.invalidate(savedAdmission.getPatient().getId());
         return mapToAdmissionDTO(savedAdmission);
     }
 
@@ -146,16 +202,8 @@ public class IpdService {
                     });
         }
 
-        Bed bed = bedRepository.findById(request.getBedId())
-                .orElseThrow(() -> new IllegalArgumentException("Bed not found"));
-
-        if (bed.getStatus() != BedStatus.AVAILABLE) {
-            throw new IllegalStateException("Bed is not available");
-        }
-
-        // Mark bed as occupied
-        bed.setStatus(BedStatus.OCCUPIED);
-        bedRepository.save(bed);
+        // Atomically moves the bed from AVAILABLE to OCCUPIED; fails fast if someone else got it
+        Bed bed = bedAllocationService.claim(request.getBedId());
 
         admission.setCurrentBed(bed);
         admission.setStatus(AdmissionStatus.ADMITTED);
@@ -167,6 +215,7 @@ public class IpdService {
         }
 
         Admission savedAdmission = admissionRepository.save(admission);
+        emrSnapshotCache.invalidate(savedAdmission.getPatient().getId());
         return mapToAdmissionDTO(savedAdmission);
     }
 
@@ -181,28 +230,22 @@ public class IpdService {
             throw new IllegalStateException("Patient is not in a status that allows transfer");
         }
 
+        // Claim the new bed before releasing the old one, so a lost race leaves the patient where they are
+        Bed newBed = bedAllocationService.claim(request.getNewBedId());
         Bed oldBed = admission.getCurrentBed();
-        Bed newBed = bedRepository.findById(request.getNewBedId())
-                .orElseThrow(() -> new IllegalArgumentException("New bed not found"));
-
-        if (newBed.getStatus() != BedStatus.AVAILABLE) {
-            throw new IllegalStateException("New bed is not available");
-        }
 
         // Release old bed
         if (oldBed != null) {
             oldBed.setStatus(BedStatus.AVAILABLE);
             bedRepository.save(oldBed);
+            bedBoardService.bedChanged(oldBed);
         }
 
-        // Occupy new bed
-        newBed.setStatus(BedStatus.OCCUPIED);
-        bedRepository.save(newBed);
-
         admission.setCurrentBed(newBed);
         admission.setStatus(AdmissionStatus.TRANSFERRED); // Or keep as UNDER_TREATMENT, but user asked for TRANSFERRED status
         
         Admission savedAdmission = admissionRepository.save(admission);
+        emrSnapshotCache.invalidate(savedAdmission.getPatient().getId());
         return mapToAdmissionDTO(savedAdmission);
     }
 
@@ -220,6 +263,7 @@ public class IpdService {
         admission.setStatus(AdmissionStatus.DISCHARGE_REQUESTED);
         
         Admission savedAdmission = admissionRepository.save(admission);
+        emrSnapshotCache.invalidate(savedAdmission.getPatient().getId());
         return mapToAdmissionDTO(savedAdmission);
     }
 
@@ -241,10 +285,12 @@ public class IpdService {
         if (bed != null) {
             bed.setStatus(BedStatus.AVAILABLE);
             bedRepository.save(bed);
+            bedBoardService.bedChanged(bed);
             // We usually keep the reference to the last bed for history, but status is now DISCHARGED
         }
 
         Admission savedAdmission = admissionRepository.save(admission);
+        emrSnapshotCache.invalidate(savedAdmission.getPatient().getId());
         return mapToAdmissionDTO(savedAdmission);
     }
 
@@ -296,6 +342,7 @@ public class IpdService {
                 .build();
 
         Vitals savedVitals = vitalsRepository.save(vitals);
+        emrSnapshotCache.invalidate(admission.getPatient().getId());
         return mapToVitalsResponse(savedVitals);
     }
 
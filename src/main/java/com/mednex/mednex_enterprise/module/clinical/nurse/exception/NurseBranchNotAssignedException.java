@@ -0,0 +1,25 @@
+package com.mednex.mednex_enterprise.module.clinical.nurse.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+/**
+ * The nurse has no primary branch, so there is no branch whose appointments
+ * they could see. An account setup problem rather than a server error.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class NurseBranchNotAssignedException extends RuntimeException {
+
+    private final UUID nurseId;
+
+    public NurseBranchNotAssignedException(UUID nurseId) {
+        super("Nurse is not assigned to a branch");
+        this.nurseId = nurseId;
+    }
+
+    public UUID getNurseId() {
+        return nurseId;
+    }
+}
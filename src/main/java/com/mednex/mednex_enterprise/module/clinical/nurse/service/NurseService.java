@@ -6,8 +6,10 @@ import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointme
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
 import com.mednex.mednex_enterprise.module.clinical.doctor.dto.AppointmentResponse;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.DoctorDashboardCache;
 import com.mednex.mednex_enterprise.module.clinical.nurse.dto.NurseDashboardStatsDTO;
 import com.mednex.mednex_enterprise.module.clinical.nurse.dto.TriageRequest;
+import com.mednex.mednex_enterprise.module.clinical.nurse.exception.NurseBranchNotAssignedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,8 +17,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -27,33 +30,27 @@ public class NurseService {
 
     private final AppointmentRepository appointmentRepository;
     private final UserRepository userRepository;
+    private final DoctorDashboardCache doctorDashboardCache;
 
+    @Transactional(readOnly = true)
     public NurseDashboardStatsDTO getDashboardStats(UUID nurseId) {
-        User nurse = userRepository.findById(nurseId)
-                .orElseThrow(() -> new RuntimeException("Nurse not found"));
-
-        UUID branchId = nurse.getPrimaryBranch().getId();
-
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
-
-        // Find all appointments for the branch today
-        List<Appointment> branchAppointmentsToday = appointmentRepository.findByBranchId(branchId)
-                .stream()
-                .filter(a -> a.getAppointmentTime().isAfter(startOfDay) && a.getAppointmentTime().isBefore(endOfDay))
-                .collect(Collectors.toList());
+        UUID branchId = getBranchId(nurseId);
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+
+        // Counted in the database over today's window only
+        Map<AppointmentStatus, Long> countsByStatus = new EnumMap<>(AppointmentStatus.class);
+        for (Object[] row : appointmentRepository.countByBranchIdAndTimeWindowGroupByStatus(
+                branchId, startOfDay, startOfDay.plusDays(1))) {
+            countsByStatus.put((AppointmentStatus) row[0], (Long) row[1]);
+        }
 
-        long todayAppointments = branchAppointmentsToday.size();
+        long todayAppointments = countsByStatus.values().stream().mapToLong(Long::longValue).sum();
 
         // Waiting room = SCHEDULED state for today
-        long waitingRoomCount = branchAppointmentsToday.stream()
-                .filter(a -> a.getStatus() == AppointmentStatus.SCHEDULED)
-                .count();
+        long waitingRoomCount = countsByStatus.getOrDefault(AppointmentStatus.SCHEDULED, 0L);
 
         // Triaged = IN_PROGRESS state for today
-        long triagedToday = branchAppointmentsToday.stream()
-                .filter(a -> a.getStatus() == AppointmentStatus.IN_PROGRESS)
-                .count();
+        long triagedToday = countsByStatus.getOrDefault(AppointmentStatus.IN_PROGRESS, 0L);
 
         return NurseDashboardStatsDTO.builder()
                 .todayAppointments(todayAppointments)
@@ -64,16 +61,13 @@ public class NurseService {
     }
 
     // Fetches all branch appointments for today so the nurse can manage triage
+    @Transactional(readOnly = true)
     public List<AppointmentResponse> getTodayAppointmentsForBranch(UUID nurseId) {
-        User nurse = userRepository.findById(nurseId)
-                .orElseThrow(() -> new RuntimeException("Nurse not found"));
-
-        UUID branchId = nurse.getPrimaryBranch().getId();
-        LocalDateTime startOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
-        LocalDateTime endOfDay = LocalDateTime.of(LocalDate.now(), LocalTime.MAX);
+        UUID branchId = getBranchId(nurseId);
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
 
-        return appointmentRepository.findByBranchId(branchId).stream()
-                .filter(a -> a.getAppointmentTime().isAfter(startOfDay) && a.getAppointmentTime().isBefore(endOfDay))
+        return appointmentRepository.findByBranchIdAndTimeWindow(branchId, startOfDay, startOfDay.plusDays(1))
+                .stream()
                 .map(this::mapToAppointmentResponse)
                 .collect(Collectors.toList());
     }
@@ -106,9 +100,21 @@ public class NurseService {
         }
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        if (savedAppointment.getDoctor() != null) {
+            doctorDashboardCache.invalidate(savedAppointment.getDoctor().getId());
+        }
         return mapToAppointmentResponse(savedAppointment);
     }
 
+    private UUID getBranchId(UUID nurseId) {
+        User nurse = userRepository.findById(nurseId)
+                .orElseThrow(() -> new RuntimeException("Nurse not found"));
+        if (nurse.getPrimaryBranch() == null) {
+            throw new NurseBranchNotAssignedException(nurseId);
+        }
+        return nurse.getPrimaryBranch().getId();
+    }
+
     private AppointmentResponse mapToAppointmentResponse(Appointment appointment) {
         return AppointmentResponse.builder()
                 .id(appointment.getId())
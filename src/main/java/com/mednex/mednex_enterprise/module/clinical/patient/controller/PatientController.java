@@ -1,7 +1,9 @@
 package com.mednex.mednex_enterprise.module.clinical.patient.controller;
 
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.PatientDashboardStatsDTO;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.PatientAppointmentResponseDTO;
 import com.mednex.mednex_enterprise.module.clinical.patient.service.PatientService;
@@ -11,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -42,6 +45,16 @@ public class PatientController {
         return ResponseEntity.ok(patientService.getPatientAppointments(user));
     }
 
+    @GetMapping("/appointments/page")
+    public ResponseEntity<CursorPage<PatientAppointmentResponseDTO>> getPatientAppointmentsPage(
+            Authentication authentication,
+            @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        User user = getAuthenticatedUser(authentication);
+        return ResponseEntity.ok(patientService.getPatientAppointmentsPage(user, status, cursor, limit));
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<PatientProfileDTO> getPatientProfile(Authentication authentication) {
         User user = getAuthenticatedUser(authentication);
@@ -1,11 +1,13 @@
 package com.mednex.mednex_enterprise.module.clinical.patient.dto;
 
+import com.mednex.mednex_enterprise.module.clinical.doctor.dto.EmrSectionInfoDTO;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -17,4 +19,6 @@ public class PatientEMRResponseDTO {
     private List<PrescriptionResponseDTO> prescriptions;
     private List<LabTestRequestResponseDTO> labReports;
     private List<VitalsResponseDTO> vitalsHistory;
+    // Status and next-page cursor of each section, keyed by EmrSection name
+    private Map<String, EmrSectionInfoDTO> sections;
 }
@@ -0,0 +1,28 @@
+package com.mednex.mednex_enterprise.module.clinical.patient.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A patient on a doctor's panel with the per-doctor facts the summary list
+ * needs, computed in the same query.
+ */
+public interface PatientPanelRow {
+    UUID getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getDateOfBirth();
+
+    String getGender();
+
+    String getPhone();
+
+    // Latest appointment with this doctor; null if the patient only has an admission
+    LocalDateTime getLastVisit();
+
+    // Open (ADMITTED) admissions under this doctor
+    long getActiveAdmissions();
+}
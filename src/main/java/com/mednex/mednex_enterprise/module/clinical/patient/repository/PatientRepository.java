@@ -1,6 +1,7 @@
 package com.mednex.mednex_enterprise.module.clinical.patient.repository;
 
 import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,4 +30,26 @@ public interface PatientRepository extends JpaRepository<Patient, UUID> {
            "WHERE p.id IN (SELECT a.patient.id FROM Appointment a WHERE a.doctor.id = :doctorId) " +
            "OR p.id IN (SELECT ad.patient.id FROM Admission ad WHERE ad.admittingDoctor.id = :doctorId AND ad.status = 'ADMITTED')")
     List<Patient> findAssignedPatients(@Param("doctorId") UUID doctorId);
+
+    // Keyset page of a doctor's panel ordered by (lastName, firstName, id); pass empty
+    // strings and the nil UUID as the key for the first page and "%" to match everyone
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.dateOfBirth AS dateOfBirth, " +
+           "p.gender AS gender, p.phone AS phone, " +
+           "(SELECT MAX(a.appointmentTime) FROM Appointment a WHERE a.patient = p AND a.doctor.id = :doctorId) AS lastVisit, " +
+           "(SELECT COUNT(ad) FROM Admission ad WHERE ad.patient = p AND ad.admittingDoctor.id = :doctorId " +
+           "AND ad.status = 'ADMITTED') AS activeAdmissions " +
+           "FROM Patient p " +
+           "WHERE (p.id IN (SELECT a.patient.id FROM Appointment a WHERE a.doctor.id = :doctorId) " +
+           "OR p.id IN (SELECT ad.patient.id FROM Admission ad WHERE ad.admittingDoctor.id = :doctorId AND ad.status = 'ADMITTED')) " +
+           "AND (LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE :pattern ESCAPE '!' " +
+           "OR p.phone LIKE :pattern ESCAPE '!') " +
+           "AND (p.lastName > :afterLastName OR (p.lastName = :afterLastName AND (p.firstName > :afterFirstName " +
+           "OR (p.firstName = :afterFirstName AND p.id > :afterId)))) " +
+           "ORDER BY p.lastName, p.firstName, p.id")
+    List<PatientPanelRow> findPanelPage(@Param("doctorId") UUID doctorId,
+                                        @Param("pattern") String pattern,
+                                        @Param("afterLastName") String afterLastName,
+                                        @Param("afterFirstName") String afterFirstName,
+                                        @Param("afterId") UUID afterId,
+                                        Pageable pageable);
 }
@@ -1,6 +1,8 @@
 package com.mednex.mednex_enterprise.module.clinical.patient.service;
 
 import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
 import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
 import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
@@ -12,14 +14,19 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.PatientAppointmentResponseDTO;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.PatientProfileDTO;
 import com.mednex.mednex_enterprise.module.clinical.patient.dto.PatientProfileUpdateDTO;
-import com.mednex.mednex_enterprise.core.entity.StaffProfile;
 import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSnapshotCache;
 
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +38,7 @@ public class PatientService {
     private final PatientRepository patientRepository;
     private final AppointmentRepository appointmentRepository;
     private final StaffProfileRepository staffProfileRepository;
+    private final EmrSnapshotCache emrSnapshotCache;
 
     @Transactional
     public Patient getOrCreatePatient(User user) {
@@ -127,38 +135,75 @@ public class PatientService {
             List<Appointment> appointments = appointmentRepository
                     .findByPatientIdOrderByAppointmentTimeDesc(patient.getId());
 
-            return appointments.stream().map(app -> {
-                StaffProfile staffProfile = null;
-                try {
-                    if (app.getDoctor() != null) {
-                        staffProfile = staffProfileRepository.findByUserId(app.getDoctor().getId()).orElse(null);
-                    }
-                } catch (Exception e) {
-                    // Ignore staff profile error
-                }
-                
-                return PatientAppointmentResponseDTO.builder()
-                        .id(app.getId())
-                        .doctorId(app.getDoctor() != null ? app.getDoctor().getId() : null)
-                        .doctorName(app.getDoctor() != null ? app.getDoctor().getName() : null)
-                        .specialization(staffProfile != null ? staffProfile.getSpecialization() : "Medical Professional")
-                        .appointmentTime(app.getAppointmentTime())
-                        .preferredDate(app.getPreferredDate())
-                        .department(app.getDepartmentPreference())
-                        .status(app.getStatus())
-                        .reasonForVisit(app.getReasonForVisit())
-                        .notes(app.getNotes())
-                        .prescription(app.getPrescription())
-                        .tokenNumber(app.getTokenNumber())
-                        .isWalkIn(app.getIsWalkIn())
-                        .build();
-            }).collect(Collectors.toList());
+            return mapToAppointmentDTOs(appointments);
         } catch (Exception e) {
             e.printStackTrace();
             return List.of();
         }
     }
 
+    /**
+     * One page of the patient's appointments, latest first with unscheduled
+     * requests on top. An empty {@code statuses} matches every status.
+     */
+    public CursorPage<PatientAppointmentResponseDTO> getPatientAppointmentsPage(User loggedInUser,
+            List<AppointmentStatus> statuses, String cursor, Integer limit) {
+        Optional<Patient> patientOpt = findPatient(loggedInUser);
+        if (patientOpt.isEmpty()) {
+            return CursorPage.<PatientAppointmentResponseDTO>builder().items(List.of()).build();
+        }
+
+        int pageSize = KeysetPaging.pageSize(limit);
+        String[] after = KeysetPaging.decode(cursor, 2);
+        LocalDateTime beforeTime = after == null ? KeysetPaging.MAX_TIME : KeysetPaging.parse(after[0], LocalDateTime::parse);
+        // Unscheduled appointments share MAX_TIME, so the first page must start above every ID as well
+        UUID beforeId = after == null ? KeysetPaging.MAX_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        List<Appointment> rows = appointmentRepository.findPageByPatientId(patientOpt.get().getId(),
+                statuses == null || statuses.isEmpty() ? EnumSet.allOf(AppointmentStatus.class) : statuses,
+                KeysetPaging.MAX_TIME, beforeTime, beforeId, KeysetPaging.fetch(pageSize));
+        CursorPage<Appointment> page = KeysetPaging.page(rows, pageSize, app -> app,
+                app -> KeysetPaging.encode(
+                        app.getAppointmentTime() != null ? app.getAppointmentTime() : KeysetPaging.MAX_TIME, app.getId()));
+        return CursorPage.<PatientAppointmentResponseDTO>builder()
+                .items(mapToAppointmentDTOs(page.getItems()))
+                .nextCursor(page.getNextCursor())
+                .hasMore(page.isHasMore())
+                .build();
+    }
+
+    private List<PatientAppointmentResponseDTO> mapToAppointmentDTOs(List<Appointment> appointments) {
+        // One lookup for all doctors on the page instead of one per appointment
+        Set<UUID> doctorIds = appointments.stream()
+                .filter(app -> app.getDoctor() != null)
+                .map(app -> app.getDoctor().getId())
+                .collect(Collectors.toSet());
+        Map<UUID, String> specializations = new HashMap<>();
+        if (!doctorIds.isEmpty()) {
+            for (Object[] row : staffProfileRepository.findSpecializationsByUserIdIn(doctorIds)) {
+                specializations.put((UUID) row[0], (String) row[1]);
+            }
+        }
+
+        return appointments.stream().map(app -> PatientAppointmentResponseDTO.builder()
+                .id(app.getId())
+                .doctorId(app.getDoctor() != null ? app.getDoctor().getId() : null)
+                .doctorName(app.getDoctor() != null ? app.getDoctor().getName() : null)
+                .specialization(app.getDoctor() != null && specializations.containsKey(app.getDoctor().getId())
+                        ? specializations.get(app.getDoctor().getId())
+                        : "Medical Professional")
+                .appointmentTime(app.getAppointmentTime())
+                .preferredDate(app.getPreferredDate())
+                .department(app.getDepartmentPreference())
+                .status(app.getStatus())
+                .reasonForVisit(app.getReasonForVisit())
+                .notes(app.getNotes())
+                .prescription(app.getPrescription())
+                .tokenNumber(app.getTokenNumber())
+                .isWalkIn(app.getIsWalkIn())
+                .build()).collect(Collectors.toList());
+    }
+
     public PatientProfileDTO getPatientProfile(User loggedInUser) {
         try {
             Optional<Patient> patientOpt = findPatient(loggedInUser);
@@ -222,6 +267,7 @@ public class PatientService {
         if (dto.getMedicalHistory() != null)
             patient.setMedicalHistory(dto.getMedicalHistory());
         patientRepository.save(patient);
+        emrSnapshotCache.invalidate(patient.getId());
     }
 
     private LocalDate parseLocalDate(String dateStr) {
@@ -1,5 +1,6 @@
 package com.mednex.mednex_enterprise.module.pharmacy.controller;
 
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
 import com.mednex.mednex_enterprise.core.entity.User;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.CreatePrescriptionRequest;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.MedicineDTO;
@@ -29,6 +30,16 @@ public class PharmacyClinicalController {
         return ResponseEntity.ok(inventoryService.getAllMedicines());
     }
 
+    @GetMapping("/medicines/page")
+    public ResponseEntity<CursorPage<MedicineDTO>> getMedicinesPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(inventoryService.getMedicinesPage(search, category, includeInactive, cursor, limit));
+    }
+
     @PostMapping("/prescriptions")
     public ResponseEntity<PharmacyPrescriptionDTO> createPrescription(
             @AuthenticationPrincipal User doctor,
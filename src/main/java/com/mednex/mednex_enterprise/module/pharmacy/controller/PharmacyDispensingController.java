@@ -1,14 +1,19 @@
 package com.mednex.mednex_enterprise.module.pharmacy.controller;
 
 import com.mednex.mednex_enterprise.module.pharmacy.dto.DispenseRequest;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.MedicineRevenueDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.PharmacyDashboardStatsDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.PharmacyPrescriptionDTO;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.RevenuePointDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.service.PharmacyDispensingService;
+import com.mednex.mednex_enterprise.module.pharmacy.service.PharmacyRevenueService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,12 +24,30 @@ import java.util.UUID;
 public class PharmacyDispensingController {
 
     private final PharmacyDispensingService dispensingService;
+    private final PharmacyRevenueService revenueService;
 
     @GetMapping("/dashboard")
     public ResponseEntity<PharmacyDashboardStatsDTO> getDashboardStats() {
         return ResponseEntity.ok(dispensingService.getDashboardStats());
     }
 
+    @GetMapping("/revenue/trend")
+    public ResponseEntity<List<RevenuePointDTO>> getRevenueTrend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") PharmacyRevenueService.Granularity granularity,
+            @RequestParam(required = false) UUID medicineId) {
+        return ResponseEntity.ok(revenueService.getTrend(from, to, granularity, medicineId));
+    }
+
+    @GetMapping("/revenue/medicines")
+    public ResponseEntity<List<MedicineRevenueDTO>> getTopMedicinesByRevenue(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(revenueService.getTopMedicines(from, to, limit));
+    }
+
     @GetMapping("/dispense/pending-prescriptions")
     public ResponseEntity<List<PharmacyPrescriptionDTO>> getPendingPrescriptions() {
         return ResponseEntity.ok(dispensingService.getPendingPrescriptions());
@@ -1,16 +1,23 @@
 package com.mednex.mednex_enterprise.module.pharmacy.controller;
 
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.BatchReceiptRequest;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.BulkReceiptResultDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.InventoryBatchDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.MedicineDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.SupplierDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.service.PharmacyInventoryService;
+import com.mednex.mednex_enterprise.module.pharmacy.service.StockReceiptImportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @RestController
@@ -20,6 +27,7 @@ import java.util.UUID;
 public class PharmacyInventoryController {
 
     private final PharmacyInventoryService inventoryService;
+    private final StockReceiptImportService receiptImportService;
 
     // --- MEDICINES ---
 
@@ -28,6 +36,16 @@ public class PharmacyInventoryController {
         return ResponseEntity.ok(inventoryService.getAllMedicines());
     }
 
+    @GetMapping("/medicines/page")
+    public ResponseEntity<CursorPage<MedicineDTO>> getMedicinesPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean includeInactive,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(inventoryService.getMedicinesPage(search, category, includeInactive, cursor, limit));
+    }
+
     @PostMapping("/medicines")
     public ResponseEntity<MedicineDTO> addMedicine(@RequestBody MedicineDTO dto) {
         return ResponseEntity.ok(inventoryService.addMedicine(dto));
@@ -38,6 +56,11 @@ public class PharmacyInventoryController {
         return ResponseEntity.ok(inventoryService.getLowStockMedicines());
     }
 
+    @PostMapping("/medicines/stock/reconcile")
+    public ResponseEntity<List<UUID>> reconcileStock() {
+        return ResponseEntity.ok(inventoryService.reconcileStock());
+    }
+
     // --- SUPPLIERS ---
 
     @GetMapping("/suppliers")
@@ -57,6 +80,20 @@ public class PharmacyInventoryController {
         return ResponseEntity.ok(inventoryService.receiveStock(request));
     }
 
+    /**
+     * Receives a whole delivery in one upload: CSV with a header row
+     * (text/csv) or one JSON object per line (application/x-ndjson).
+     */
+    @PostMapping(value = "/receive-stock/bulk", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<BulkReceiptResultDTO> receiveStockBulk(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        StockReceiptImportService.Format format = contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")
+                ? StockReceiptImportService.Format.CSV
+                : StockReceiptImportService.Format.JSON_LINES;
+        return ResponseEntity.ok(receiptImportService.importReceipts(body, format));
+    }
+
     @GetMapping("/medicines/{medicineId}/batches")
     public ResponseEntity<List<InventoryBatchDTO>> getActiveBatches(@PathVariable UUID medicineId) {
         return ResponseEntity.ok(inventoryService.getActiveBatchesForMedicine(medicineId));
@@ -0,0 +1,22 @@
+package com.mednex.mednex_enterprise.module.pharmacy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAllocationDTO {
+    private UUID inventoryBatchId;
+    private String batchNumber;
+    private LocalDate expiryDate;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+}
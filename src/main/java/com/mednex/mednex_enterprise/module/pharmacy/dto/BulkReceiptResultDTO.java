@@ -0,0 +1,27 @@
+package com.mednex.mednex_enterprise.module.pharmacy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReceiptResultDTO {
+    private Integer linesRead;
+    private Integer batchesReceived;
+    private Integer linesFailed;
+    private List<LineError> errors; // Capped in number; linesFailed has the full count
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineError {
+        private Integer line; // 1-based line number in the upload, header included
+        private String message;
+    }
+}
@@ -16,8 +16,8 @@ public class DispenseRequest {
     @Data
     public static class DispenseItemRequest {
         private UUID dispensedItemId; // Which item in the prescription we are fulfilling
-        private UUID inventoryBatchId; // From which batch
-        private Integer quantityToDispense; // How much we are giving now (for partial dispensing)
+        private UUID inventoryBatchId; // From which batch; earliest expiry first across batches if not set
+        private Integer quantityToDispense; // How much we are giving now (for partial dispensing); rest if not set
         private BigDecimal discountPercent; // Optional discount explicitly given at counter
     }
 }
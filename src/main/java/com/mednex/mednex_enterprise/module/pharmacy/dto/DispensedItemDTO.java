@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @Data
@@ -24,4 +25,6 @@ public class DispensedItemDTO {
     private BigDecimal unitPrice;
     private BigDecimal totalPrice;
     private BigDecimal discountPercent;
+    // Batches drawn by the dispense that returned this item; not set elsewhere
+    private List<BatchAllocationDTO> allocations;
 }
@@ -0,0 +1,20 @@
+package com.mednex.mednex_enterprise.module.pharmacy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineRevenueDTO {
+    private UUID medicineId;
+    private String medicineName;
+    private BigDecimal revenue;
+    private Integer unitsDispensed;
+}
@@ -0,0 +1,22 @@
+package com.mednex.mednex_enterprise.module.pharmacy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenuePointDTO {
+    // Start of the hour or day
+    private LocalDateTime periodStart;
+    private BigDecimal revenue;
+    private Integer unitsDispensed;
+    // Not tracked per medicine; null in a medicine's trend
+    private Integer dispenseCount;
+}
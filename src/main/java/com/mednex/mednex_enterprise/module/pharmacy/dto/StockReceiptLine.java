@@ -0,0 +1,15 @@
+package com.mednex.mednex_enterprise.module.pharmacy.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One line of a bulk stock receipt. The medicine and supplier are given by
+ * ID or, as on most supplier invoices, by name.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class StockReceiptLine extends BatchReceiptRequest {
+    private String medicineName; // Used when medicineId is not set
+    private String supplierName; // Used when supplierId is not set
+}
@@ -0,0 +1,36 @@
+package com.mednex.mednex_enterprise.module.pharmacy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Pharmacy revenue of one day, added to by every dispense so trends never
+ * sum dispensed items. Written only through {@code DailyRevenueRepository}.
+ */
+@Entity
+@Immutable
+@Table(name = "pharmacy_revenue_daily")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyRevenue {
+
+    @Id
+    @Column(name = "revenue_date")
+    private LocalDate revenueDate;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "units_dispensed", nullable = false)
+    private Integer unitsDispensed;
+
+    @Column(name = "dispense_count", nullable = false)
+    private Integer dispenseCount;
+}
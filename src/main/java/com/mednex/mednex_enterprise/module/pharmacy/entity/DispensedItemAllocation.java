@@ -0,0 +1,49 @@
+package com.mednex.mednex_enterprise.module.pharmacy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stock drawn from one batch for a dispensed item. An item dispensed from
+ * several batches, e.g. when the earliest-expiring one runs out, has one
+ * allocation per batch and dispense.
+ */
+@Entity
+@Table(name = "dispensed_item_allocations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DispensedItemAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "dispensed_item_id", nullable = false)
+    private DispensedItem dispensedItem;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_batch_id")
+    private InventoryBatch inventoryBatch;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "unit_price", precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "total_price", precision = 10, scale = 2)
+    private BigDecimal totalPrice; // After the item's discount
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.mednex.mednex_enterprise.module.pharmacy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pharmacy revenue of one clock hour, keyed by its start. Written only
+ * through {@code HourlyRevenueRepository}.
+ */
+@Entity
+@Immutable
+@Table(name = "pharmacy_revenue_hourly")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HourlyRevenue {
+
+    @Id
+    @Column(name = "hour_start")
+    private LocalDateTime hourStart;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "units_dispensed", nullable = false)
+    private Integer unitsDispensed;
+
+    @Column(name = "dispense_count", nullable = false)
+    private Integer dispenseCount;
+}
@@ -0,0 +1,48 @@
+package com.mednex.mednex_enterprise.module.pharmacy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Revenue of one medicine on one day. Written only through
+ * {@code MedicineDailyRevenueRepository}.
+ */
+@Entity
+@Immutable
+@Table(name = "pharmacy_medicine_revenue_daily")
+@IdClass(MedicineDailyRevenue.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicineDailyRevenue {
+
+    @Id
+    @Column(name = "revenue_date")
+    private LocalDate revenueDate;
+
+    @Id
+    @Column(name = "medicine_id")
+    private UUID medicineId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "units_dispensed", nullable = false)
+    private Integer unitsDispensed;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate revenueDate;
+        private UUID medicineId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.mednex.mednex_enterprise.module.pharmacy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stock on hand of a medicine: the units left in its active batches, kept up
+ * to date by every stock movement so catalog reads need not sum the batches.
+ * Written only through {@code MedicineStockRepository}'s atomic adjustments;
+ * a medicine without a row has no stock.
+ */
+@Entity
+@Immutable
+@Table(name = "medicine_stock_levels")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MedicineStock {
+
+    @Id
+    @Column(name = "medicine_id")
+    private UUID medicineId;
+
+    @Column(name = "quantity_on_hand", nullable = false)
+    private Integer quantityOnHand;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.mednex.mednex_enterprise.module.pharmacy.repository;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyRevenueRepository extends JpaRepository<DailyRevenue, LocalDate> {
+
+    List<DailyRevenue> findByRevenueDateBetweenOrderByRevenueDate(LocalDate from, LocalDate to);
+
+    // Adds one dispense to the day, creating its row if needed
+    @Modifying
+    @Query(value = "INSERT INTO pharmacy_revenue_daily (revenue_date, revenue, units_dispensed, dispense_count) " +
+            "VALUES (:revenueDate, :revenue, :units, 1) " +
+            "ON CONFLICT (revenue_date) DO UPDATE SET " +
+            "revenue = pharmacy_revenue_daily.revenue + EXCLUDED.revenue, " +
+            "units_dispensed = pharmacy_revenue_daily.units_dispensed + EXCLUDED.units_dispensed, " +
+            "dispense_count = pharmacy_revenue_daily.dispense_count + 1", nativeQuery = true)
+    int add(@Param("revenueDate") LocalDate revenueDate, @Param("revenue") BigDecimal revenue,
+            @Param("units") int units);
+}
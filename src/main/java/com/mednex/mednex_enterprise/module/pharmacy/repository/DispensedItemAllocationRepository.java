@@ -0,0 +1,11 @@
+package com.mednex.mednex_enterprise.module.pharmacy.repository;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.DispensedItemAllocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface DispensedItemAllocationRepository extends JpaRepository<DispensedItemAllocation, UUID> {
+}
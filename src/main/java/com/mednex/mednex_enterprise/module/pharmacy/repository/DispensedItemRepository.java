@@ -2,10 +2,16 @@ package com.mednex.mednex_enterprise.module.pharmacy.repository;
 
 import com.mednex.mednex_enterprise.module.pharmacy.entity.DispensedItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface DispensedItemRepository extends JpaRepository<DispensedItem, UUID> {
+
+    @Query("SELECT i FROM DispensedItem i JOIN FETCH i.medicine WHERE i.prescription.id = :prescriptionId")
+    List<DispensedItem> findByPrescriptionIdWithMedicine(@Param("prescriptionId") UUID prescriptionId);
 }
@@ -0,0 +1,31 @@
+package com.mednex.mednex_enterprise.module.pharmacy.repository;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.HourlyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface HourlyRevenueRepository extends JpaRepository<HourlyRevenue, LocalDateTime> {
+
+    // Hours starting in [from, to)
+    List<HourlyRevenue> findByHourStartGreaterThanEqualAndHourStartLessThanOrderByHourStart(LocalDateTime from,
+            LocalDateTime to);
+
+    // Adds one dispense to the hour, creating its row if needed
+    @Modifying
+    @Query(value = "INSERT INTO pharmacy_revenue_hourly (hour_start, revenue, units_dispensed, dispense_count) " +
+            "VALUES (:hourStart, :revenue, :units, 1) " +
+            "ON CONFLICT (hour_start) DO UPDATE SET " +
+            "revenue = pharmacy_revenue_hourly.revenue + EXCLUDED.revenue, " +
+            "units_dispensed = pharmacy_revenue_hourly.units_dispensed + EXCLUDED.units_dispensed, " +
+            "dispense_count = pharmacy_revenue_hourly.dispense_count + 1", nativeQuery = true)
+    int add(@Param("hourStart") LocalDateTime hourStart, @Param("revenue") BigDecimal revenue,
+            @Param("units") int units);
+}
@@ -1,12 +1,16 @@
 package com.mednex.mednex_enterprise.module.pharmacy.repository;
 
 import com.mednex.mednex_enterprise.module.pharmacy.entity.InventoryBatch;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,13 +21,32 @@ public interface InventoryBatchRepository extends JpaRepository<InventoryBatch,
     List<InventoryBatch> findByMedicineIdAndStatusOrderByExpiryDateAsc(UUID medicineId,
             InventoryBatch.BatchStatus status);
 
-    @Query("SELECT SUM(ib.quantityAvailable) FROM InventoryBatch ib WHERE ib.medicine.id = :medicineId AND ib.status = 'ACTIVE'")
-    Integer getTotalAvailableQuantityByMedicine(@Param("medicineId") UUID medicineId);
+    // The given batches plus every dispensable batch of the given medicines, locked until the transaction
+    // ends. Ordered by ID so that concurrent dispenses lock the batches they share in the same order.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBatch b WHERE b.id IN :batchIds OR (b.medicine.id IN :medicineIds " +
+            "AND b.status = 'ACTIVE' AND b.quantityAvailable > 0 AND b.expiryDate >= :today) ORDER BY b.id")
+    List<InventoryBatch> lockForDispensing(@Param("batchIds") Collection<UUID> batchIds,
+            @Param("medicineIds") Collection<UUID> medicineIds, @Param("today") LocalDate today);
+
+    // Takes quantities[i] units from batch batchIds[i] (aligned, comma-separated) in one statement, only
+    // from active, unexpired batches holding enough. Returns the IDs of the batches that were updated.
+    @Query(value = "UPDATE inventory_batches b SET " +
+            "quantity_available = b.quantity_available - d.quantity, " +
+            "status = CASE WHEN b.quantity_available = d.quantity THEN 'DEPLETED' ELSE b.status END, " +
+            "updated_at = :now " +
+            "FROM UNNEST(CAST(STRING_TO_ARRAY(:batchIds, ',') AS uuid[]), " +
+            "CAST(STRING_TO_ARRAY(:quantities, ',') AS integer[])) AS d(id, quantity) " +
+            "WHERE b.id = d.id AND b.status = 'ACTIVE' AND b.quantity_available >= d.quantity " +
+            "AND b.expiry_date >= :today " +
+            "RETURNING b.id", nativeQuery = true)
+    List<UUID> deductStock(@Param("batchIds") String batchIds, @Param("quantities") String quantities,
+            @Param("today") LocalDate today, @Param("now") LocalDateTime now);
+
+    // [expiryDate, number of active batches], for the alert engine
+    @Query("SELECT b.expiryDate, COUNT(b) FROM InventoryBatch b WHERE b.status = 'ACTIVE' GROUP BY b.expiryDate")
+    List<Object[]> countActiveByExpiryDate();
 
     @Query("SELECT ib FROM InventoryBatch ib WHERE ib.status = 'ACTIVE' AND ib.expiryDate <= :expiryDateAlert")
     List<InventoryBatch> findExpiringSoonBatches(@Param("expiryDateAlert") LocalDate expiryDateAlert);
-
-    @Query("SELECT b FROM InventoryBatch b JOIN b.medicine m WHERE b.status = 'ACTIVE' GROUP BY m HAVING SUM(b.quantityAvailable) < MAX(m.minimumStockLevel)")
-    List<InventoryBatch> findLowStockMedicines(); // This will return a list of batches, in service layer we map to
-                                                  // medicines
 }
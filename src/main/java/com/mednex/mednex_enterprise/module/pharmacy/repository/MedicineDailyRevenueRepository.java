@@ -0,0 +1,43 @@
+package com.mednex.mednex_enterprise.module.pharmacy.repository;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.MedicineDailyRevenue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MedicineDailyRevenueRepository
+        extends JpaRepository<MedicineDailyRevenue, MedicineDailyRevenue.Key> {
+
+    List<MedicineDailyRevenue> findByMedicineIdAndRevenueDateBetweenOrderByRevenueDate(UUID medicineId,
+            LocalDate from, LocalDate to);
+
+    // [medicineId, name, revenue, units] per medicine over the days, highest revenue first
+    @Query("SELECT r.medicineId, m.name, SUM(r.revenue), SUM(r.unitsDispensed) " +
+            "FROM MedicineDailyRevenue r JOIN Medicine m ON m.id = r.medicineId " +
+            "WHERE r.revenueDate BETWEEN :from AND :to " +
+            "GROUP BY r.medicineId, m.name ORDER BY SUM(r.revenue) DESC, m.name")
+    List<Object[]> findTotalsByMedicine(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            Pageable pageable);
+
+    // Adds revenues[i] and units[i] (aligned, comma-separated, no repeated IDs) to medicineIds[i] on the day
+    @Modifying
+    @Query(value = "INSERT INTO pharmacy_medicine_revenue_daily (revenue_date, medicine_id, revenue, units_dispensed) " +
+            "SELECT :revenueDate, d.id, d.revenue, d.units " +
+            "FROM UNNEST(CAST(STRING_TO_ARRAY(:medicineIds, ',') AS uuid[]), " +
+            "CAST(STRING_TO_ARRAY(:revenues, ',') AS numeric[]), " +
+            "CAST(STRING_TO_ARRAY(:units, ',') AS integer[])) AS d(id, revenue, units) " +
+            "ON CONFLICT (revenue_date, medicine_id) DO UPDATE SET " +
+            "revenue = pharmacy_medicine_revenue_daily.revenue + EXCLUDED.revenue, " +
+            "units_dispensed = pharmacy_medicine_revenue_daily.units_dispensed + EXCLUDED.units_dispensed",
+            nativeQuery = true)
+    int add(@Param("revenueDate") LocalDate revenueDate, @Param("medicineIds") String medicineIds,
+            @Param("revenues") String revenues, @Param("units") String units);
+}
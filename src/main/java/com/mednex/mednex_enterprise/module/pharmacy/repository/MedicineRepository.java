@@ -1,12 +1,44 @@
 package com.mednex.mednex_enterprise.module.pharmacy.repository;
 
 import com.mednex.mednex_enterprise.module.pharmacy.entity.Medicine;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface MedicineRepository extends JpaRepository<Medicine, UUID> {
     boolean existsByName(String name);
+
+    List<Medicine> findByNameIn(Collection<String> names);
+
+    // Keyset page ordered by name; an empty category matches every category
+    @Query("SELECT m FROM Medicine m " +
+           "WHERE (LOWER(m.name) LIKE :pattern ESCAPE '!' OR LOWER(m.genericName) LIKE :pattern ESCAPE '!') " +
+           "AND (:category = '' OR m.category = :category) " +
+           "AND (:includeInactive = true OR m.isActive = true) " +
+           "AND (m.name > :afterName OR (m.name = :afterName AND m.id > :afterId)) " +
+           "ORDER BY m.name, m.id")
+    List<Medicine> findPage(@Param("pattern") String pattern,
+                            @Param("category") String category,
+                            @Param("includeInactive") boolean includeInactive,
+                            @Param("afterName") String afterName,
+                            @Param("afterId") UUID afterId,
+                            Pageable pageable);
+
+    // Active medicines whose ledger stock is below their minimum; no ledger row means no stock
+    @Query("SELECT m FROM Medicine m LEFT JOIN MedicineStock s ON s.medicineId = m.id " +
+           "WHERE m.isActive = true AND COALESCE(s.quantityOnHand, 0) < m.minimumStockLevel " +
+           "ORDER BY m.name")
+    List<Medicine> findLowStock();
+
+    // [id, minimumStockLevel, isActive, stock on hand] of every medicine, for the alert engine
+    @Query("SELECT m.id, m.minimumStockLevel, m.isActive, COALESCE(s.quantityOnHand, 0) " +
+           "FROM Medicine m LEFT JOIN MedicineStock s ON s.medicineId = m.id")
+    List<Object[]> findStockLevels();
 }
@@ -0,0 +1,51 @@
+package com.mednex.mednex_enterprise.module.pharmacy.repository;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.MedicineStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MedicineStockRepository extends JpaRepository<MedicineStock, UUID> {
+
+    List<MedicineStock> findByMedicineIdIn(Collection<UUID> medicineIds);
+
+    // Adds deltas[i] to the stock of medicineIds[i] (aligned, comma-separated, no repeated IDs), creating
+    // missing rows. The rows stay locked until the transaction ends, serialising movements per medicine.
+    @Modifying
+    @Query(value = "INSERT INTO medicine_stock_levels (medicine_id, quantity_on_hand, updated_at) " +
+            "SELECT d.id, d.delta, :now FROM UNNEST(CAST(STRING_TO_ARRAY(:medicineIds, ',') AS uuid[]), " +
+            "CAST(STRING_TO_ARRAY(:deltas, ',') AS integer[])) AS d(id, delta) " +
+            "ON CONFLICT (medicine_id) DO UPDATE SET " +
+            "quantity_on_hand = medicine_stock_levels.quantity_on_hand + EXCLUDED.quantity_on_hand, " +
+            "updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int adjust(@Param("medicineIds") String medicineIds, @Param("deltas") String deltas,
+            @Param("now") LocalDateTime now);
+
+    // Blocks stock movements, and waits for those in flight, until the transaction ends
+    @Modifying
+    @Query(value = "LOCK TABLE medicine_stock_levels IN SHARE ROW EXCLUSIVE MODE", nativeQuery = true)
+    void lockForReconciliation();
+
+    // Resets every medicine whose stock differs from the sum of its active batches to that sum.
+    // Returns the IDs of the medicines that were corrected.
+    @Query(value = "WITH actual AS (" +
+            "SELECT m.id AS medicine_id, " +
+            "COALESCE(SUM(b.quantity_available) FILTER (WHERE b.status = 'ACTIVE'), 0) AS quantity " +
+            "FROM medicines m LEFT JOIN inventory_batches b ON b.medicine_id = m.id GROUP BY m.id) " +
+            "INSERT INTO medicine_stock_levels (medicine_id, quantity_on_hand, updated_at) " +
+            "SELECT a.medicine_id, a.quantity, :now FROM actual a " +
+            "LEFT JOIN medicine_stock_levels s ON s.medicine_id = a.medicine_id " +
+            "WHERE a.quantity <> COALESCE(s.quantity_on_hand, 0) " +
+            "ON CONFLICT (medicine_id) DO UPDATE SET " +
+            "quantity_on_hand = EXCLUDED.quantity_on_hand, updated_at = EXCLUDED.updated_at " +
+            "RETURNING medicine_id", nativeQuery = true)
+    List<UUID> reconcileWithBatches(@Param("now") LocalDateTime now);
+}
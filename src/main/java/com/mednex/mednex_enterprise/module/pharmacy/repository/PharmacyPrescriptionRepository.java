@@ -10,4 +10,6 @@ import java.util.UUID;
 @Repository
 public interface PharmacyPrescriptionRepository extends JpaRepository<PharmacyPrescription, UUID> {
     List<PharmacyPrescription> findByStatus(PharmacyPrescription.PrescriptionStatus status);
+
+    long countByStatus(PharmacyPrescription.PrescriptionStatus status);
 }
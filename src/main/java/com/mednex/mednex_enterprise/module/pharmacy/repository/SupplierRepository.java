@@ -4,9 +4,13 @@ import com.mednex.mednex_enterprise.module.pharmacy.entity.Supplier;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, UUID> {
     boolean existsByName(String name);
+
+    List<Supplier> findByNameIn(Collection<String> names);
 }
@@ -0,0 +1,220 @@
+package com.mednex.mednex_enterprise.module.pharmacy.service;
+
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.InventoryBatch;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.Medicine;
+import com.mednex.mednex_enterprise.module.pharmacy.exception.PharmacyServiceException;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.InventoryBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Draws stock for dispensing from inventory batches, first expiry first out.
+ *
+ * A demand either names its batch or is spread over the medicine's unexpired
+ * batches, earliest expiry first, splitting across batches as they run out.
+ * All candidate batches of a dispense are loaded and locked in one query, and
+ * the stock is then taken from all of them in one conditional update, so two
+ * pharmacists dispensing the same medicine cannot oversell a batch. The draws
+ * are recorded in the {@link StockLedgerService} in the same transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchAllocationService {
+
+    // FEFO; ties go to the batch received first
+    private static final Comparator<InventoryBatch> FIRST_EXPIRY_FIRST = Comparator
+            .comparing(InventoryBatch::getExpiryDate)
+            .thenComparing(InventoryBatch::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(InventoryBatch::getId);
+
+    private final InventoryBatchRepository batchRepository;
+    private final StockLedgerService stockLedgerService;
+    private final PharmacyAlertEngine alertEngine;
+
+    /**
+     * Plans and deducts the stock for all demands, returning the draws in
+     * demand order. Runs in the caller's transaction; the batch rows stay
+     * locked until it ends. Fails without deducting anything if a demand
+     * cannot be met.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<BatchDraw> draw(List<StockDemand> demands) {
+        LocalDate today = LocalDate.now();
+        Set<UUID> batchIds = demands.stream()
+                .filter(demand -> demand.batchId != null)
+                .map(demand -> demand.batchId)
+                .collect(Collectors.toSet());
+        Set<UUID> medicineIds = demands.stream()
+                .filter(demand -> demand.batchId == null)
+                .map(demand -> demand.medicine.getId())
+                .collect(Collectors.toSet());
+
+        // Sentinels keep the IN lists non-empty
+        batchIds.add(KeysetPaging.MIN_ID);
+        medicineIds.add(KeysetPaging.MIN_ID);
+        List<InventoryBatch> batches = batchRepository.lockForDispensing(batchIds, medicineIds, today);
+
+        Map<UUID, InventoryBatch> batchesById = batches.stream()
+                .collect(Collectors.toMap(InventoryBatch::getId, Function.identity()));
+        Map<UUID, Integer> available = batches.stream()
+                .collect(Collectors.toMap(InventoryBatch::getId, InventoryBatch::getQuantityAvailable));
+        Map<UUID, List<InventoryBatch>> fefo = batches.stream()
+                .filter(batch -> isDispensable(batch, today))
+                .sorted(FIRST_EXPIRY_FIRST)
+                .collect(Collectors.groupingBy(batch -> batch.getMedicine().getId()));
+
+        List<BatchDraw> draws = new ArrayList<>();
+        for (StockDemand demand : demands) {
+            if (demand.batchId != null) {
+                drawFromBatch(demand, batchesById.get(demand.batchId), available, today, draws);
+            } else {
+                drawFirstExpiryFirst(demand, fefo.getOrDefault(demand.medicine.getId(), List.of()), available, draws);
+            }
+        }
+
+        deduct(draws, today);
+        return draws;
+    }
+
+    private void drawFromBatch(StockDemand demand, InventoryBatch batch, Map<UUID, Integer> available,
+            LocalDate today, List<BatchDraw> draws) {
+        if (batch == null) {
+            throw new PharmacyServiceException("Batch not found");
+        }
+        if (!batch.getMedicine().getId().equals(demand.medicine.getId())) {
+            throw new PharmacyServiceException("Batch does not match prescribed medicine");
+        }
+        if (batch.getExpiryDate().isBefore(today)) {
+            throw new PharmacyServiceException("Cannot dispense from expired batch: " + batch.getBatchNumber());
+        }
+        int left = available.get(batch.getId());
+        if (batch.getStatus() != InventoryBatch.BatchStatus.ACTIVE || left < demand.quantity) {
+            throw new PharmacyServiceException("Insufficient stock in batch " + batch.getBatchNumber());
+        }
+        available.put(batch.getId(), left - demand.quantity);
+        draws.add(new BatchDraw(demand, batch, demand.quantity));
+    }
+
+    private void drawFirstExpiryFirst(StockDemand demand, List<InventoryBatch> candidates,
+            Map<UUID, Integer> available, List<BatchDraw> draws) {
+        List<BatchDraw> drawn = new ArrayList<>();
+        int needed = demand.quantity;
+        for (InventoryBatch batch : candidates) {
+            int taken = Math.min(needed, available.get(batch.getId()));
+            if (taken > 0) {
+                available.put(batch.getId(), available.get(batch.getId()) - taken);
+                drawn.add(new BatchDraw(demand, batch, taken));
+                needed -= taken;
+            }
+            if (needed == 0) {
+                draws.addAll(drawn);
+                return;
+            }
+        }
+        throw new PharmacyServiceException("Insufficient stock for " + demand.medicine.getName() + ": "
+                + demand.quantity + " requested, " + (demand.quantity - needed) + " available");
+    }
+
+    private void deduct(List<BatchDraw> draws, LocalDate today) {
+        Map<UUID, Integer> totals = new LinkedHashMap<>();
+        Map<UUID, InventoryBatch> drawnBatches = new LinkedHashMap<>();
+        for (BatchDraw draw : draws) {
+            totals.merge(draw.batch.getId(), draw.quantity, Integer::sum);
+            drawnBatches.put(draw.batch.getId(), draw.batch);
+        }
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        List<UUID> updated = batchRepository.deductStock(
+                totals.keySet().stream().map(UUID::toString).collect(Collectors.joining(",")),
+                totals.values().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                today, LocalDateTime.now());
+        if (updated.size() != totals.size()) {
+            // The batches are locked, so only a writer bypassing the lock gets here
+            log.warn("Stock deduction updated {} of {} batches", updated.size(), totals.size());
+            throw new IllegalStateException("Batch stock changed while dispensing");
+        }
+
+        Map<UUID, Integer> drawnByMedicine = new LinkedHashMap<>();
+        for (BatchDraw draw : draws) {
+            drawnByMedicine.merge(draw.demand.medicine.getId(), -draw.quantity, Integer::sum);
+        }
+        stockLedgerService.record(drawnByMedicine);
+
+        // Batches drawn empty are now DEPLETED and no longer count towards expiry alerts
+        Map<LocalDate, Integer> depleted = new LinkedHashMap<>();
+        totals.forEach((batchId, quantity) -> {
+            InventoryBatch batch = drawnBatches.get(batchId);
+            if (batch.getQuantityAvailable().equals(quantity)) {
+                depleted.merge(batch.getExpiryDate(), -1, Integer::sum);
+            }
+        });
+        if (!depleted.isEmpty()) {
+            alertEngine.activeBatchesChanged(depleted);
+        }
+    }
+
+    private static boolean isDispensable(InventoryBatch batch, LocalDate today) {
+        return batch.getStatus() == InventoryBatch.BatchStatus.ACTIVE
+                && batch.getQuantityAvailable() > 0
+                && !batch.getExpiryDate().isBefore(today);
+    }
+
+    /**
+     * Units of a medicine to dispense, from the given batch or, if
+     * {@code batchId} is null, first expiry first.
+     */
+    public static final class StockDemand {
+        private final Medicine medicine;
+        private final UUID batchId;
+        private final int quantity;
+
+        public StockDemand(Medicine medicine, UUID batchId, int quantity) {
+            this.medicine = medicine;
+            this.batchId = batchId;
+            this.quantity = quantity;
+        }
+    }
+
+    public static final class BatchDraw {
+        private final StockDemand demand;
+        private final InventoryBatch batch;
+        private final int quantity;
+
+        private BatchDraw(StockDemand demand, InventoryBatch batch, int quantity) {
+            this.demand = demand;
+            this.batch = batch;
+            this.quantity = quantity;
+        }
+
+        public StockDemand getDemand() {
+            return demand;
+        }
+
+        public InventoryBatch getBatch() {
+            return batch;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.mednex.mednex_enterprise.module.pharmacy.service;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.Medicine;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.InventoryBatchRepository;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.MedicineRepository;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Low-stock and expiry alerts for the pharmacy dashboard, kept in memory per
+ * tenant and updated in place by stock movements instead of being recomputed
+ * from the batches on every load.
+ *
+ * A tenant's levels are loaded on first use: every medicine with its minimum
+ * and ledger stock, and the number of active batches per expiry date. Stock
+ * movements report their changes here and they are applied once the writing
+ * transaction commits. A load that overlaps a movement is used for that read
+ * only and not kept, so a kept snapshot never misses or double-counts one.
+ * The expiry window moves forward at midnight, or on the first read of a new
+ * day, without touching the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class PharmacyAlertEngine {
+
+    @Value("${application.pharmacy.alerts.expiry-days:30}")
+    private int expiryDays;
+
+    private final MedicineRepository medicineRepository;
+    private final InventoryBatchRepository batchRepository;
+
+    private final Map<String, TenantAlerts> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * The current tenant's alert counts; queries the tenant database only when
+     * its levels are not loaded yet.
+     */
+    public AlertCounts getCounts() {
+        TenantAlerts alerts = tenant();
+        LocalDate windowEnd = LocalDate.now().plusDays(expiryDays);
+        AlertCounts counts = alerts.counts(windowEnd);
+        if (counts != null) {
+            return counts;
+        }
+
+        long generation = alerts.beginLoad();
+        Levels loaded = load();
+        return alerts.finishLoad(generation, loaded, windowEnd);
+    }
+
+    /**
+     * Stock changes per medicine, positive for receipts and negative for
+     * draws, as recorded in the stock ledger.
+     */
+    public void stockChanged(Map<UUID, Integer> changes) {
+        Map<UUID, Integer> copy = Map.copyOf(changes);
+        apply(levels -> copy.forEach(levels::changeStock));
+    }
+
+    /**
+     * Changes in the number of active batches per expiry date: one up per
+     * received batch, one down per batch drawn empty.
+     */
+    public void activeBatchesChanged(Map<LocalDate, Integer> changes) {
+        Map<LocalDate, Integer> copy = Map.copyOf(changes);
+        apply(levels -> copy.forEach(levels::changeBatches));
+    }
+
+    public void medicineAdded(Medicine medicine) {
+        UUID medicineId = medicine.getId();
+        int minimum = medicine.getMinimumStockLevel();
+        boolean active = Boolean.TRUE.equals(medicine.getIsActive());
+        apply(levels -> levels.addMedicine(medicineId, minimum, active, 0));
+    }
+
+    /**
+     * Drops the current tenant's levels once the surrounding transaction
+     * completes, for changes that are not reported as movements, such as a
+     * ledger reconciliation. The next read reloads them.
+     */
+    public void invalidate() {
+        TenantAlerts alerts = tenant();
+        alerts.begin();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    alerts.endAndReset();
+                }
+            });
+        } else {
+            alerts.endAndReset();
+        }
+    }
+
+    /**
+     * Moves every loaded tenant's expiry window to the new day. Reads catch up
+     * on their own if this has not run yet; it only keeps them from paying for it.
+     */
+    @Scheduled(cron = "${application.pharmacy.alerts.roll-forward-cron:0 0 0 * * *}")
+    public void rollForward() {
+        LocalDate windowEnd = LocalDate.now().plusDays(expiryDays);
+        tenants.values().forEach(alerts -> alerts.counts(windowEnd));
+    }
+
+    private void apply(Consumer<Levels> change) {
+        TenantAlerts alerts = tenant();
+        alerts.begin();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_UNKNOWN) {
+                        // Cannot tell whether to apply it
+                        alerts.endAndReset();
+                    } else {
+                        alerts.end(status == STATUS_COMMITTED ? change : null);
+                    }
+                }
+            });
+        } else {
+            alerts.end(change);
+        }
+    }
+
+    private Levels load() {
+        Levels levels = new Levels();
+        for (Object[] row : medicineRepository.findStockLevels()) {
+            levels.addMedicine((UUID) row[0], ((Number) row[1]).intValue(), Boolean.TRUE.equals(row[2]),
+                    ((Number) row[3]).intValue());
+        }
+        for (Object[] row : batchRepository.countActiveByExpiryDate()) {
+            levels.changeBatches((LocalDate) row[0], ((Number) row[1]).intValue());
+        }
+        return levels;
+    }
+
+    private TenantAlerts tenant() {
+        return tenants.computeIfAbsent(Objects.requireNonNullElse(TenantContext.getCurrentTenant(), ""),
+                tenantId -> new TenantAlerts());
+    }
+
+    /**
+     * A tenant's levels plus the bookkeeping that decides whether a load may
+     * be kept: it may not if a movement was in flight when it started or began
+     * before it finished.
+     */
+    private static final class TenantAlerts {
+        private int inFlight;
+        private long generation;
+        // null until loaded
+        private Levels levels;
+
+        synchronized AlertCounts counts(LocalDate windowEnd) {
+            return levels == null ? null : levels.counts(windowEnd);
+        }
+
+        synchronized long beginLoad() {
+            return inFlight > 0 ? -1 : generation;
+        }
+
+        synchronized AlertCounts finishLoad(long loadGeneration, Levels loaded, LocalDate windowEnd) {
+            if (levels == null && loadGeneration >= 0 && loadGeneration == generation) {
+                levels = loaded;
+            }
+            return loaded.counts(windowEnd);
+        }
+
+        synchronized void begin() {
+            inFlight++;
+            generation++;
+        }
+
+        synchronized void end(Consumer<Levels> change) {
+            inFlight--;
+            if (levels != null && change != null) {
+                change.accept(levels);
+            }
+        }
+
+        synchronized void endAndReset() {
+            inFlight--;
+            generation++;
+            levels = null;
+        }
+    }
+
+    private static final class Levels {
+        private final Map<UUID, MedicineLevel> medicines = new HashMap<>();
+        private final Set<UUID> lowStock = new HashSet<>();
+        private final NavigableMap<LocalDate, Integer> activeBatchesByExpiry = new TreeMap<>();
+        private LocalDate windowEnd;
+        // Active batches expiring on or before windowEnd, including expired ones
+        private int expiringSoon;
+
+        AlertCounts counts(LocalDate end) {
+            if (!end.equals(windowEnd)) {
+                windowEnd = end;
+                expiringSoon = activeBatchesByExpiry.headMap(end, true).values().stream()
+                        .mapToInt(Integer::intValue)
+                        .sum();
+            }
+            return new AlertCounts(medicines.size(), lowStock.size(), expiringSoon);
+        }
+
+        void addMedicine(UUID medicineId, int minimum, boolean active, int stock) {
+            MedicineLevel level = new MedicineLevel(minimum, active);
+            medicines.put(medicineId, level);
+            changeStock(medicineId, stock);
+        }
+
+        void changeStock(UUID medicineId, int change) {
+            MedicineLevel level = medicines.get(medicineId);
+            if (level == null) {
+                // Only for medicines inserted behind the services' back; they show up on the next reload
+                return;
+            }
+            level.stock += change;
+            if (level.active && level.stock < level.minimum) {
+                lowStock.add(medicineId);
+            } else {
+                lowStock.remove(medicineId);
+            }
+        }
+
+        void changeBatches(LocalDate expiryDate, int change) {
+            activeBatchesByExpiry.merge(expiryDate, change, (a, b) -> a + b == 0 ? null : a + b);
+            if (windowEnd != null && !expiryDate.isAfter(windowEnd)) {
+                expiringSoon += change;
+            }
+        }
+    }
+
+    private static final class MedicineLevel {
+        private final int minimum;
+        private final boolean active;
+        private int stock;
+
+        private MedicineLevel(int minimum, boolean active) {
+            this.minimum = minimum;
+            this.active = active;
+        }
+    }
+
+    public static final class AlertCounts {
+        private final int totalMedicines;
+        private final int lowStock;
+        private final int expiringSoon;
+
+        private AlertCounts(int totalMedicines, int lowStock, int expiringSoon) {
+            this.totalMedicines = totalMedicines;
+            this.lowStock = lowStock;
+            this.expiringSoon = expiringSoon;
+        }
+
+        public int getTotalMedicines() {
+            return totalMedicines;
+        }
+
+        public int getLowStock() {
+            return lowStock;
+        }
+
+        public int getExpiringSoon() {
+            return expiringSoon;
+        }
+    }
+}
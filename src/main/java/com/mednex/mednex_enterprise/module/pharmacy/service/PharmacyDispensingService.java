@@ -1,15 +1,17 @@
 package com.mednex.mednex_enterprise.module.pharmacy.service;
 
+import com.mednex.mednex_enterprise.module.pharmacy.dto.BatchAllocationDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.DispenseRequest;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.DispensedItemDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.PharmacyDashboardStatsDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.PharmacyPrescriptionDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.entity.DispensedItem;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.DispensedItemAllocation;
 import com.mednex.mednex_enterprise.module.pharmacy.entity.InventoryBatch;
 import com.mednex.mednex_enterprise.module.pharmacy.entity.PharmacyPrescription;
 import com.mednex.mednex_enterprise.module.pharmacy.exception.PharmacyServiceException;
 import com.mednex.mednex_enterprise.module.pharmacy.repository.DispensedItemRepository;
-import com.mednex.mednex_enterprise.module.pharmacy.repository.InventoryBatchRepository;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.DispensedItemAllocationRepository;
 import com.mednex.mednex_enterprise.module.pharmacy.repository.MedicineRepository;
 import com.mednex.mednex_enterprise.module.pharmacy.repository.PharmacyPrescriptionRepository;
 import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientRepository;
@@ -25,10 +27,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,9 +45,11 @@ public class PharmacyDispensingService {
 
     private final PharmacyPrescriptionRepository prescriptionRepository;
     private final DispensedItemRepository dispensedItemRepository;
-    private final InventoryBatchRepository batchRepository;
+    private final DispensedItemAllocationRepository dispensedItemAllocationRepository;
+    private final BatchAllocationService batchAllocationService;
     private final MedicineRepository medicineRepository;
-    private final PharmacyInventoryService inventoryService;
+    private final PharmacyAlertEngine alertEngine;
+    private final PharmacyRevenueService revenueService;
     private final PatientRepository patientRepository;
     private final UserRepository userRepository;
 
@@ -87,6 +96,12 @@ public class PharmacyDispensingService {
         return mapToDto(prescriptionRepository.save(prescription));
     }
 
+    /**
+     * Dispenses the requested items in one go. Items without a batch are drawn
+     * first expiry first, possibly from several batches; see
+     * {@link BatchAllocationService}. Items and batches are loaded in bulk, so
+     * the number of queries does not grow with the number of lines.
+     */
     @Transactional
     public PharmacyPrescriptionDTO fulfillPrescription(UUID prescriptionId, DispenseRequest request) {
         PharmacyPrescription prescription = prescriptionRepository.findById(prescriptionId)
@@ -96,65 +111,94 @@ public class PharmacyDispensingService {
                 prescription.getStatus() == PharmacyPrescription.PrescriptionStatus.CANCELLED) {
             throw new PharmacyServiceException("Prescription is already dispensed or cancelled");
         }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new PharmacyServiceException("No items to dispense");
+        }
 
-        BigDecimal totalBillAmount = BigDecimal.ZERO;
-        boolean allFullyDispensed = true;
+        Map<UUID, DispensedItem> items = dispensedItemRepository.findByPrescriptionIdWithMedicine(prescriptionId)
+                .stream()
+                .collect(Collectors.toMap(DispensedItem::getId, Function.identity()));
 
+        List<BatchAllocationService.StockDemand> demands = new ArrayList<>();
         for (DispenseRequest.DispenseItemRequest itemReq : request.getItems()) {
-            DispensedItem dispensedItem = dispensedItemRepository.findById(itemReq.getDispensedItemId())
-                    .orElseThrow(() -> new PharmacyServiceException("Dispensed item record not found"));
-
-            if (!dispensedItem.getPrescription().getId().equals(prescriptionId)) {
-                throw new PharmacyServiceException("Item does not belong to this prescription");
-            }
-
-            InventoryBatch batch = batchRepository.findById(itemReq.getInventoryBatchId())
-                    .orElseThrow(() -> new PharmacyServiceException("Batch not found"));
-
-            // Validate batch and medicine match
-            if (!batch.getMedicine().getId().equals(dispensedItem.getMedicine().getId())) {
-                throw new PharmacyServiceException("Batch does not match prescribed medicine");
+            DispensedItem dispensedItem = items.get(itemReq.getDispensedItemId());
+            if (dispensedItem == null) {
+                throw new PharmacyServiceException(itemReq.getDispensedItemId() != null
+                        && dispensedItemRepository.existsById(itemReq.getDispensedItemId())
+                        ? "Item does not belong to this prescription"
+                        : "Dispensed item record not found");
             }
 
-            // Validate expiry
-            if (batch.getExpiryDate().isBefore(LocalDate.now())) {
-                throw new PharmacyServiceException("Cannot dispense from expired batch: " + batch.getBatchNumber());
+            // Defaults to whatever is still owed on the item
+            int requestedQty = itemReq.getQuantityToDispense() != null
+                    ? itemReq.getQuantityToDispense()
+                    : dispensedItem.getPrescribedQuantity() - dispensedItem.getDispensedQuantity();
+            if (requestedQty <= 0) {
+                throw new PharmacyServiceException("Nothing to dispense for " + dispensedItem.getMedicine().getName());
             }
+            demands.add(new BatchAllocationService.StockDemand(
+                    dispensedItem.getMedicine(), itemReq.getInventoryBatchId(), requestedQty));
+        }
 
-            // Validate quantity
-            int requestedQty = itemReq.getQuantityToDispense();
-            if (batch.getQuantityAvailable() < requestedQty) {
-                throw new PharmacyServiceException("Insufficient stock in batch " + batch.getBatchNumber());
-            }
+        Map<BatchAllocationService.StockDemand, List<BatchAllocationService.BatchDraw>> draws =
+                batchAllocationService.draw(demands).stream()
+                        .collect(Collectors.groupingBy(BatchAllocationService.BatchDraw::getDemand));
 
-            // Deduct stock
-            batch.setQuantityAvailable(batch.getQuantityAvailable() - requestedQty);
-            if (batch.getQuantityAvailable() == 0) {
-                batch.setStatus(InventoryBatch.BatchStatus.DEPLETED);
-            }
-            batchRepository.save(batch);
+        BigDecimal totalBillAmount = BigDecimal.ZERO;
+        List<DispensedItemAllocation> allocations = new ArrayList<>();
+        Map<UUID, List<BatchAllocationDTO>> allocationsByItem = new HashMap<>();
+        Map<UUID, PharmacyRevenueService.MedicineSale> sales = new HashMap<>();
 
-            // Update dispensed item
-            dispensedItem.setInventoryBatch(batch);
-            dispensedItem.setDispensedQuantity(dispensedItem.getDispensedQuantity() + requestedQty);
-            dispensedItem.setUnitPrice(batch.getUnitSellingPrice());
+        for (int i = 0; i < demands.size(); i++) {
+            DispenseRequest.DispenseItemRequest itemReq = request.getItems().get(i);
+            DispensedItem dispensedItem = items.get(itemReq.getDispensedItemId());
 
             BigDecimal discount = itemReq.getDiscountPercent() != null ? itemReq.getDiscountPercent() : BigDecimal.ZERO;
-            dispensedItem.setDiscountPercent(discount);
-
-            // Calculate price: (Selling Price * Qty) * (1 - Discount/100)
-            BigDecimal rawTotal = batch.getUnitSellingPrice().multiply(BigDecimal.valueOf(requestedQty));
             BigDecimal discountMultiplier = BigDecimal.ONE.subtract(discount.divide(BigDecimal.valueOf(100)));
-            BigDecimal finalPrice = rawTotal.multiply(discountMultiplier);
-
-            dispensedItem.setTotalPrice(finalPrice);
-            totalBillAmount = totalBillAmount.add(finalPrice);
 
-            // Check if this item is completely fulfilled
-            if (dispensedItem.getDispensedQuantity() < dispensedItem.getPrescribedQuantity()) {
-                allFullyDispensed = false;
+            int dispensedQty = 0;
+            BigDecimal rawTotal = BigDecimal.ZERO;
+            BigDecimal finalPrice = BigDecimal.ZERO;
+            List<BatchAllocationService.BatchDraw> itemDraws = draws.get(demands.get(i));
+            for (BatchAllocationService.BatchDraw draw : itemDraws) {
+                InventoryBatch batch = draw.getBatch();
+                // Calculate price: (Selling Price * Qty) * (1 - Discount/100)
+                BigDecimal drawRaw = batch.getUnitSellingPrice().multiply(BigDecimal.valueOf(draw.getQuantity()));
+                BigDecimal drawPrice = drawRaw.multiply(discountMultiplier);
+
+                allocations.add(DispensedItemAllocation.builder()
+                        .dispensedItem(dispensedItem)
+                        .inventoryBatch(batch)
+                        .quantity(draw.getQuantity())
+                        .unitPrice(batch.getUnitSellingPrice())
+                        .totalPrice(drawPrice)
+                        .build());
+                allocationsByItem.computeIfAbsent(dispensedItem.getId(), id -> new ArrayList<>())
+                        .add(BatchAllocationDTO.builder()
+                                .inventoryBatchId(batch.getId())
+                                .batchNumber(batch.getBatchNumber())
+                                .expiryDate(batch.getExpiryDate())
+                                .quantity(draw.getQuantity())
+                                .unitPrice(batch.getUnitSellingPrice())
+                                .build());
+
+                dispensedQty += draw.getQuantity();
+                rawTotal = rawTotal.add(drawRaw);
+                finalPrice = finalPrice.add(drawPrice);
             }
+
+            // The item keeps the first, earliest-expiring batch; all of them are in its allocations
+            dispensedItem.setInventoryBatch(itemDraws.get(0).getBatch());
+            dispensedItem.setDispensedQuantity(dispensedItem.getDispensedQuantity() + dispensedQty);
+            dispensedItem.setUnitPrice(rawTotal.divide(BigDecimal.valueOf(dispensedQty), 2, RoundingMode.HALF_UP));
+            dispensedItem.setDiscountPercent(discount);
+            dispensedItem.setTotalPrice(dispensedItem.getTotalPrice() == null ? finalPrice
+                    : dispensedItem.getTotalPrice().add(finalPrice));
+            totalBillAmount = totalBillAmount.add(finalPrice);
+            sales.computeIfAbsent(dispensedItem.getMedicine().getId(), id -> new PharmacyRevenueService.MedicineSale())
+                    .add(finalPrice, dispensedQty);
         }
+        dispensedItemAllocationRepository.saveAll(allocations);
 
         // Update Prescription Status
         prescription.setTotalAmount(prescription.getTotalAmount() == null ? totalBillAmount
@@ -162,38 +206,36 @@ public class PharmacyDispensingService {
         prescription.setPaymentStatus(request.getPaymentStatus() != null ? request.getPaymentStatus()
                 : PharmacyPrescription.PaymentStatus.UNPAID);
 
+        // Items left out of this request count as well
+        boolean allFullyDispensed = items.values().stream()
+                .allMatch(item -> item.getDispensedQuantity() >= item.getPrescribedQuantity());
         if (allFullyDispensed) {
             prescription.setStatus(PharmacyPrescription.PrescriptionStatus.DISPENSED);
         } else {
             prescription.setStatus(PharmacyPrescription.PrescriptionStatus.PARTIALLY_DISPENSED);
         }
 
-        return mapToDto(prescriptionRepository.save(prescription));
+        PharmacyPrescription saved = prescriptionRepository.save(prescription);
+        // Last, as it locks the rollup rows of the current day and hour until commit
+        revenueService.record(LocalDateTime.now(), sales);
+        return mapToDto(saved, allocationsByItem);
     }
 
     @Transactional(readOnly = true)
     public PharmacyDashboardStatsDTO getDashboardStats() {
-        long totalMedicines = medicineRepository.count();
-        int pendingPrescriptions = prescriptionRepository.findByStatus(PharmacyPrescription.PrescriptionStatus.PENDING)
-                .size();
-
-        // Use existing methods from inventory service
-        int lowStockCount = inventoryService.getLowStockMedicines().size();
-        int expiringSoonCount = inventoryService.getExpiringSoonBatches(30).size(); // Alert for 30 days
-
-        // Calculate today's revenue
-        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1).minusNanos(1);
+        // Medicine and alert counts are kept in memory by the alert engine
+        PharmacyAlertEngine.AlertCounts alerts = alertEngine.getCounts();
+        long pendingPrescriptions = prescriptionRepository.countByStatus(
+                PharmacyPrescription.PrescriptionStatus.PENDING);
 
-        // Basic revenue calculation (would need a more specific query in a real app,
-        // summing only today's dispensed items)
-        BigDecimal todayRevenue = BigDecimal.ZERO; // Placeholder for now
+        // Read from the daily revenue rollup
+        BigDecimal todayRevenue = revenueService.getRevenue(LocalDate.now());
 
         return PharmacyDashboardStatsDTO.builder()
-                .totalMedicines(totalMedicines)
-                .pendingPrescriptions(pendingPrescriptions)
-                .lowStockAlerts(lowStockCount)
-                .expiringSoonAlerts(expiringSoonCount)
+                .totalMedicines((long) alerts.getTotalMedicines())
+                .pendingPrescriptions((int) pendingPrescriptions)
+                .lowStockAlerts(alerts.getLowStock())
+                .expiringSoonAlerts(alerts.getExpiringSoon())
                 .todayRevenue(todayRevenue)
                 .build();
     }
@@ -201,6 +243,11 @@ public class PharmacyDispensingService {
     // --- MAPPERS ---
 
     private PharmacyPrescriptionDTO mapToDto(PharmacyPrescription entity) {
+        return mapToDto(entity, Map.of());
+    }
+
+    private PharmacyPrescriptionDTO mapToDto(PharmacyPrescription entity,
+            Map<UUID, List<BatchAllocationDTO>> allocationsByItem) {
         return PharmacyPrescriptionDTO.builder()
                 .id(entity.getId())
                 .patientName(entity.getPatient() != null
@@ -212,11 +259,13 @@ public class PharmacyDispensingService {
                 .status(entity.getStatus())
                 .totalAmount(entity.getTotalAmount())
                 .paymentStatus(entity.getPaymentStatus())
-                .items(entity.getDispensedItems().stream().map(this::mapToDto).collect(Collectors.toList()))
+                .items(entity.getDispensedItems().stream()
+                        .map(item -> mapToDto(item, allocationsByItem.get(item.getId())))
+                        .collect(Collectors.toList()))
                 .build();
     }
 
-    private DispensedItemDTO mapToDto(DispensedItem entity) {
+    private DispensedItemDTO mapToDto(DispensedItem entity, List<BatchAllocationDTO> allocations) {
         return DispensedItemDTO.builder()
                 .id(entity.getId())
                 .medicineId(entity.getMedicine().getId())
@@ -229,6 +278,7 @@ public class PharmacyDispensingService {
                 .unitPrice(entity.getUnitPrice())
                 .totalPrice(entity.getTotalPrice())
                 .discountPercent(entity.getDiscountPercent())
+                .allocations(allocations)
                 .build();
     }
 }
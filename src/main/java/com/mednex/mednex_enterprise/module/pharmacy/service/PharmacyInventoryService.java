@@ -1,8 +1,12 @@
 package com.mednex.mednex_enterprise.module.pharmacy.service;
 
+import com.mednex.mednex_enterprise.core.pagination.CursorPage;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.BatchReceiptRequest;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.BulkReceiptResultDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.InventoryBatchDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.MedicineDTO;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.StockReceiptLine;
 import com.mednex.mednex_enterprise.module.pharmacy.dto.SupplierDTO;
 import com.mednex.mednex_enterprise.module.pharmacy.entity.InventoryBatch;
 import com.mednex.mednex_enterprise.module.pharmacy.entity.Medicine;
@@ -16,9 +20,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,9 +37,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PharmacyInventoryService {
 
+    // Limits of inventory_batches: batch_number VARCHAR(100), prices NUMERIC(10, 2)
+    private static final int MAX_BATCH_NUMBER_LENGTH = 100;
+    private static final BigDecimal MAX_UNIT_PRICE = new BigDecimal("99999999.99");
+
     private final MedicineRepository medicineRepository;
     private final SupplierRepository supplierRepository;
     private final InventoryBatchRepository batchRepository;
+    private final StockLedgerService stockLedgerService;
+    private final PharmacyAlertEngine alertEngine;
 
     // --- MEDICINE CATALOG ---
 
@@ -47,14 +64,37 @@ public class PharmacyInventoryService {
                 .requiresPrescription(dto.getRequiresPrescription() != null ? dto.getRequiresPrescription() : true)
                 .isActive(true)
                 .build();
-        return mapToDto(medicineRepository.save(medicine));
+        Medicine saved = medicineRepository.save(medicine);
+        alertEngine.medicineAdded(saved);
+        return mapToDto(saved, 0);
     }
 
     @Transactional(readOnly = true)
     public List<MedicineDTO> getAllMedicines() {
-        return medicineRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return mapToDtos(medicineRepository.findAll());
+    }
+
+    /**
+     * One page of the medicine catalog ordered by name. {@code search} matches
+     * brand or generic name; inactive medicines are left out unless asked for.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MedicineDTO> getMedicinesPage(String search, String category, boolean includeInactive,
+            String cursor, Integer limit) {
+        int pageSize = KeysetPaging.pageSize(limit);
+        String pattern = KeysetPaging.containsPattern(search);
+
+        String[] after = KeysetPaging.decode(cursor, 2);
+        String afterName = after == null ? "" : after[0];
+        UUID afterId = after == null ? KeysetPaging.MIN_ID : KeysetPaging.parse(after[1], UUID::fromString);
+
+        List<Medicine> rows = medicineRepository.findPage(pattern, category == null ? "" : category.trim(),
+                includeInactive, afterName, afterId, KeysetPaging.fetch(pageSize));
+        Map<UUID, Integer> stock = stockLedgerService.getStock(
+                rows.stream().map(Medicine::getId).collect(Collectors.toList()));
+        return KeysetPaging.page(rows, pageSize,
+                medicine -> mapToDto(medicine, stock.getOrDefault(medicine.getId(), 0)),
+                medicine -> KeysetPaging.encode(medicine.getName(), medicine.getId()));
     }
 
     // --- SUPPLIERS ---
@@ -92,24 +132,82 @@ public class PharmacyInventoryService {
         Supplier supplier = supplierRepository.findById(request.getSupplierId())
                 .orElseThrow(() -> new PharmacyServiceException("Supplier not found"));
 
-        if (request.getExpiryDate().isBefore(LocalDate.now())) {
-            throw new PharmacyServiceException("Cannot receive expired stock");
+        String problem = receiptProblem(request, LocalDate.now());
+        if (problem != null) {
+            throw new PharmacyServiceException(problem);
         }
 
-        InventoryBatch batch = InventoryBatch.builder()
-                .medicine(medicine)
-                .supplier(supplier)
-                .batchNumber(request.getBatchNumber())
-                .quantityTotal(request.getQuantityReceived())
-                .quantityAvailable(request.getQuantityReceived())
-                .manufacturingDate(request.getManufacturingDate())
-                .expiryDate(request.getExpiryDate())
-                .unitCostPrice(request.getUnitCostPrice())
-                .unitSellingPrice(request.getUnitSellingPrice())
-                .status(InventoryBatch.BatchStatus.ACTIVE)
-                .build();
+        InventoryBatch batch = newBatch(request, medicine, supplier);
+        InventoryBatchDTO saved = mapToDto(batchRepository.save(batch));
+        stockLedgerService.record(Map.of(medicine.getId(), batch.getQuantityAvailable()));
+        alertEngine.activeBatchesChanged(Map.of(batch.getExpiryDate(), 1));
+        return saved;
+    }
+
+    /**
+     * Receives the lines of one chunk of a bulk receipt, keyed by line number.
+     * Medicines and suppliers are resolved for the whole chunk at once and the
+     * batches are inserted in JDBC batches. Lines that fail are skipped and
+     * returned as errors; the others are received.
+     */
+    @Transactional
+    public List<BulkReceiptResultDTO.LineError> receiveStockLines(Map<Integer, StockReceiptLine> lines) {
+        Set<UUID> medicineIds = new HashSet<>();
+        Set<String> medicineNames = new HashSet<>();
+        Set<UUID> supplierIds = new HashSet<>();
+        Set<String> supplierNames = new HashSet<>();
+        for (StockReceiptLine line : lines.values()) {
+            if (line.getMedicineId() != null) {
+                medicineIds.add(line.getMedicineId());
+            } else if (line.getMedicineName() != null) {
+                medicineNames.add(line.getMedicineName().trim());
+            }
+            if (line.getSupplierId() != null) {
+                supplierIds.add(line.getSupplierId());
+            } else if (line.getSupplierName() != null) {
+                supplierNames.add(line.getSupplierName().trim());
+            }
+        }
+        Map<UUID, Medicine> medicinesById = medicineRepository.findAllById(medicineIds).stream()
+                .collect(Collectors.toMap(Medicine::getId, Function.identity()));
+        Map<String, Medicine> medicinesByName = (medicineNames.isEmpty() ? List.<Medicine>of()
+                : medicineRepository.findByNameIn(medicineNames)).stream()
+                .collect(Collectors.toMap(Medicine::getName, Function.identity()));
+        Map<UUID, Supplier> suppliersById = supplierRepository.findAllById(supplierIds).stream()
+                .collect(Collectors.toMap(Supplier::getId, Function.identity()));
+        Map<String, Supplier> suppliersByName = (supplierNames.isEmpty() ? List.<Supplier>of()
+                : supplierRepository.findByNameIn(supplierNames)).stream()
+                .collect(Collectors.toMap(Supplier::getName, Function.identity()));
+
+        LocalDate today = LocalDate.now();
+        List<BulkReceiptResultDTO.LineError> errors = new ArrayList<>();
+        List<InventoryBatch> batches = new ArrayList<>();
+        Map<UUID, Integer> stockChanges = new HashMap<>();
+        Map<LocalDate, Integer> expiryChanges = new HashMap<>();
+        lines.forEach((lineNumber, line) -> {
+            Medicine medicine = line.getMedicineId() != null ? medicinesById.get(line.getMedicineId())
+                    : line.getMedicineName() != null ? medicinesByName.get(line.getMedicineName().trim()) : null;
+            Supplier supplier = line.getSupplierId() != null ? suppliersById.get(line.getSupplierId())
+                    : line.getSupplierName() != null ? suppliersByName.get(line.getSupplierName().trim()) : null;
+            String problem = medicine == null ? "Medicine not found"
+                    : supplier == null ? "Supplier not found"
+                    : receiptProblem(line, today);
+            if (problem != null) {
+                errors.add(new BulkReceiptResultDTO.LineError(lineNumber, problem));
+                return;
+            }
+            batches.add(newBatch(line, medicine, supplier));
+            stockChanges.merge(medicine.getId(), line.getQuantityReceived(), Integer::sum);
+            expiryChanges.merge(line.getExpiryDate(), 1, Integer::sum);
+        });
 
-        return mapToDto(batchRepository.save(batch));
+        // Batched by Hibernate, see hibernate.jdbc.batch_size
+        batchRepository.saveAll(batches);
+        stockLedgerService.record(stockChanges);
+        if (!expiryChanges.isEmpty()) {
+            alertEngine.activeBatchesChanged(expiryChanges);
+        }
+        return errors;
     }
 
     @Transactional(readOnly = true)
@@ -132,19 +230,80 @@ public class PharmacyInventoryService {
 
     @Transactional(readOnly = true)
     public List<MedicineDTO> getLowStockMedicines() {
-        // Find distinct medicines from the batch query
-        List<InventoryBatch> lowStockBatches = batchRepository.findLowStockMedicines();
-        return lowStockBatches.stream()
-                .map(InventoryBatch::getMedicine)
-                .distinct()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return mapToDtos(medicineRepository.findLowStock());
+    }
+
+    /**
+     * Recomputes the stock ledger from the inventory batches and returns the
+     * medicines whose stock had to be corrected.
+     */
+    @Transactional
+    public List<UUID> reconcileStock() {
+        return stockLedgerService.reconcile();
+    }
+
+    // Why the receipt cannot be accepted, or null if it can
+    private static String receiptProblem(BatchReceiptRequest request, LocalDate today) {
+        if (request.getBatchNumber() == null || request.getBatchNumber().isBlank()) {
+            return "Batch number is required";
+        }
+        if (request.getBatchNumber().trim().length() > MAX_BATCH_NUMBER_LENGTH) {
+            return "Batch number cannot be longer than " + MAX_BATCH_NUMBER_LENGTH + " characters";
+        }
+        if (request.getQuantityReceived() == null || request.getQuantityReceived() <= 0) {
+            return "Quantity received must be positive";
+        }
+        if (request.getExpiryDate() == null) {
+            return "Expiry date is required";
+        }
+        if (request.getExpiryDate().isBefore(today)) {
+            return "Cannot receive expired stock";
+        }
+        if (request.getManufacturingDate() != null
+                && request.getManufacturingDate().isAfter(request.getExpiryDate())) {
+            return "Manufacturing date is after the expiry date";
+        }
+        if (request.getUnitCostPrice() == null || request.getUnitCostPrice().signum() < 0
+                || request.getUnitSellingPrice() == null || request.getUnitSellingPrice().signum() < 0) {
+            return "Unit cost and selling prices are required and cannot be negative";
+        }
+        if (!fitsPriceColumn(request.getUnitCostPrice()) || !fitsPriceColumn(request.getUnitSellingPrice())) {
+            return "Unit prices can have at most 2 decimal places and cannot exceed " + MAX_UNIT_PRICE.toPlainString();
+        }
+        return null;
+    }
+
+    private static boolean fitsPriceColumn(BigDecimal price) {
+        return price.stripTrailingZeros().scale() <= 2 && price.compareTo(MAX_UNIT_PRICE) <= 0;
+    }
+
+    private static InventoryBatch newBatch(BatchReceiptRequest request, Medicine medicine, Supplier supplier) {
+        return InventoryBatch.builder()
+                .medicine(medicine)
+                .supplier(supplier)
+                .batchNumber(request.getBatchNumber().trim())
+                .quantityTotal(request.getQuantityReceived())
+                .quantityAvailable(request.getQuantityReceived())
+                .manufacturingDate(request.getManufacturingDate())
+                .expiryDate(request.getExpiryDate())
+                .unitCostPrice(request.getUnitCostPrice())
+                .unitSellingPrice(request.getUnitSellingPrice())
+                .status(InventoryBatch.BatchStatus.ACTIVE)
+                .build();
     }
 
     // --- MAPPERS ---
 
-    private MedicineDTO mapToDto(Medicine entity) {
-        Integer currentStock = batchRepository.getTotalAvailableQuantityByMedicine(entity.getId());
+    // Stock for all medicines comes from one ledger query
+    private List<MedicineDTO> mapToDtos(List<Medicine> medicines) {
+        Map<UUID, Integer> stock = stockLedgerService.getStock(
+                medicines.stream().map(Medicine::getId).collect(Collectors.toList()));
+        return medicines.stream()
+                .map(medicine -> mapToDto(medicine, stock.getOrDefault(medicine.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+
+    private MedicineDTO mapToDto(Medicine entity, int currentStock) {
         return MedicineDTO.builder()
                 .id(entity.getId())
                 .name(entity.getName())
@@ -155,7 +314,7 @@ public class PharmacyInventoryService {
                 .minimumStockLevel(entity.getMinimumStockLevel())
                 .requiresPrescription(entity.getRequiresPrescription())
                 .isActive(entity.getIsActive())
-                .currentStock(currentStock != null ? currentStock : 0)
+                .currentStock(currentStock)
                 .build();
     }
 
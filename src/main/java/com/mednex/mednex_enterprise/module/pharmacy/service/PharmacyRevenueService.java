@@ -0,0 +1,199 @@
+package com.mednex.mednex_enterprise.module.pharmacy.service;
+
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.MedicineRevenueDTO;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.RevenuePointDTO;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.DailyRevenue;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.HourlyRevenue;
+import com.mednex.mednex_enterprise.module.pharmacy.entity.MedicineDailyRevenue;
+import com.mednex.mednex_enterprise.module.pharmacy.exception.PharmacyServiceException;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.DailyRevenueRepository;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.HourlyRevenueRepository;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.MedicineDailyRevenueRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pharmacy revenue rolled up by hour, by day and by medicine and day.
+ *
+ * Each dispense adds its revenue to the rollups in the dispensing
+ * transaction, so the dashboard and trend queries read a handful of rows
+ * instead of scanning dispensed items. Revenue is the discounted price of
+ * the dispensed units, rounded per line as on the dispensed item.
+ */
+@Service
+@RequiredArgsConstructor
+public class PharmacyRevenueService {
+
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+
+    @Value("${application.pharmacy.revenue.max-hourly-days:31}")
+    private int maxHourlyDays;
+
+    @Value("${application.pharmacy.revenue.max-daily-days:366}")
+    private int maxDailyDays;
+
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final HourlyRevenueRepository hourlyRevenueRepository;
+    private final MedicineDailyRevenueRepository medicineRevenueRepository;
+
+    /**
+     * Adds one dispense, made up of the given sales per medicine, to the
+     * rollups of its hour and day. Runs in the caller's transaction; call it
+     * last, as the day's and hour's rows stay locked until the transaction ends.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(LocalDateTime dispensedAt, Map<UUID, MedicineSale> sales) {
+        if (sales.isEmpty()) {
+            return;
+        }
+        // Sorted so concurrent dispenses lock the medicine rows they share in the same order
+        Map<UUID, MedicineSale> sorted = new TreeMap<>(sales);
+        BigDecimal revenue = sorted.values().stream()
+                .map(sale -> sale.revenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int units = sorted.values().stream().mapToInt(sale -> sale.units).sum();
+
+        LocalDate day = dispensedAt.toLocalDate();
+        medicineRevenueRepository.add(day,
+                sorted.keySet().stream().map(UUID::toString).collect(Collectors.joining(",")),
+                sorted.values().stream().map(sale -> sale.revenue.toPlainString()).collect(Collectors.joining(",")),
+                sorted.values().stream().map(sale -> String.valueOf(sale.units)).collect(Collectors.joining(",")));
+        hourlyRevenueRepository.add(dispensedAt.truncatedTo(ChronoUnit.HOURS), revenue, units);
+        dailyRevenueRepository.add(day, revenue, units);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getRevenue(LocalDate day) {
+        return dailyRevenueRepository.findById(day).map(DailyRevenue::getRevenue).orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Revenue per hour or day from {@code from} to {@code to}, both days
+     * inclusive, with empty periods as zero. With a medicine, only that
+     * medicine's daily revenue.
+     */
+    @Transactional(readOnly = true)
+    public List<RevenuePointDTO> getTrend(LocalDate from, LocalDate to, Granularity granularity, UUID medicineId) {
+        int maxDays = granularity == Granularity.HOUR ? maxHourlyDays : maxDailyDays;
+        checkRange(from, to, maxDays);
+
+        if (granularity == Granularity.HOUR) {
+            if (medicineId != null) {
+                throw new PharmacyServiceException("Medicine revenue is only kept per day");
+            }
+            Map<LocalDateTime, HourlyRevenue> hours = hourlyRevenueRepository
+                    .findByHourStartGreaterThanEqualAndHourStartLessThanOrderByHourStart(
+                            from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                    .stream()
+                    .collect(Collectors.toMap(HourlyRevenue::getHourStart, Function.identity()));
+            List<RevenuePointDTO> points = new ArrayList<>();
+            for (LocalDateTime hour = from.atStartOfDay(); hour.isBefore(to.plusDays(1).atStartOfDay());
+                    hour = hour.plusHours(1)) {
+                HourlyRevenue row = hours.get(hour);
+                points.add(row == null ? emptyPoint(hour, 0)
+                        : point(hour, row.getRevenue(), row.getUnitsDispensed(), row.getDispenseCount()));
+            }
+            return points;
+        }
+
+        List<RevenuePointDTO> points = new ArrayList<>();
+        if (medicineId != null) {
+            Map<LocalDate, MedicineDailyRevenue> days = medicineRevenueRepository
+                    .findByMedicineIdAndRevenueDateBetweenOrderByRevenueDate(medicineId, from, to)
+                    .stream()
+                    .collect(Collectors.toMap(MedicineDailyRevenue::getRevenueDate, Function.identity()));
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                MedicineDailyRevenue row = days.get(day);
+                points.add(row == null ? emptyPoint(day.atStartOfDay(), null)
+                        : point(day.atStartOfDay(), row.getRevenue(), row.getUnitsDispensed(), null));
+            }
+            return points;
+        }
+
+        Map<LocalDate, DailyRevenue> days = dailyRevenueRepository
+                .findByRevenueDateBetweenOrderByRevenueDate(from, to)
+                .stream()
+                .collect(Collectors.toMap(DailyRevenue::getRevenueDate, Function.identity()));
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailyRevenue row = days.get(day);
+            points.add(row == null ? emptyPoint(day.atStartOfDay(), 0)
+                    : point(day.atStartOfDay(), row.getRevenue(), row.getUnitsDispensed(), row.getDispenseCount()));
+        }
+        return points;
+    }
+
+    /**
+     * The medicines with the highest revenue from {@code from} to {@code to},
+     * both inclusive.
+     */
+    @Transactional(readOnly = true)
+    public List<MedicineRevenueDTO> getTopMedicines(LocalDate from, LocalDate to, Integer limit) {
+        checkRange(from, to, maxDailyDays);
+        return medicineRevenueRepository
+                .findTotalsByMedicine(from, to, PageRequest.of(0, KeysetPaging.pageSize(limit)))
+                .stream()
+                .map(row -> MedicineRevenueDTO.builder()
+                        .medicineId((UUID) row[0])
+                        .medicineName((String) row[1])
+                        .revenue((BigDecimal) row[2])
+                        .unitsDispensed(((Number) row[3]).intValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private void checkRange(LocalDate from, LocalDate to, int maxDays) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new PharmacyServiceException("A date range with 'from' not after 'to' is required");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new PharmacyServiceException("Date range cannot exceed " + maxDays + " days at this granularity");
+        }
+    }
+
+    private static RevenuePointDTO point(LocalDateTime start, BigDecimal revenue, Integer units, Integer dispenses) {
+        return RevenuePointDTO.builder()
+                .periodStart(start)
+                .revenue(revenue)
+                .unitsDispensed(units)
+                .dispenseCount(dispenses)
+                .build();
+    }
+
+    private static RevenuePointDTO emptyPoint(LocalDateTime start, Integer dispenses) {
+        return point(start, BigDecimal.ZERO.setScale(2), 0, dispenses);
+    }
+
+    /**
+     * Revenue and units of one medicine in a dispense.
+     */
+    public static final class MedicineSale {
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private int units;
+
+        public void add(BigDecimal lineRevenue, int lineUnits) {
+            revenue = revenue.add(lineRevenue.setScale(2, RoundingMode.HALF_UP));
+            units += lineUnits;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.mednex.mednex_enterprise.module.pharmacy.service;
+
+import com.mednex.mednex_enterprise.module.pharmacy.entity.MedicineStock;
+import com.mednex.mednex_enterprise.module.pharmacy.repository.MedicineStockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Per-medicine stock on hand, maintained alongside the inventory batches.
+ *
+ * Every movement of batch stock records its per-medicine change here in the
+ * same transaction, so the ledger always equals the sum of the medicines'
+ * active batches and catalog reads take the totals from one indexed query.
+ * {@link #reconcile()} recomputes it from the batches for anything that
+ * changed them behind the services' back, such as manual fixes in the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedgerService {
+
+    private final MedicineStockRepository stockRepository;
+    private final PharmacyAlertEngine alertEngine;
+
+    /**
+     * Applies stock changes per medicine, positive for receipts and negative
+     * for draws, as part of the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Map<UUID, Integer> changes) {
+        // Sorted so concurrent movements lock the ledger rows they share in the same order
+        Map<UUID, Integer> sorted = new TreeMap<>();
+        changes.forEach((medicineId, change) -> {
+            if (change != 0) {
+                sorted.merge(medicineId, change, Integer::sum);
+            }
+        });
+        if (sorted.isEmpty()) {
+            return;
+        }
+        stockRepository.adjust(
+                sorted.keySet().stream().map(UUID::toString).collect(Collectors.joining(",")),
+                sorted.values().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                LocalDateTime.now());
+        alertEngine.stockChanged(sorted);
+    }
+
+    @Transactional(readOnly = true)
+    public int getStock(UUID medicineId) {
+        return stockRepository.findById(medicineId).map(MedicineStock::getQuantityOnHand).orElse(0);
+    }
+
+    /**
+     * Stock of the given medicines; medicines without stock are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Integer> getStock(Collection<UUID> medicineIds) {
+        if (medicineIds.isEmpty()) {
+            return Map.of();
+        }
+        return stockRepository.findByMedicineIdIn(medicineIds).stream()
+                .collect(Collectors.toMap(MedicineStock::getMedicineId, MedicineStock::getQuantityOnHand));
+    }
+
+    /**
+     * Resets the ledger to the sum of each medicine's active batches. Stock
+     * movements wait until it is done. Returns the medicines that had drifted.
+     */
+    @Transactional
+    public List<UUID> reconcile() {
+        stockRepository.lockForReconciliation();
+        List<UUID> corrected = stockRepository.reconcileWithBatches(LocalDateTime.now());
+        if (!corrected.isEmpty()) {
+            log.warn("Stock ledger had drifted from inventory batches for {} medicine(s): {}",
+                    corrected.size(), corrected);
+            alertEngine.invalidate();
+        }
+        return corrected;
+    }
+}
@@ -0,0 +1,260 @@
+package com.mednex.mednex_enterprise.module.pharmacy.service;
+
+import com.mednex.mednex_enterprise.module.pharmacy.dto.BulkReceiptResultDTO;
+import com.mednex.mednex_enterprise.module.pharmacy.dto.StockReceiptLine;
+import com.mednex.mednex_enterprise.module.pharmacy.exception.PharmacyServiceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bulk stock receipts, e.g. a supplier invoice with hundreds of lines, as CSV
+ * with a header row or as JSON lines.
+ *
+ * The upload is read as a stream and received in chunks, each in its own
+ * transaction through {@link PharmacyInventoryService#receiveStockLines}, so
+ * memory and lock time do not grow with the upload. Lines that cannot be
+ * parsed or received are reported by line number and do not stop the rest;
+ * a chunk that fails as a whole is retried line by line to find them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReceiptImportService {
+
+    public enum Format {
+        CSV,
+        JSON_LINES
+    }
+
+    // CSV columns, matched case-insensitively; either the ID or the name of the medicine and supplier
+    private static final List<String> CSV_COLUMNS = List.of("medicineId", "medicineName", "supplierId",
+            "supplierName", "batchNumber", "quantityReceived", "manufacturingDate", "expiryDate", "unitCostPrice",
+            "unitSellingPrice");
+
+    @Value("${application.pharmacy.bulk-receipt.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${application.pharmacy.bulk-receipt.max-lines:50000}")
+    private int maxLines;
+
+    @Value("${application.pharmacy.bulk-receipt.max-errors:1000}")
+    private int maxErrors;
+
+    private final PharmacyInventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+
+    public BulkReceiptResultDTO importReceipts(InputStream body, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Import result = new Import();
+        Map<Integer, StockReceiptLine> chunk = new LinkedHashMap<>();
+        Map<String, Integer> header = null;
+
+        int lineNumber = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && header == null) {
+                header = parseHeader(text);
+                continue;
+            }
+            if (result.linesRead == maxLines) {
+                // Earlier chunks are already received, so report rather than fail the upload
+                result.fail(lineNumber, "Line limit of " + maxLines + " reached; this and later lines were not read");
+                break;
+            }
+            result.linesRead++;
+
+            try {
+                chunk.put(lineNumber, format == Format.CSV ? parseCsvLine(text, header) : parseJsonLine(text));
+            } catch (IllegalArgumentException e) {
+                result.fail(lineNumber, e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                receive(chunk, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            receive(chunk, result);
+        }
+
+        // Parse errors are reported as they are read, receive errors per chunk
+        result.errors.sort(Comparator.comparing(BulkReceiptResultDTO.LineError::getLine));
+        log.info("Bulk stock receipt: {} lines, {} batches received, {} failed",
+                result.linesRead, result.received, result.failed);
+        return BulkReceiptResultDTO.builder()
+                .linesRead(result.linesRead)
+                .batchesReceived(result.received)
+                .linesFailed(result.failed)
+                .errors(result.errors)
+                .build();
+    }
+
+    /**
+     * Receives a chunk in one transaction. If that fails as a whole, e.g. on a
+     * constraint the line checks do not cover, its lines are retried one by
+     * one so only the offending lines are reported.
+     */
+    private void receive(Map<Integer, StockReceiptLine> chunk, Import result) {
+        try {
+            receiveLines(chunk, result);
+        } catch (RuntimeException e) {
+            log.warn("Bulk stock receipt chunk of {} lines failed; retrying line by line", chunk.size(), e);
+            chunk.forEach((lineNumber, line) -> {
+                try {
+                    receiveLines(Map.of(lineNumber, line), result);
+                } catch (RuntimeException lineError) {
+                    result.fail(lineNumber, "Could not be received: "
+                            + NestedExceptionUtils.getMostSpecificCause(lineError).getMessage());
+                }
+            });
+        }
+        chunk.clear();
+    }
+
+    private void receiveLines(Map<Integer, StockReceiptLine> lines, Import result) {
+        List<BulkReceiptResultDTO.LineError> errors = inventoryService.receiveStockLines(lines);
+        result.received += lines.size() - errors.size();
+        errors.forEach(error -> result.fail(error.getLine(), error.getMessage()));
+    }
+
+    private StockReceiptLine parseJsonLine(String text) {
+        try {
+            return objectMapper.readValue(text, StockReceiptLine.class);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> parseHeader(String text) {
+        Map<String, String> known = new HashMap<>();
+        CSV_COLUMNS.forEach(column -> known.put(column.toLowerCase(Locale.ROOT), column));
+
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names;
+        try {
+            names = splitCsv(text);
+        } catch (IllegalArgumentException e) {
+            throw new PharmacyServiceException("Invalid CSV header: " + e.getMessage());
+        }
+        for (int i = 0; i < names.size(); i++) {
+            String column = known.get(names.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column == null) {
+                throw new PharmacyServiceException("Unknown CSV column: " + names.get(i).trim());
+            }
+            header.put(column, i);
+        }
+        if (!header.containsKey("medicineId") && !header.containsKey("medicineName")
+                || !header.containsKey("supplierId") && !header.containsKey("supplierName")) {
+            throw new PharmacyServiceException(
+                    "CSV header needs medicineId or medicineName, and supplierId or supplierName");
+        }
+        return header;
+    }
+
+    private StockReceiptLine parseCsvLine(String text, Map<String, Integer> header) {
+        List<String> values = splitCsv(text);
+        StockReceiptLine line = new StockReceiptLine();
+        line.setMedicineId(field(values, header, "medicineId", UUID::fromString));
+        line.setMedicineName(field(values, header, "medicineName", Function.identity()));
+        line.setSupplierId(field(values, header, "supplierId", UUID::fromString));
+        line.setSupplierName(field(values, header, "supplierName", Function.identity()));
+        line.setBatchNumber(field(values, header, "batchNumber", Function.identity()));
+        line.setQuantityReceived(field(values, header, "quantityReceived", Integer::valueOf));
+        line.setManufacturingDate(field(values, header, "manufacturingDate", LocalDate::parse));
+        line.setExpiryDate(field(values, header, "expiryDate", LocalDate::parse));
+        line.setUnitCostPrice(field(values, header, "unitCostPrice", BigDecimal::new));
+        line.setUnitSellingPrice(field(values, header, "unitSellingPrice", BigDecimal::new));
+        return line;
+    }
+
+    // Null for a missing or empty value
+    private static <T> T field(List<String> values, Map<String, Integer> header, String column,
+            Function<String, T> parser) {
+        Integer index = header.get(column);
+        if (index == null || index >= values.size() || values.get(index).isBlank()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // NumberFormatException is an IllegalArgumentException
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    /**
+     * Splits one CSV record; values may be quoted, with "" for a quote inside
+     * quotes. Records spanning several lines are not supported.
+     */
+    private static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private final class Import {
+        private int linesRead;
+        private int received;
+        private int failed;
+        private final List<BulkReceiptResultDTO.LineError> errors = new ArrayList<>();
+
+        private void fail(int lineNumber, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new BulkReceiptResultDTO.LineError(lineNumber, message));
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.mednex.mednex_enterprise.multitenancy.context;
 
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
@@ -11,11 +13,35 @@ public class TenantInterceptor implements HandlerInterceptor {
 
     private static final String TENANT_HEADER = "X-Tenant-ID";
 
+    private final TenantMetadataCache tenantMetadataCache;
+    private final TenantMigrationTracker migrationTracker;
+
+    public TenantInterceptor(TenantMetadataCache tenantMetadataCache, TenantMigrationTracker migrationTracker) {
+        this.tenantMetadataCache = tenantMetadataCache;
+        this.migrationTracker = migrationTracker;
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
             throws Exception {
         String tenantId = request.getHeader(TENANT_HEADER);
         if (tenantId != null && !tenantId.isEmpty()) {
+            // Unknown IDs are negatively cached, so bad headers never reach the master DB
+            if (!tenantMetadataCache.isActive(tenantId)) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.setContentType("application/json");
+                response.getWriter().write("{\"error\": \"Bad Request\", \"message\": \"Unknown or inactive tenant\"}");
+                return false;
+            }
+            // Still migrating, or its migration failed and waits for a retry
+            if (!migrationTracker.isRoutable(tenantId)) {
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", "60");
+                response.setContentType("application/json");
+                response.getWriter().write(
+                        "{\"error\": \"Service Unavailable\", \"message\": \"Tenant database is not ready\"}");
+                return false;
+            }
             TenantContext.setCurrentTenant(tenantId);
         }
         return true;
@@ -1,74 +1,491 @@
 package com.mednex.mednex_enterprise.multitenancy.datasource;
 
 import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
-import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
+import com.mednex.mednex_enterprise.multitenancy.master.TenantIsolationMode;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Owns one Hikari pool per tenant database.
+ *
+ * Pools are opened on first use rather than at boot, idle pools are closed, and
+ * the sum of all pool sizes is kept within a node-wide connection budget. When
+ * a new pool does not fit, the least recently used idle pool is evicted. Pool
+ * sizes are periodically redistributed according to each tenant's recent
+ * request volume. A new pool starts at the peak size of the tenant's previous
+ * pool, or a configured default, and a pool with requests waiting for a
+ * connection grows right away instead of at the next redistribution.
+ *
+ * A pool that is evicted or replaced is taken out of routing first and closed
+ * only once it has drained: no caller is borrowing from it and none of its
+ * connections are in use. A caller handed a pool that is retired before it
+ * borrows is sent to the tenant's current pool instead. Retired pools still
+ * holding connections count against the budget until they are closed.
+ *
+ * Tenants with {@link TenantIsolationMode#SCHEMA} do not get a pool of their
+ * own: they borrow connections from one pool per shared database, scoped to
+ * their schema by {@link TenantSchemaDataSource}. Shared pools are never
+ * evicted or resized.
+ */
 @Component
+@Slf4j
 public class TenantDataSourceProvider {
 
-    private final TenantRepository tenantRepository;
+    private final TenantMetadataCache tenantMetadataCache;
 
-    // Cache of DataSources
-    private final Map<String, DataSource> dataSources = new ConcurrentHashMap<>();
+    // Open pools by tenant ID
+    private final Map<String, TenantPool> pools = new ConcurrentHashMap<>();
+
+    // Peak size of closed pools by tenant ID, used to size the tenant's next pool
+    private final Map<String, Integer> closedPoolSizes = new ConcurrentHashMap<>();
+
+    // Pools taken out of routing that are closed once drained
+    private final Set<TenantPool> draining = ConcurrentHashMap.newKeySet();
+
+    // Pools for schema-isolated tenants, keyed by shared database URL and user
+    private final Map<String, HikariDataSource> sharedPools = new ConcurrentHashMap<>();
+
+    @Value("${application.tenancy.pool.max-total-connections:200}")
+    private int maxTotalConnections;
+
+    @Value("${application.tenancy.pool.min-size:2}")
+    private int minPoolSize;
+
+    @Value("${application.tenancy.pool.max-size:10}")
+    private int maxPoolSize;
+
+    // Size of a tenant's first pool, before any traffic has been seen
+    @Value("${application.tenancy.pool.initial-size:4}")
+    private int initialPoolSize;
+
+    // Minimum time between two on-demand resizes of the same pool
+    @Value("${application.tenancy.pool.grow-interval-ms:1000}")
+    private long growIntervalMs;
+
+    @Value("${application.tenancy.pool.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Value("${application.tenancy.pool.shared-size:20}")
+    private int sharedPoolSize;
 
     @Autowired
-    public TenantDataSourceProvider(TenantRepository tenantRepository) {
-        this.tenantRepository = tenantRepository;
+    public TenantDataSourceProvider(TenantMetadataCache tenantMetadataCache) {
+        this.tenantMetadataCache = tenantMetadataCache;
     }
 
-    @PostConstruct
-    public void loadAllTenants() {
-        List<Tenant> tenants = tenantRepository.findAll();
-        for (Tenant tenant : tenants) {
-            if (tenant.isActive()) {
-                dataSources.put(tenant.getTenantId(), createDataSource(tenant));
+    public DataSource getDataSource(String tenantId) {
+        TenantPool pool = pools.get(tenantId);
+        if (pool == null) {
+            // Lazy load on first use
+            Optional<Tenant> tenant = tenantMetadataCache.findActive(tenantId);
+            if (tenant.isEmpty()) {
+                return null;
             }
+            pool = openPool(tenant.get(), false);
         }
+        pool.touch();
+        if (pool.isSaturated(maxPoolSize, growIntervalMs)) {
+            grow(tenantId, pool);
+        }
+        return pool.dataSource;
     }
 
-    public DataSource getDataSource(String tenantId) {
-        if (!dataSources.containsKey(tenantId)) {
-            // Lazy load if not in cache
-            return tenantRepository.findByTenantIdAndActiveIsTrue(tenantId)
-                    .map(tenant -> {
-                        DataSource ds = createDataSource(tenant);
-                        dataSources.put(tenantId, ds);
-                        return ds;
-                    })
-                    .orElse(null);
+    /**
+     * Opens a pool for the tenant, closing any pool previously registered under
+     * the same ID so replaced pools do not leak connections.
+     */
+    public void addDataSource(Tenant tenant) {
+        openPool(tenant, true);
+    }
+
+    public synchronized void removeDataSource(String tenantId) {
+        TenantPool removed = pools.get(tenantId);
+        if (removed != null) {
+            retire(removed);
         }
-        return dataSources.get(tenantId);
+        closedPoolSizes.remove(tenantId);
     }
 
-    public void addDataSource(Tenant tenant) {
-        dataSources.put(tenant.getTenantId(), createDataSource(tenant));
+    public int getOpenPoolCount() {
+        return pools.size();
+    }
+
+    public int getAllocatedConnections() {
+        int dedicated = pools.values().stream()
+                .filter(pool -> !pool.shared)
+                .mapToInt(pool -> pool.physical.getMaximumPoolSize())
+                .sum();
+        return dedicated + getReservedConnections();
+    }
+
+    /**
+     * Connections outside the dedicated pools in routing: the shared pools and
+     * whatever retired pools still hold.
+     */
+    private int getReservedConnections() {
+        int shared = sharedPools.values().stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+        int retired = draining.stream().mapToInt(TenantPool::totalConnections).sum();
+        return shared + retired;
+    }
+
+    /**
+     * Closes drained retired pools and pools that have been idle past the
+     * eviction threshold, and resizes the remaining pools in proportion to their
+     * traffic since the last run.
+     */
+    @Scheduled(fixedDelayString = "${application.tenancy.pool.rebalance-interval-ms:60000}")
+    public synchronized void rebalance() {
+        closeDrained();
+        long now = System.currentTimeMillis();
+        pools.forEach((tenantId, pool) -> {
+            if (now - pool.lastAccess > idleEvictionMs && (pool.shared || pool.activeConnections() == 0)) {
+                if (!pool.shared) {
+                    log.info("Closing idle connection pool for tenant: {}", tenantId);
+                }
+                retire(pool);
+            }
+        });
+
+        // Exponentially decayed request counts, so one burst does not pin a large pool
+        pools.values().forEach(TenantPool::decay);
+        Map<TenantPool, Integer> targets = new HashMap<>();
+        pools.values().stream().filter(pool -> !pool.shared).forEach(pool -> targets.put(pool, 0));
+        double totalTraffic = targets.keySet().stream().mapToDouble(pool -> pool.recentTraffic).sum();
+        if (totalTraffic <= 0) {
+            return;
+        }
+
+        // Rounded down, so the shares alone never add up to more than the budget
+        int budget = Math.max(0, maxTotalConnections - getReservedConnections());
+        int total = 0;
+        for (Map.Entry<TenantPool, Integer> entry : targets.entrySet()) {
+            int target = (int) Math.floor(budget * (entry.getKey().recentTraffic / totalTraffic));
+            target = Math.max(minPoolSize, Math.min(maxPoolSize, target));
+            entry.setValue(target);
+            total += target;
+        }
+        // Raising small pools to the minimum can still overshoot; take the excess from the largest
+        while (total > budget) {
+            Optional<Map.Entry<TenantPool, Integer>> largest = targets.entrySet().stream()
+                    .filter(entry -> entry.getValue() > minPoolSize)
+                    .max(Map.Entry.comparingByValue());
+            if (largest.isEmpty()) {
+                log.warn("Tenant connection budget of {} is below the minimum size of {} open pools",
+                        maxTotalConnections, targets.size());
+                break;
+            }
+            largest.get().setValue(largest.get().getValue() - 1);
+            total--;
+        }
+
+        // Shrink before growing, so the pools stay within the budget in between
+        targets.entrySet().stream()
+                .filter(entry -> entry.getValue() != entry.getKey().currentSize())
+                .sorted(Comparator.comparingInt(entry -> entry.getValue() - entry.getKey().currentSize()))
+                .forEach(entry -> entry.getKey().resize(entry.getValue()));
+    }
+
+    /**
+     * Doubles a pool with requests waiting for a connection, up to the maximum
+     * pool size and within the free connection budget.
+     */
+    private synchronized void grow(String tenantId, TenantPool pool) {
+        if (pools.get(tenantId) != pool || !pool.isSaturated(maxPoolSize, growIntervalMs)) {
+            return;
+        }
+        int current = pool.physical.getMaximumPoolSize();
+        int target = Math.min(maxPoolSize, current * 2);
+        if (!reserve(target - current)) {
+            target = current + Math.max(0, maxTotalConnections - getAllocatedConnections());
+        }
+        pool.grown();
+        if (target > current) {
+            log.info("Growing saturated connection pool for tenant {} from {} to {}", tenantId, current, target);
+            pool.resize(target);
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        pools.forEach((tenantId, pool) -> {
+            if (!pool.shared) {
+                close(pool);
+            }
+        });
+        pools.clear();
+        draining.forEach(this::close);
+        draining.clear();
+        sharedPools.forEach((key, pool) -> pool.close());
+        sharedPools.clear();
+    }
+
+    private synchronized TenantPool openPool(Tenant tenant, boolean replace) {
+        TenantPool existing = pools.get(tenant.getTenantId());
+        if (existing != null && !replace) {
+            return existing;
+        }
+
+        TenantPool pool;
+        if (tenant.isSchemaIsolated()) {
+            HikariDataSource shared = sharedPools.computeIfAbsent(sharedPoolKey(tenant), key -> {
+                reserve(sharedPoolSize);
+                return createDataSource(tenant, "Hikari-shared-" + tenant.getDbName(), sharedPoolSize);
+            });
+            pool = new TenantPool(tenant.getTenantId(), shared, true);
+            pool.dataSource = new TenantSchemaDataSource(shared, tenant.getSchemaName());
+        } else {
+            int initialSize = initialSize(tenant.getTenantId(), existing);
+            reserve(initialSize - (existing != null && !existing.shared ? existing.physical.getMaximumPoolSize() : 0));
+            HikariDataSource dedicated = createDataSource(tenant, "Hikari-" + tenant.getTenantId(), initialSize);
+            pool = new TenantPool(tenant.getTenantId(), dedicated, false);
+            pool.dataSource = new LeasedDataSource(pool);
+        }
+
+        pools.put(tenant.getTenantId(), pool);
+        if (existing != null) {
+            retire(existing);
+        }
+        return pool;
+    }
+
+    /**
+     * The size of a tenant's new pool: that of the pool it replaces, else the
+     * peak of its last closed pool, else the configured initial size.
+     */
+    private int initialSize(String tenantId, TenantPool existing) {
+        int size = existing != null && !existing.shared
+                ? existing.physical.getMaximumPoolSize()
+                : closedPoolSizes.getOrDefault(tenantId, initialPoolSize);
+        return Math.max(1, Math.max(minPoolSize, Math.min(maxPoolSize, size)));
+    }
+
+    /**
+     * Evicts least recently used idle pools until {@code connections} more fit in
+     * the budget. If every pool is busy the budget is exceeded rather than
+     * refusing the tenant, a warning is logged and false is returned.
+     */
+    private boolean reserve(int connections) {
+        while (getAllocatedConnections() + connections > maxTotalConnections) {
+            Optional<Map.Entry<String, TenantPool>> victim = pools.entrySet().stream()
+                    .filter(entry -> !entry.getValue().shared && entry.getValue().activeConnections() == 0)
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            if (victim.isEmpty()) {
+                log.warn("Tenant connection budget of {} exceeded; all {} pools are busy",
+                        maxTotalConnections, pools.size());
+                return false;
+            }
+            log.info("Evicting least recently used connection pool for tenant: {}", victim.get().getKey());
+            retire(victim.get().getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Takes a pool out of routing. Shared pools stay open for their other
+     * tenants; a dedicated pool is closed now if drained, else by a later
+     * rebalance().
+     */
+    private void retire(TenantPool pool) {
+        pools.remove(pool.tenantId, pool);
+        if (pool.shared) {
+            return;
+        }
+        pool.retired = true;
+        closedPoolSizes.put(pool.tenantId, pool.peakSize);
+        draining.add(pool);
+        closeDrained();
+    }
+
+    private void closeDrained() {
+        for (TenantPool pool : draining) {
+            if (pool.isDrained() && draining.remove(pool)) {
+                close(pool);
+            }
+        }
+    }
+
+    private void close(TenantPool pool) {
+        try {
+            pool.physical.close();
+        } catch (Exception e) {
+            log.warn("Failed to close connection pool for tenant '{}'", pool.tenantId, e);
+        }
+    }
+
+    private String sharedPoolKey(Tenant tenant) {
+        return tenant.getDbUrl() + "|" + tenant.getDbUsername();
     }
 
-    private DataSource createDataSource(Tenant tenant) {
+    private HikariDataSource createDataSource(Tenant tenant, String poolName, int poolSize) {
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(tenant.getDbUrl());
         config.setUsername(tenant.getDbUsername());
         config.setPassword(tenant.getDbPassword());
         config.setDriverClassName("org.postgresql.Driver");
 
-        // Optional HikariCP settings for per-tenant configs
-        config.setMaximumPoolSize(10);
-        config.setMinimumIdle(2);
+        // Idle tenants hold no connections; size follows traffic via rebalance() and grow()
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(0);
         config.setIdleTimeout(30000);
-        config.setPoolName("Hikari-" + tenant.getTenantId());
+        config.setPoolName(poolName);
 
         return new HikariDataSource(config);
     }
-}
 
+    /**
+     * What routing hands out for a dedicated pool. Borrowing holds a lease on
+     * the pool, so it is not closed under the caller; once the pool is retired
+     * the caller borrows from the tenant's current pool instead.
+     */
+    private final class LeasedDataSource extends DelegatingDataSource {
+
+        private final TenantPool pool;
+
+        private LeasedDataSource(TenantPool pool) {
+            super(pool.physical);
+            this.pool = pool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!pool.lease()) {
+                return currentDataSource().getConnection();
+            }
+            try {
+                return super.getConnection();
+            } finally {
+                pool.release();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (!pool.lease()) {
+                return currentDataSource().getConnection(username, password);
+            }
+            try {
+                return super.getConnection(username, password);
+            } finally {
+                pool.release();
+            }
+        }
+
+        private DataSource currentDataSource() throws SQLException {
+            DataSource current = getDataSource(pool.tenantId);
+            if (current == null) {
+                throw new SQLException("No connection pool for tenant: " + pool.tenantId);
+            }
+            return current;
+        }
+    }
+
+    private static class TenantPool {
+        private final String tenantId;
+        // What routing hands out; a schema-scoped view for shared pools, a leased one otherwise
+        private DataSource dataSource;
+        // The Hikari pool behind it, possibly shared with other tenants
+        private final HikariDataSource physical;
+        private final boolean shared;
+        private final AtomicLong requests = new AtomicLong();
+        // Callers between asking for a connection and getting one
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile boolean retired;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private volatile double recentTraffic;
+        private volatile long lastGrowth;
+        // Largest size this pool has had
+        private volatile int peakSize;
+
+        private TenantPool(String tenantId, HikariDataSource physical, boolean shared) {
+            this.tenantId = tenantId;
+            this.physical = physical;
+            this.shared = shared;
+            this.peakSize = physical.getMaximumPoolSize();
+        }
+
+        private int currentSize() {
+            return physical.getMaximumPoolSize();
+        }
+
+        private void resize(int size) {
+            physical.getHikariConfigMXBean().setMaximumPoolSize(size);
+            peakSize = Math.max(peakSize, size);
+        }
+
+        private void grown() {
+            lastGrowth = System.currentTimeMillis();
+        }
+
+        /**
+         * A dedicated pool below the maximum size with requests waiting for a
+         * connection, not grown within the last {@code growIntervalMs}.
+         */
+        private boolean isSaturated(int maxSize, long growIntervalMs) {
+            return !shared
+                    && physical.getMaximumPoolSize() < maxSize
+                    && System.currentTimeMillis() - lastGrowth >= growIntervalMs
+                    && physical.getHikariPoolMXBean() != null
+                    && physical.getHikariPoolMXBean().getThreadsAwaitingConnection() > 0;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+            requests.incrementAndGet();
+        }
+
+        private void decay() {
+            recentTraffic = recentTraffic * 0.5 + requests.getAndSet(0);
+        }
+
+        private int activeConnections() {
+            return physical.getHikariPoolMXBean() != null
+                    ? physical.getHikariPoolMXBean().getActiveConnections()
+                    : 0;
+        }
+
+        private int totalConnections() {
+            return physical.getHikariPoolMXBean() != null
+                    ? physical.getHikariPoolMXBean().getTotalConnections()
+                    : 0;
+        }
+
+        // The lease is taken before checking retired, and retire() sets retired before
+        // checking leases, so a pool is never closed between a lease and the borrow
+        private boolean lease() {
+            leases.incrementAndGet();
+            if (retired) {
+                leases.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private void release() {
+            leases.decrementAndGet();
+        }
+
+        private boolean isDrained() {
+            return leases.get() == 0 && activeConnections() == 0;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.mednex.mednex_enterprise.multitenancy.datasource;
 
 import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantUnavailableException;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
 import javax.sql.DataSource;
@@ -9,10 +11,13 @@ public class TenantRoutingDataSource extends AbstractRoutingDataSource {
 
     private final TenantDataSourceProvider tenantDataSourceProvider;
     private final DataSource defaultDataSource;
+    private final TenantMigrationTracker migrationTracker;
 
-    public TenantRoutingDataSource(TenantDataSourceProvider tenantDataSourceProvider, DataSource defaultDataSource) {
+    public TenantRoutingDataSource(TenantDataSourceProvider tenantDataSourceProvider, DataSource defaultDataSource,
+            TenantMigrationTracker migrationTracker) {
         this.tenantDataSourceProvider = tenantDataSourceProvider;
         this.defaultDataSource = defaultDataSource;
+        this.migrationTracker = migrationTracker;
     }
 
     @Override
@@ -28,6 +33,11 @@ public class TenantRoutingDataSource extends AbstractRoutingDataSource {
             return defaultDataSource; // Routing straight to Master DB if no tenant
         }
 
+        // Hold this tenant back until its startup schema migration has succeeded
+        if (!migrationTracker.isRoutable(tenantId)) {
+            throw new TenantUnavailableException(tenantId);
+        }
+
         DataSource tenantDataSource = tenantDataSourceProvider.getDataSource(tenantId);
         if (tenantDataSource != null) {
             return tenantDataSource;
@@ -0,0 +1,47 @@
+package com.mednex.mednex_enterprise.multitenancy.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * View of a shared pool scoped to one tenant schema. Every connection handed
+ * out has its search_path switched to the tenant's schema; Hikari restores the
+ * pool default when the connection is returned, so schemas never leak between
+ * tenants sharing the pool.
+ */
+public class TenantSchemaDataSource extends DelegatingDataSource {
+
+    private final String schemaName;
+
+    public TenantSchemaDataSource(DataSource sharedDataSource, String schemaName) {
+        super(sharedDataSource);
+        this.schemaName = schemaName;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return scope(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return scope(super.getConnection(username, password));
+    }
+
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    private Connection scope(Connection connection) throws SQLException {
+        try {
+            connection.setSchema(schemaName);
+            return connection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.mednex.mednex_enterprise.multitenancy.master;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Master-side copy of a tenant branch code, so a branch code typed on the login
+ * or registration screen can be resolved to its hospital without opening a
+ * connection to every tenant database.
+ */
+@Entity
+@Table(name = "branch_directory")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BranchDirectoryEntry {
+    @Id
+    private UUID branchId;
+
+    private String branchCode;
+    private String tenantId;
+    private boolean active;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,16 @@
+package com.mednex.mednex_enterprise.multitenancy.master;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BranchDirectoryRepository extends JpaRepository<BranchDirectoryEntry, UUID> {
+    List<BranchDirectoryEntry> findByActiveIsTrueOrderByCreatedAtAsc();
+
+    List<BranchDirectoryEntry> findByTenantId(String tenantId);
+
+    boolean existsByTenantId(String tenantId);
+}
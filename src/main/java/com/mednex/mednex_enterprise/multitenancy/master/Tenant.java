@@ -1,6 +1,8 @@
 package com.mednex.mednex_enterprise.multitenancy.master;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -25,6 +27,10 @@ public class Tenant {
     private String dbUsername;
     private String dbPassword;
 
+    @Enumerated(EnumType.STRING)
+    private TenantIsolationMode isolationMode;
+    private String schemaName;
+
     private String hospitalName;
     private String subscriptionPlan;
     private String subscriptionDuration;
@@ -40,4 +46,12 @@ public class Tenant {
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+
+    /**
+     * Rows created before isolation modes existed have no mode and use a
+     * dedicated database.
+     */
+    public boolean isSchemaIsolated() {
+        return isolationMode == TenantIsolationMode.SCHEMA && schemaName != null;
+    }
 }
@@ -0,0 +1,11 @@
+package com.mednex.mednex_enterprise.multitenancy.master;
+
+/**
+ * How a tenant's data is separated from other tenants.
+ */
+public enum TenantIsolationMode {
+    // Dedicated Postgres database with its own connection pool
+    DATABASE,
+    // Schema inside a shared database, served from a pool shared with other tenants
+    SCHEMA
+}
@@ -0,0 +1,24 @@
+package com.mednex.mednex_enterprise.multitenancy.migration;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantMigrationReport {
+    private String tenantId;
+    private TenantMigrationStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private Integer migrationsExecuted;
+    private String error;
+    // Migration runs started, including retries
+    private int attempts;
+}
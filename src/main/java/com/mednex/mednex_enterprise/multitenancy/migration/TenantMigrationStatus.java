@@ -0,0 +1,8 @@
+package com.mednex.mednex_enterprise.multitenancy.migration;
+
+public enum TenantMigrationStatus {
+    PENDING,
+    MIGRATING,
+    READY,
+    FAILED
+}
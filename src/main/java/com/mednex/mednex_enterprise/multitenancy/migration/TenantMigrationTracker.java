@@ -0,0 +1,140 @@
+package com.mednex.mednex_enterprise.multitenancy.migration;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the startup schema migration of each tenant database. Routing consults
+ * it so a tenant is only served once its own migration has finished, while
+ * already-migrated tenants serve traffic immediately. Failed migrations are
+ * retried by TenantMigrationRunner.
+ */
+@Component
+public class TenantMigrationTracker {
+
+    private final Map<String, TenantMigrationReport> reports = new ConcurrentHashMap<>();
+
+    // Set once every tenant known at startup has been marked pending
+    private volatile boolean registrationComplete;
+
+    public void markPending(String tenantId) {
+        reports.put(tenantId, TenantMigrationReport.builder()
+                .tenantId(tenantId)
+                .status(TenantMigrationStatus.PENDING)
+                .build());
+    }
+
+    /**
+     * Marks the end of startup registration: from here on an untracked tenant
+     * is one provisioned after startup rather than one not registered yet.
+     */
+    public void markRegistrationComplete() {
+        registrationComplete = true;
+    }
+
+    /**
+     * Moves a failed tenant back to pending for another attempt. False if the
+     * tenant is not tracked or its migration has not failed, e.g. because a
+     * retry is already running.
+     */
+    public boolean markRetrying(String tenantId) {
+        TenantMigrationReport report = reports.get(tenantId);
+        if (report == null || report.getStatus() != TenantMigrationStatus.FAILED) {
+            return false;
+        }
+        // Fails if another retry moved the report on first
+        return reports.replace(tenantId, report, report.toBuilder().status(TenantMigrationStatus.PENDING).build());
+    }
+
+    public void markMigrating(String tenantId) {
+        reports.compute(tenantId, (id, report) -> base(id, report).toBuilder()
+                .status(TenantMigrationStatus.MIGRATING)
+                .startedAt(LocalDateTime.now())
+                .finishedAt(null)
+                .durationMs(null)
+                .attempts(base(id, report).getAttempts() + 1)
+                .build());
+    }
+
+    public void markReady(String tenantId, int migrationsExecuted) {
+        reports.compute(tenantId, (id, report) -> finish(base(id, report).toBuilder()
+                .status(TenantMigrationStatus.READY)
+                .migrationsExecuted(migrationsExecuted)
+                .error(null)
+                .build()));
+    }
+
+    public void markFailed(String tenantId, Exception error) {
+        reports.compute(tenantId, (id, report) -> finish(base(id, report).toBuilder()
+                .status(TenantMigrationStatus.FAILED)
+                .error(error.getMessage())
+                .build()));
+    }
+
+    /**
+     * A tenant can be routed to once its startup migration has succeeded.
+     * Nothing is routable before startup registration completes, as an
+     * untracked tenant may simply not be registered yet; after it, untracked
+     * tenants were provisioned after startup and migrated during onboarding.
+     * A tenant whose migration failed is not served on a schema of unknown state
+     * until a retry succeeds.
+     */
+    public boolean isRoutable(String tenantId) {
+        if (!registrationComplete) {
+            return false;
+        }
+        TenantMigrationReport report = reports.get(tenantId);
+        return report == null || report.getStatus() == TenantMigrationStatus.READY;
+    }
+
+    /**
+     * True once startup registration is complete and every tracked tenant has
+     * finished, successfully or not.
+     */
+    public boolean isFleetReady() {
+        return registrationComplete && reports.values().stream()
+                .allMatch(report -> report.getStatus() == TenantMigrationStatus.READY
+                        || report.getStatus() == TenantMigrationStatus.FAILED);
+    }
+
+    public long countByStatus(TenantMigrationStatus status) {
+        return reports.values().stream().filter(report -> report.getStatus() == status).count();
+    }
+
+    public TenantMigrationReport getReport(String tenantId) {
+        return reports.get(tenantId);
+    }
+
+    public List<String> getFailedTenantIds() {
+        return reports.values().stream()
+                .filter(report -> report.getStatus() == TenantMigrationStatus.FAILED)
+                .map(TenantMigrationReport::getTenantId)
+                .sorted()
+                .toList();
+    }
+
+    public List<TenantMigrationReport> getReports() {
+        return reports.values().stream()
+                .sorted(Comparator.comparing(TenantMigrationReport::getTenantId))
+                .toList();
+    }
+
+    private TenantMigrationReport base(String tenantId, TenantMigrationReport report) {
+        return report != null ? report : TenantMigrationReport.builder().tenantId(tenantId).build();
+    }
+
+    private TenantMigrationReport finish(TenantMigrationReport report) {
+        LocalDateTime finishedAt = LocalDateTime.now();
+        report.setFinishedAt(finishedAt);
+        if (report.getStartedAt() != null) {
+            report.setDurationMs(Duration.between(report.getStartedAt(), finishedAt).toMillis());
+        }
+        return report;
+    }
+}
@@ -0,0 +1,23 @@
+package com.mednex.mednex_enterprise.multitenancy.migration;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The tenant's database cannot be served yet: its startup migration is still
+ * queued or running, or it failed and waits for a retry.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TenantUnavailableException extends RuntimeException {
+
+    private final String tenantId;
+
+    public TenantUnavailableException(String tenantId) {
+        super("Tenant database is not migrated or its migration failed: " + tenantId);
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+}
@@ -0,0 +1,146 @@
+package com.mednex.mednex_enterprise.multitenancy.service;
+
+import com.mednex.mednex_enterprise.core.entity.Branch;
+import com.mednex.mednex_enterprise.multitenancy.master.BranchDirectoryEntry;
+import com.mednex.mednex_enterprise.multitenancy.master.BranchDirectoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves branch codes to tenant IDs from the master database.
+ *
+ * The full directory is loaded into memory at startup and kept current by
+ * {@link #register(String, Branch)} and {@link #syncTenant(String, Collection)},
+ * so lookups never touch a tenant database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BranchDirectoryService {
+
+    private final BranchDirectoryRepository branchDirectoryRepository;
+
+    // branch code -> tenant IDs owning a branch with that code, oldest first
+    private final Map<String, List<String>> tenantsByCode = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void warmUp() {
+        List<BranchDirectoryEntry> entries = branchDirectoryRepository.findByActiveIsTrueOrderByCreatedAtAsc();
+        for (BranchDirectoryEntry entry : entries) {
+            index(entry.getBranchCode(), entry.getTenantId());
+        }
+        log.info("Loaded {} branch directory entries", entries.size());
+    }
+
+    /**
+     * Tenant IDs that own a branch with the given code. Codes such as "MAIN" are
+     * shared by every hospital, so callers must pick the first usable tenant.
+     */
+    public List<String> findTenantIds(String branchCode) {
+        if (branchCode == null) {
+            return List.of();
+        }
+        return tenantsByCode.getOrDefault(branchCode, List.of());
+    }
+
+    public boolean hasTenant(String tenantId) {
+        return branchDirectoryRepository.existsByTenantId(tenantId);
+    }
+
+    /**
+     * Records a newly created branch. Call after the branch row has been saved in
+     * its tenant database so the generated ID is available. Inside a tenant
+     * transaction the entry is written only once that transaction commits, so a
+     * rolled-back branch never reaches the master directory.
+     */
+    public void register(String tenantId, Branch branch) {
+        if (tenantId == null || branch.getId() == null || branch.getCode() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        write(tenantId, branch);
+                    } catch (RuntimeException e) {
+                        // The branch is committed; only branch-code login is affected until the tenant is re-synced
+                        log.error("Could not register branch {} of tenant {} in the directory",
+                                branch.getCode(), tenantId, e);
+                    }
+                }
+            });
+        } else {
+            write(tenantId, branch);
+        }
+    }
+
+    private void write(String tenantId, Branch branch) {
+        branchDirectoryRepository.save(toEntry(tenantId, branch));
+        if (branch.isActive()) {
+            index(branch.getCode(), tenantId);
+        }
+    }
+
+    /**
+     * Reconciles the directory with the branches currently stored in a tenant
+     * database. Used to backfill tenants created before the directory existed.
+     */
+    public void syncTenant(String tenantId, Collection<Branch> branches) {
+        Set<UUID> known = branchDirectoryRepository.findByTenantId(tenantId).stream()
+                .map(BranchDirectoryEntry::getBranchId)
+                .collect(Collectors.toSet());
+
+        List<BranchDirectoryEntry> missing = branches.stream()
+                .filter(branch -> branch.getCode() != null && !known.contains(branch.getId()))
+                .map(branch -> toEntry(tenantId, branch))
+                .collect(Collectors.toList());
+
+        if (!missing.isEmpty()) {
+            branchDirectoryRepository.saveAll(missing);
+            log.info("Backfilled {} branch directory entries for tenant: {}", missing.size(), tenantId);
+        }
+
+        for (Branch branch : branches) {
+            if (branch.getCode() != null && branch.isActive()) {
+                index(branch.getCode(), tenantId);
+            }
+        }
+    }
+
+    private void index(String branchCode, String tenantId) {
+        tenantsByCode.compute(branchCode, (code, tenants) -> {
+            if (tenants != null && tenants.contains(tenantId)) {
+                return tenants;
+            }
+            List<String> updated = tenants == null ? new ArrayList<>() : new ArrayList<>(tenants);
+            updated.add(tenantId);
+            return List.copyOf(updated);
+        });
+    }
+
+    private BranchDirectoryEntry toEntry(String tenantId, Branch branch) {
+        return BranchDirectoryEntry.builder()
+                .branchId(branch.getId())
+                .branchCode(branch.getCode())
+                .tenantId(tenantId)
+                .active(branch.isActive())
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
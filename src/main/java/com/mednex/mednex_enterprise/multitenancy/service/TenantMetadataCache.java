@@ -0,0 +1,128 @@
+package com.mednex.mednex_enterprise.multitenancy.service;
+
+import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
+import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of tenant master records for hot paths (login, routing,
+ * subscription status, the X-Tenant-ID interceptor).
+ *
+ * Unknown IDs are cached too, for a shorter time, so repeated requests with a
+ * bad tenant header do not reach the master database. Callers that change a
+ * tenant must go through {@link TenantRepository} and then call
+ * {@link #evict(String)}. Returned tenants are shared and must be treated as
+ * read-only.
+ */
+@Service
+public class TenantMetadataCache {
+
+    private final TenantRepository tenantRepository;
+
+    @Value("${application.tenancy.metadata-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${application.tenancy.metadata-cache.negative-ttl-ms:60000}")
+    private long negativeTtlMs;
+
+    @Value("${application.tenancy.metadata-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, CachedTenant> tenants = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TenantMetadataCache(TenantRepository tenantRepository) {
+        this.tenantRepository = tenantRepository;
+    }
+
+    public Optional<Tenant> findById(String tenantId) {
+        if (tenantId == null) {
+            return Optional.empty();
+        }
+
+        CachedTenant cached = tenants.get(tenantId);
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.expiresAt > now) {
+            if (cached.tenant == null) {
+                negativeHits.increment();
+            } else {
+                hits.increment();
+            }
+            return Optional.ofNullable(cached.tenant);
+        }
+
+        misses.increment();
+        Tenant tenant = tenantRepository.findById(tenantId).orElse(null);
+        if (tenants.size() >= maxEntries) {
+            evictExpired(now);
+        }
+        tenants.put(tenantId, new CachedTenant(tenant, now + (tenant != null ? ttlMs : negativeTtlMs)));
+        return Optional.ofNullable(tenant);
+    }
+
+    public Optional<Tenant> findActive(String tenantId) {
+        return findById(tenantId).filter(Tenant::isActive);
+    }
+
+    public boolean isActive(String tenantId) {
+        return findActive(tenantId).isPresent();
+    }
+
+    public void evict(String tenantId) {
+        if (tenantId != null && tenants.remove(tenantId) != null) {
+            evictions.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum() + negativeHits.sum();
+        long total = hitCount + misses.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", tenants.size());
+        stats.put("hits", hits.sum());
+        stats.put("negativeHits", negativeHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still full, drops arbitrary
+     * entries until a tenth of the capacity is free again.
+     */
+    private void evictExpired(long now) {
+        tenants.values().removeIf(cached -> cached.expiresAt <= now);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> keys = tenants.keySet().iterator();
+        while (tenants.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static class CachedTenant {
+        // null marks a tenant ID known not to exist
+        private final Tenant tenant;
+        private final long expiresAt;
+
+        private CachedTenant(Tenant tenant, long expiresAt) {
+            this.tenant = tenant;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -14,4 +14,6 @@ public class HospitalRegistrationRequest {
     private String subscriptionPlan;
     private String subscriptionDuration;
     private String parentTenantId;
+    // DATABASE (default) or SCHEMA for small clinics packed into a shared database
+    private String isolationMode;
 }
@@ -1,8 +1,11 @@
 package com.mednex.mednex_enterprise.onboarding.service;
 
 import com.mednex.mednex_enterprise.multitenancy.master.Tenant;
+import com.mednex.mednex_enterprise.multitenancy.master.TenantIsolationMode;
 import com.mednex.mednex_enterprise.multitenancy.master.TenantRepository;
 import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.multitenancy.service.BranchDirectoryService;
+import com.mednex.mednex_enterprise.multitenancy.service.TenantMetadataCache;
 import com.mednex.mednex_enterprise.onboarding.dto.HospitalRegistrationRequest;
 import com.mednex.mednex_enterprise.core.entity.Branch;
 import com.mednex.mednex_enterprise.core.entity.Role;
@@ -11,6 +14,7 @@ import com.mednex.mednex_enterprise.core.repository.BranchRepository;
 import com.mednex.mednex_enterprise.core.repository.RoleRepository;
 import com.mednex.mednex_enterprise.core.repository.UserRepository;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,6 +23,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -28,6 +35,9 @@ import java.util.UUID;
 @Service
 public class TenantProvisioningService {
 
+    // PostgreSQL SQLSTATE duplicate_database
+    private static final String DUPLICATE_DATABASE = "42P04";
+
     @Autowired
     private TenantRepository tenantRepository;
 
@@ -40,6 +50,12 @@ public class TenantProvisioningService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private BranchDirectoryService branchDirectoryService;
+
+    @Autowired
+    private TenantMetadataCache tenantMetadataCache;
+
     @Autowired
     private Environment env;
 
@@ -60,7 +76,11 @@ public class TenantProvisioningService {
         }
 
         // 2. Setup the tenant DB credentials
-        String dbName = "mednex_tenant_" + tenantId;
+        boolean schemaIsolated = TenantIsolationMode.SCHEMA.name().equalsIgnoreCase(request.getIsolationMode());
+        String dbName = schemaIsolated
+                ? env.getProperty("application.tenancy.shared-database.name", "mednex_tenants_shared")
+                : "mednex_tenant_" + tenantId;
+        String schemaName = schemaIsolated ? "tenant_" + tenantId : null;
         String dbUsername = env.getProperty("spring.datasource.username");
         String dbPassword = env.getProperty("spring.datasource.password");
 
@@ -69,11 +89,16 @@ public class TenantProvisioningService {
         String baseDbUrl = dbUrl.substring(0, dbUrl.lastIndexOf("/"));
         String newTenantDbUrl = baseDbUrl + "/" + dbName;
 
-        // 3. Create the Database physically in PostgreSQL
-        createNewDatabase(baseDbUrl, dbUsername, dbPassword, dbName);
+        // 3. Create the Database physically in PostgreSQL. Schema tenants share one
+        // database, created by the first of them; Flyway creates the schema itself.
+        if (schemaIsolated) {
+            createDatabaseIfMissing(baseDbUrl, dbUsername, dbPassword, dbName);
+        } else {
+            createNewDatabase(baseDbUrl, dbUsername, dbPassword, dbName);
+        }
 
         // 4. Run Flyway Migrations for the new Tenant DB
-        runFlywayMigrations(newTenantDbUrl, dbUsername, dbPassword);
+        runFlywayMigrations(newTenantDbUrl, dbUsername, dbPassword, schemaName);
 
         // 5. Calculate Subscription Cost and Expiry
         double baseCost = 0.0;
@@ -102,6 +127,8 @@ public class TenantProvisioningService {
                 .dbUrl(newTenantDbUrl)
                 .dbUsername(dbUsername)
                 .dbPassword(dbPassword)
+                .isolationMode(schemaIsolated ? TenantIsolationMode.SCHEMA : TenantIsolationMode.DATABASE)
+                .schemaName(schemaName)
                 .hospitalName(request.getHospitalName())
                 .subscriptionPlan(request.getSubscriptionPlan())
                 .subscriptionDuration(
@@ -120,6 +147,8 @@ public class TenantProvisioningService {
                 .build();
 
         tenantRepository.save(tenant);
+        // A lookup may have cached this ID as unknown before it was registered
+        tenantMetadataCache.evict(tenantId);
 
         // 6. Initialize default Branch and User strictly inside the newly created
         // Tenant DB context.
@@ -137,12 +166,37 @@ public class TenantProvisioningService {
         }
     }
 
-    private void runFlywayMigrations(String dbUrl, String username, String password) {
-        Flyway flyway = Flyway.configure()
+    private void createDatabaseIfMissing(String baseDbUrl, String username, String password, String dbName) {
+        try (Connection connection = DriverManager.getConnection(baseDbUrl + "/postgres", username, password);
+                PreparedStatement exists = connection.prepareStatement(
+                        "SELECT 1 FROM pg_database WHERE datname = ?")) {
+            exists.setString(1, dbName);
+            try (ResultSet resultSet = exists.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE DATABASE " + dbName);
+            } catch (SQLException e) {
+                // Another registration created it between the check and here
+                if (!DUPLICATE_DATABASE.equals(e.getSQLState())) {
+                    throw e;
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create shared tenant database", e);
+        }
+    }
+
+    private void runFlywayMigrations(String dbUrl, String username, String password, String schemaName) {
+        FluentConfiguration configuration = Flyway.configure()
                 .dataSource(dbUrl, username, password)
-                .locations("classpath:db/migration/tenant")
-                .load();
-        flyway.migrate();
+                .locations("classpath:db/migration/tenant");
+        if (schemaName != null) {
+            configuration.schemas(schemaName);
+        }
+        configuration.load().migrate();
     }
 
     /**
@@ -166,6 +220,7 @@ public class TenantProvisioningService {
                     .active(true)
                     .build();
             mainBranch = branchRepository.save(mainBranch);
+            branchDirectoryService.register(tenantId, mainBranch);
 
             // B. Fetch HOSPITAL_ADMIN Role
             Role adminRole = roleRepository.findByName("HOSPITAL_ADMIN")
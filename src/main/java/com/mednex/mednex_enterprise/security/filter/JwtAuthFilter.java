@@ -1,12 +1,18 @@
 package com.mednex.mednex_enterprise.security.filter;
 
+import com.mednex.mednex_enterprise.core.entity.Branch;
+import com.mednex.mednex_enterprise.core.entity.User;
 import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.multitenancy.migration.TenantMigrationTracker;
 import com.mednex.mednex_enterprise.security.service.JwtService;
+import com.mednex.mednex_enterprise.security.service.TokenRevocationService;
+import com.mednex.mednex_enterprise.security.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -20,6 +26,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,6 +35,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final TenantMigrationTracker migrationTracker;
+
+    // When enabled, the principal is built from token claims instead of loading the
+    // user row on every request; revocation is handled by TokenRevocationService.
+    @Value("${application.security.jwt.stateless:false}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(
@@ -37,6 +51,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
+        final VerifiedToken verifiedToken;
         final String userEmail;
         final String tenantId;
 
@@ -51,8 +66,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            userEmail = jwtService.extractUsername(jwt);
-            tenantId = jwtService.extractTenantId(jwt);
+            // Signature and expiry are checked once here; the claims are reused below
+            verifiedToken = jwtService.verify(jwt);
+            if (tokenRevocationService.isRevoked(jwt, verifiedToken)) {
+                throw new IllegalStateException("Token has been revoked");
+            }
+            userEmail = verifiedToken.getUsername();
+            tenantId = verifiedToken.getTenantId();
         } catch (Exception e) {
             // Only catch JWT parsing/validation errors here
             System.err.println("JWT Token Invalid: " + e.getMessage());
@@ -66,15 +86,26 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             // Critical! Set the tenant context so the Database Route hits the right schemas
             if (tenantId != null) {
                 TenantContext.setCurrentTenant(tenantId);
+                // Answer before the user lookup reaches a database that cannot be served yet
+                if (!migrationTracker.isRoutable(tenantId)) {
+                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    response.setHeader("Retry-After", "60");
+                    response.setContentType("application/json");
+                    response.getWriter().write(
+                            "{\"error\": \"Service Unavailable\", \"message\": \"Tenant database is not ready\"}");
+                    return;
+                }
             }
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                UserDetails userDetails = statelessAuthentication && verifiedToken.getUserId() != null
+                        ? buildPrincipal(verifiedToken)
+                        : this.userDetailsService.loadUserByUsername(userEmail);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                     // Extract roles and permissions from JWT
-                    List<String> roles = jwtService.extractRoles(jwt);
-                    List<String> permissions = jwtService.extractPermissions(jwt);
+                    List<String> roles = verifiedToken.getRoles();
+                    List<String> permissions = verifiedToken.getPermissions();
 
                     List<SimpleGrantedAuthority> authorities = new ArrayList<>();
 
@@ -115,4 +146,22 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             TenantContext.clear();
         }
     }
+
+    /**
+     * Detached user carrying only what the token asserts. Enough for controllers
+     * that read the caller's ID or name and for use as an association reference;
+     * it must never be saved back.
+     */
+    private User buildPrincipal(VerifiedToken token) {
+        User.UserBuilder principal = User.builder()
+                .id(UUID.fromString(token.getUserId()))
+                .email(token.getUsername())
+                .name(token.getName())
+                .password("")
+                .active(true);
+        if (token.getPrimaryBranchId() != null) {
+            principal.primaryBranch(Branch.builder().id(UUID.fromString(token.getPrimaryBranchId())).build());
+        }
+        return principal.build();
+    }
 }
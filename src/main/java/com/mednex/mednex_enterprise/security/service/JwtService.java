@@ -4,19 +4,25 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
     // Using a properly sized 256-bit+ secure key for HS256
     @Value("${application.security.jwt.secret-key:404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970}")
     private String secretKey;
@@ -27,8 +33,48 @@ public class JwtService {
     @Value("${application.security.jwt.refresh-token.expiration:604800000}")
     private long refreshExpiration;
 
+    // Decoded once; the secret does not change at runtime
+    private Key signInKey;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = io.jsonwebtoken.io.Decoders.BASE64.decode(secretKey);
+        this.signInKey = Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    /**
+     * Verifies the token signature and expiry once and returns its claims.
+     * Tokens seen before are served from {@link VerifiedTokenCache} without
+     * re-parsing. Throws a {@link io.jsonwebtoken.JwtException} if the token is
+     * invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        Object userId = claims.get("user_id");
+        Object primaryBranchId = claims.get("primary_branch_id");
+        VerifiedToken verified = VerifiedToken.builder()
+                .username(claims.getSubject())
+                .userId(userId != null ? userId.toString() : null)
+                .tenantId(claims.get("hospital_id", String.class))
+                .name(claims.get("name", String.class))
+                .primaryBranchId(primaryBranchId != null ? primaryBranchId.toString() : null)
+                .roles(toStringList(claims.get("roles")))
+                .permissions(toStringList(claims.get("permissions")))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .build();
+
+        verifiedTokenCache.put(token, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getUsername();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -68,35 +114,36 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return isTokenValid(verify(token), userDetails);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername() != null
+                && token.getUsername().equals(userDetails.getUsername())
+                && !token.isExpired();
     }
 
     private Key getSignInKey() {
-        byte[] keyBytes = io.jsonwebtoken.io.Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signInKey;
     }
 
     public String extractTenantId(String token) {
-        return extractClaim(token, claims -> claims.get("hospital_id", String.class));
+        return verify(token).getTenantId();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
-        return extractClaim(token, claims -> (List<String>) claims.get("roles"));
+        return verify(token).getRoles();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractPermissions(String token) {
-        return extractClaim(token, claims -> (List<String>) claims.get("permissions"));
+        return verify(token).getPermissions();
+    }
+
+    private List<String> toStringList(Object value) {
+        if (!(value instanceof Collection<?> values)) {
+            return null;
+        }
+        return values.stream().map(String::valueOf).toList();
     }
 }
 
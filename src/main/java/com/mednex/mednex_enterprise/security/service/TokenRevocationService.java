@@ -0,0 +1,74 @@
+package com.mednex.mednex_enterprise.security.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory revocation for access tokens, used when requests are authenticated
+ * from token claims alone and the user row is no longer read per request.
+ *
+ * Two checks are kept: a deny-list of individual tokens (logout) and a per-user
+ * cut-off that rejects every token issued before it (deactivation, role
+ * removal). Entries only need to outlive the access token lifetime, after which
+ * the tokens they guard have expired anyway. State is per node.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${application.security.jwt.expiration:900000}")
+    private long jwtExpiration;
+
+    // token hash -> token expiry
+    private final Map<String, Instant> deniedTokens = new ConcurrentHashMap<>();
+
+    // tenantId:username -> tokens issued before this instant are rejected
+    private final Map<String, Instant> revokedUsers = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    public void revokeToken(String token, VerifiedToken verified) {
+        Instant expiry = verified.getExpiration() != null
+                ? verified.getExpiration().toInstant()
+                : Instant.now().plusMillis(jwtExpiration);
+        deniedTokens.put(VerifiedTokenCache.hash(token), expiry);
+        verifiedTokenCache.invalidate(token);
+        purgeExpired();
+    }
+
+    public void revokeUser(String tenantId, String username) {
+        revokedUsers.put(userKey(tenantId, username), Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        purgeExpired();
+    }
+
+    public boolean isRevoked(String token, VerifiedToken verified) {
+        if (!deniedTokens.isEmpty() && deniedTokens.containsKey(VerifiedTokenCache.hash(token))) {
+            return true;
+        }
+        if (revokedUsers.isEmpty()) {
+            return false;
+        }
+        Instant cutOff = revokedUsers.get(userKey(verified.getTenantId(), verified.getUsername()));
+        return cutOff != null
+                && (verified.getIssuedAt() == null || verified.getIssuedAt().toInstant().isBefore(cutOff));
+    }
+
+    private void purgeExpired() {
+        Instant now = Instant.now();
+        deniedTokens.values().removeIf(expiry -> expiry.isBefore(now));
+        Instant oldestRelevant = now.minusMillis(jwtExpiration);
+        revokedUsers.values().removeIf(cutOff -> cutOff.isBefore(oldestRelevant));
+    }
+
+    private String userKey(String tenantId, String username) {
+        return tenantId + ":" + username;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mednex.mednex_enterprise.security.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of an access token whose signature and expiry have already been
+ * checked. Immutable so it can be shared between requests through
+ * {@link VerifiedTokenCache}.
+ */
+@Value
+@Builder
+public class VerifiedToken {
+    String username;
+    String userId;
+    String tenantId;
+    String name;
+    String primaryBranchId;
+    List<String> roles;
+    List<String> permissions;
+    Date issuedAt;
+    Date expiration;
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
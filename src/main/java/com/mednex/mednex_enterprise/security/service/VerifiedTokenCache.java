@@ -0,0 +1,82 @@
+package com.mednex.mednex_enterprise.security.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of verified access tokens keyed by the SHA-256 hash of the raw
+ * token, so the same session hitting the API repeatedly skips signature
+ * verification. Entries are dropped once the token itself expires.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${application.security.jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    public VerifiedToken get(String token) {
+        String key = hash(token);
+        VerifiedToken verified = tokens.get(key);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.isExpired()) {
+            tokens.remove(key, verified);
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (tokens.size() >= maxEntries) {
+            evict();
+        }
+        tokens.put(hash(token), verified);
+    }
+
+    public void invalidate(String token) {
+        tokens.remove(hash(token));
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Drops expired entries first; if the cache is still full, drops arbitrary
+     * entries until a tenth of the capacity is free again.
+     */
+    private void evict() {
+        tokens.values().removeIf(VerifiedToken::isExpired);
+
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<String> keys = tokens.keySet().iterator();
+        while (tokens.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashed = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hashed);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- V2__add_branch_directory.sql
+-- Branch code -> tenant index so login/registration can resolve a branch code
+-- without scanning every tenant database
+
+CREATE TABLE branch_directory (
+    branch_id UUID PRIMARY KEY,
+    branch_code VARCHAR(255) NOT NULL,
+    tenant_id VARCHAR(255) NOT NULL REFERENCES tenants(tenant_id),
+    active BOOLEAN DEFAULT TRUE,
+
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_branch_directory_code ON branch_directory (branch_code);
+CREATE INDEX idx_branch_directory_tenant ON branch_directory (tenant_id);
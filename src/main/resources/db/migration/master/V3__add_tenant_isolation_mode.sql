@@ -0,0 +1,5 @@
+-- V3__add_tenant_isolation_mode.sql
+-- Lets a tenant live in a schema of a shared database instead of its own database
+
+ALTER TABLE tenants ADD COLUMN isolation_mode VARCHAR(20) DEFAULT 'DATABASE';
+ALTER TABLE tenants ADD COLUMN schema_name VARCHAR(255);
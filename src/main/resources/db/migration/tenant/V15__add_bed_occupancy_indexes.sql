@@ -0,0 +1,5 @@
+-- V15__add_bed_occupancy_indexes.sql
+-- Supports the grouped ward occupancy query (ward x status counts per branch)
+
+CREATE INDEX IF NOT EXISTS idx_wards_branch ON wards(branch_id);
+CREATE INDEX IF NOT EXISTS idx_beds_ward_status ON beds(ward_id, status);
@@ -0,0 +1,7 @@
+-- V16__add_ward_map_indexes.sql
+-- Supports the batched ward map loader (beds by room, admissions and assets by bed ID set)
+
+CREATE INDEX IF NOT EXISTS idx_rooms_ward ON rooms(ward_id);
+CREATE INDEX IF NOT EXISTS idx_beds_room ON beds(room_id);
+CREATE INDEX IF NOT EXISTS idx_admissions_bed_status ON admissions(current_bed_id, status);
+CREATE INDEX IF NOT EXISTS idx_medical_assets_location ON medical_assets(current_location_type, current_location_id);
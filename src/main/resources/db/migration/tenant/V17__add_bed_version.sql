@@ -0,0 +1,4 @@
+-- V17__add_bed_version.sql
+-- Optimistic version for beds, bumped by the atomic bed claim and every entity save
+
+ALTER TABLE beds ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
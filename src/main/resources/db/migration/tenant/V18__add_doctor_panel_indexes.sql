@@ -0,0 +1,6 @@
+-- V18__add_doctor_panel_indexes.sql
+-- Supports the doctor patient panel query (panel membership, last visit, open admissions)
+
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_patient_time ON appointments(doctor_id, patient_id, appointment_time);
+CREATE INDEX IF NOT EXISTS idx_admissions_doctor_status_patient ON admissions(admitting_doctor_id, status, patient_id);
+CREATE INDEX IF NOT EXISTS idx_patients_name ON patients(last_name, first_name, id);
@@ -0,0 +1,8 @@
+-- V19__add_emr_section_indexes.sql
+-- Supports the keyset-paged EMR sections (patient, newest first)
+
+CREATE INDEX IF NOT EXISTS idx_clinical_notes_patient_created ON clinical_notes(patient_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_prescriptions_patient_created ON prescriptions(patient_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_vitals_patient_recorded ON vitals(patient_id, recorded_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_lab_test_requests_patient_requested ON lab_test_requests(patient_id, requested_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_admissions_patient_date ON admissions(patient_id, admission_date DESC, id DESC);
@@ -0,0 +1,8 @@
+-- V20__add_keyset_paging_indexes.sql
+-- Supports the keyset-paged list endpoints (sort columns plus id as tie-breaker)
+
+CREATE INDEX IF NOT EXISTS idx_appointments_doctor_time_id ON appointments(doctor_id, appointment_time, id);
+CREATE INDEX IF NOT EXISTS idx_appointments_patient_time_id ON appointments(patient_id, appointment_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_users_name_id ON users(name, id);
+CREATE INDEX IF NOT EXISTS idx_medicines_name_id ON medicines(name, id);
+CREATE INDEX IF NOT EXISTS idx_diagnostic_orders_patient_created ON diagnostic_orders(patient_id, created_at DESC, id DESC);
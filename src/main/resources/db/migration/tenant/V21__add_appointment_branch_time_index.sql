@@ -0,0 +1,4 @@
+-- V21__add_appointment_branch_time_index.sql
+-- Supports the branch + day window queries behind the nurse dashboard
+
+CREATE INDEX IF NOT EXISTS idx_appointments_branch_time ON appointments(branch_id, appointment_time);
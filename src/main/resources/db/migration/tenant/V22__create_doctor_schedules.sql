@@ -0,0 +1,14 @@
+-- V22__create_doctor_schedules.sql
+-- Weekly working hours per doctor, read by the slot calendar to build day availability
+
+CREATE TABLE IF NOT EXISTS doctor_schedules (
+    id              BIGSERIAL PRIMARY KEY,
+    doctor_id       UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    day_of_week     VARCHAR(10) NOT NULL,
+    start_time      TIME NOT NULL,
+    end_time        TIME NOT NULL,
+    slot_duration   INTEGER NOT NULL DEFAULT 15,
+    is_active       BOOLEAN DEFAULT TRUE
+);
+
+CREATE INDEX IF NOT EXISTS idx_doctor_schedules_doctor_day ON doctor_schedules(doctor_id, day_of_week);
@@ -0,0 +1,40 @@
+-- V23__add_appointment_token_counters.sql
+-- Per doctor and day token sequences, and one active booking per doctor slot
+
+CREATE TABLE IF NOT EXISTS appointment_token_counters (
+    doctor_id       UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    token_date      DATE NOT NULL,
+    last_token      INTEGER NOT NULL,
+    PRIMARY KEY (doctor_id, token_date)
+);
+
+-- Continue from tokens already handed out
+INSERT INTO appointment_token_counters (doctor_id, token_date, last_token)
+SELECT doctor_id, CAST(appointment_time AS DATE), MAX(token_number)
+FROM appointments
+WHERE doctor_id IS NOT NULL AND appointment_time IS NOT NULL AND token_number IS NOT NULL
+GROUP BY doctor_id, CAST(appointment_time AS DATE)
+ON CONFLICT (doctor_id, token_date) DO NOTHING;
+
+-- Resolve existing double bookings among open ones: the earliest booking of a
+-- slot keeps it, later ones are cancelled with the reason in their notes.
+-- Visits that started or ended (checked in, completed, no-show, ...) are history
+-- and are neither changed here nor covered by the index below.
+WITH ranked AS (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY doctor_id, appointment_time ORDER BY created_at NULLS LAST, id) AS rn
+    FROM appointments
+    WHERE doctor_id IS NOT NULL AND appointment_time IS NOT NULL
+      AND status IN ('REQUESTED', 'TRIAGED', 'PENDING', 'CONFIRMED', 'SCHEDULED')
+)
+UPDATE appointments a
+SET status = 'CANCELLED',
+    notes = CONCAT_WS(E'\n', NULLIF(a.notes, ''),
+        'Cancelled by migration V23: the doctor''s slot was double booked and an earlier booking kept it.'),
+    updated_at = CURRENT_TIMESTAMP
+FROM ranked r
+WHERE a.id = r.id AND r.rn > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_appointments_doctor_time_active
+    ON appointments(doctor_id, appointment_time)
+    WHERE status IN ('REQUESTED', 'TRIAGED', 'PENDING', 'CONFIRMED', 'SCHEDULED');
@@ -0,0 +1,19 @@
+-- V24__add_dispensed_item_allocations.sql
+-- Batches each dispensed item was drawn from, and indexes for first expiry first dispensing
+
+CREATE TABLE IF NOT EXISTS dispensed_item_allocations (
+    id                  UUID PRIMARY KEY,
+    dispensed_item_id   UUID NOT NULL REFERENCES dispensed_items(id) ON DELETE CASCADE,
+    inventory_batch_id  UUID REFERENCES inventory_batches(id) ON DELETE SET NULL,
+    quantity            INTEGER NOT NULL,
+    unit_price          NUMERIC(10, 2) DEFAULT 0,
+    total_price         NUMERIC(10, 2) DEFAULT 0,
+    created_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_dispensed_item_allocations_item ON dispensed_item_allocations(dispensed_item_id);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_batches_medicine_expiry_active
+    ON inventory_batches(medicine_id, expiry_date) WHERE status = 'ACTIVE';
+
+CREATE INDEX IF NOT EXISTS idx_dispensed_items_prescription ON dispensed_items(prescription_id);
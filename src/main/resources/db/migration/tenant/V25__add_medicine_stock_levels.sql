@@ -0,0 +1,15 @@
+-- V25__add_medicine_stock_levels.sql
+-- Stock on hand per medicine, maintained by stock movements and seeded from the active batches
+
+CREATE TABLE IF NOT EXISTS medicine_stock_levels (
+    medicine_id         UUID PRIMARY KEY REFERENCES medicines(id) ON DELETE CASCADE,
+    quantity_on_hand    INTEGER NOT NULL DEFAULT 0,
+    updated_at          TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO medicine_stock_levels (medicine_id, quantity_on_hand)
+SELECT medicine_id, SUM(quantity_available)
+FROM inventory_batches
+WHERE status = 'ACTIVE'
+GROUP BY medicine_id
+ON CONFLICT (medicine_id) DO NOTHING;
@@ -0,0 +1,71 @@
+-- V26__add_pharmacy_revenue_rollups.sql
+-- Pharmacy revenue per hour, per day and per medicine and day, maintained by dispensing.
+-- Seeded from the dispensed items: dispenses since V24 from their batch allocations, at the
+-- time and price of each allocation; older dispenses at the item's last update.
+
+CREATE TABLE IF NOT EXISTS pharmacy_revenue_hourly (
+    hour_start          TIMESTAMP PRIMARY KEY,
+    revenue             NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    units_dispensed     INTEGER NOT NULL DEFAULT 0,
+    dispense_count      INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS pharmacy_revenue_daily (
+    revenue_date        DATE PRIMARY KEY,
+    revenue             NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    units_dispensed     INTEGER NOT NULL DEFAULT 0,
+    dispense_count      INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS pharmacy_medicine_revenue_daily (
+    revenue_date        DATE NOT NULL,
+    medicine_id         UUID NOT NULL REFERENCES medicines(id) ON DELETE CASCADE,
+    revenue             NUMERIC(14, 2) NOT NULL DEFAULT 0,
+    units_dispensed     INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (revenue_date, medicine_id)
+);
+
+-- One row per sale. Items dispensed before V24 have no allocations and are sold at their last
+-- update. Items dispensed both before and after keep the part not covered by allocations, sold at
+-- their creation, as their last update is a later dispense.
+CREATE TEMPORARY TABLE pharmacy_revenue_seed AS
+SELECT COALESCE(a.created_at, i.updated_at, i.created_at) AS sold_at, i.prescription_id, i.medicine_id,
+       COALESCE(a.total_price, 0) AS revenue, a.quantity AS units
+FROM dispensed_item_allocations a
+JOIN dispensed_items i ON i.id = a.dispensed_item_id
+UNION ALL
+SELECT CASE WHEN allocated.dispensed_item_id IS NULL THEN COALESCE(i.updated_at, i.created_at)
+            ELSE i.created_at END,
+       i.prescription_id, i.medicine_id,
+       COALESCE(i.total_price, 0) - COALESCE(allocated.revenue, 0),
+       i.dispensed_quantity - COALESCE(allocated.units, 0)
+FROM dispensed_items i
+LEFT JOIN (
+    SELECT dispensed_item_id, SUM(COALESCE(total_price, 0)) AS revenue, SUM(quantity) AS units
+    FROM dispensed_item_allocations
+    GROUP BY dispensed_item_id
+) allocated ON allocated.dispensed_item_id = i.id
+WHERE i.dispensed_quantity - COALESCE(allocated.units, 0) > 0;
+
+INSERT INTO pharmacy_revenue_hourly (hour_start, revenue, units_dispensed, dispense_count)
+SELECT DATE_TRUNC('hour', sold_at), SUM(revenue), SUM(units), COUNT(DISTINCT prescription_id)
+FROM pharmacy_revenue_seed
+WHERE sold_at IS NOT NULL
+GROUP BY 1
+ON CONFLICT (hour_start) DO NOTHING;
+
+INSERT INTO pharmacy_revenue_daily (revenue_date, revenue, units_dispensed, dispense_count)
+SELECT CAST(sold_at AS DATE), SUM(revenue), SUM(units), COUNT(DISTINCT prescription_id)
+FROM pharmacy_revenue_seed
+WHERE sold_at IS NOT NULL
+GROUP BY 1
+ON CONFLICT (revenue_date) DO NOTHING;
+
+INSERT INTO pharmacy_medicine_revenue_daily (revenue_date, medicine_id, revenue, units_dispensed)
+SELECT CAST(sold_at AS DATE), medicine_id, SUM(revenue), SUM(units)
+FROM pharmacy_revenue_seed
+WHERE sold_at IS NOT NULL
+GROUP BY 1, 2
+ON CONFLICT (revenue_date, medicine_id) DO NOTHING;
+
+DROP TABLE pharmacy_revenue_seed;
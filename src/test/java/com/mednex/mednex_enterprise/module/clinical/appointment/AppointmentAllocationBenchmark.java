@@ -0,0 +1,285 @@
+package com.mednex.mednex_enterprise.module.clinical.appointment;
+
+import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.core.pagination.KeysetPaging;
+import com.mednex.mednex_enterprise.core.repository.StaffProfileRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.Appointment;
+import com.mednex.mednex_enterprise.module.clinical.appointment.entity.AppointmentStatus;
+import com.mednex.mednex_enterprise.module.clinical.appointment.exception.SlotUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.appointment.repository.AppointmentRepository;
+import com.mednex.mednex_enterprise.module.clinical.appointment.service.AppointmentAllocationService;
+import com.mednex.mednex_enterprise.module.clinical.appointment.service.DoctorSlotCalendar;
+import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.support.TenantDatabaseTestConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for slot booking and token allocation: many concurrent
+ * receptionists booking random slots of a few doctors on one day, each booking
+ * in its own transaction. Books once through
+ * {@link AppointmentAllocationService#claimSlot}, and once with a plain
+ * check-then-act on {@link AppointmentRepository#existsHeldSlot} that leaves
+ * races to the partial unique index on (doctor, time). Runs against a scratch
+ * tenant schema of a real PostgreSQL database, so it only runs when one is given:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=AppointmentAllocationBenchmark \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/mednex \
+ *     -Dbenchmark.user=postgres -Dbenchmark.password=postgres
+ * </pre>
+ *
+ * Optional: benchmark.receptionists (32), benchmark.bookings (100 each),
+ * benchmark.doctors (4), benchmark.slots (96 per doctor, at most).
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+@SpringJUnitConfig(AppointmentAllocationBenchmark.Config.class)
+class AppointmentAllocationBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentAllocationBenchmark.class);
+
+    private static final String TENANT = "allocation_bench";
+    private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+    @Configuration
+    @Import({ TenantDatabaseTestConfig.class, AppointmentAllocationService.class, DoctorSlotCalendar.class })
+    @EnableJpaRepositories(basePackageClasses = { AppointmentRepository.class, StaffProfileRepository.class })
+    static class Config {
+    }
+
+    private final int receptionists = Integer.getInteger("benchmark.receptionists", 32);
+    private final int bookingsEach = Integer.getInteger("benchmark.bookings", 100);
+    private final int doctorCount = Integer.getInteger("benchmark.doctors", 4);
+    // 15-minute slots, all on one day
+    private final int slotsPerDoctor = Math.min(96, Integer.getInteger("benchmark.slots", 96));
+
+    @Autowired
+    private AppointmentAllocationService allocationService;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // New doctors per test, so tests sharing the schema do not see each other's bookings
+    private final List<UUID> doctors = new ArrayList<>();
+    private UUID patientId;
+
+    @BeforeEach
+    void createDoctorsAndPatient() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < doctorCount; i++) {
+                User doctor = User.builder()
+                        .name("Benchmark doctor " + i)
+                        .email("doctor-" + UUID.randomUUID() + "@bench.test")
+                        .password("-")
+                        .active(true)
+                        .build();
+                entityManager.persist(doctor);
+                doctors.add(doctor.getId());
+            }
+            Patient patient = Patient.builder()
+                    .firstName("Benchmark")
+                    .lastName("Patient")
+                    .build();
+            entityManager.persist(patient);
+            patientId = patient.getId();
+        });
+    }
+
+    @Test
+    void checkThenActRacesAreStoppedOnlyByTheSlotIndex() throws Exception {
+        Result result = run(this::bookCheckThenAct);
+        result.log("check-then-act");
+
+        // Races that got past the check are caught by the index, never committed
+        assertEquals(0, result.duplicateSlots, "double-booked slots");
+        assertEquals(0, result.errors.get(), "unexpected errors");
+        assertTrue(result.booked > 0);
+        assertEquals(receptionists * bookingsEach,
+                result.booked + result.conflicts.get() + result.indexViolations.get());
+    }
+
+    @Test
+    void lockedCounterBooksEachSlotAndTokenOnce() throws Exception {
+        Result result = run(this::bookWithCounter);
+        result.log("locked counter");
+
+        assertEquals(0, result.duplicateSlots, "double-booked slots");
+        assertEquals(0, result.duplicateTokens, "duplicate tokens");
+        assertEquals(0, result.tokenGaps, "gaps in token sequences");
+        assertEquals(0, result.indexViolations.get(), "races that reached the unique index");
+        assertEquals(0, result.errors.get(), "unexpected errors");
+        assertTrue(result.booked > 0);
+        assertEquals(receptionists * bookingsEach, result.booked + result.conflicts.get());
+    }
+
+    private Result run(Booking booking) throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger indexViolations = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(receptionists);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < receptionists; r++) {
+            futures.add(pool.submit(() -> {
+                TenantContext.setCurrentTenant(TENANT);
+                try {
+                    start.await();
+                    for (int i = 0; i < bookingsEach; i++) {
+                        UUID doctorId = doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+                        LocalDateTime time = DAY.atStartOfDay()
+                                .plusMinutes(15L * ThreadLocalRandom.current().nextInt(slotsPerDoctor));
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> booking.book(doctorId, time));
+                        } catch (SlotUnavailableException e) {
+                            conflicts.incrementAndGet();
+                        } catch (DataIntegrityViolationException e) {
+                            indexViolations.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            log.warn("Unexpected booking failure", e);
+                            errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    TenantContext.clear();
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        pool.shutdown();
+        return verify(elapsedNanos, conflicts, indexViolations, errors);
+    }
+
+    private void bookCheckThenAct(UUID doctorId, LocalDateTime time) {
+        if (appointmentRepository.existsHeldSlot(doctorId, time, KeysetPaging.MIN_ID)) {
+            throw new SlotUnavailableException(doctorId, time, List.of());
+        }
+        Appointment appointment = newAppointment();
+        appointment.setDoctor(entityManager.getReference(User.class, doctorId));
+        appointment.setAppointmentTime(time);
+        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        appointmentRepository.saveAndFlush(appointment);
+    }
+
+    private void bookWithCounter(UUID doctorId, LocalDateTime time) {
+        Appointment appointment = newAppointment();
+        allocationService.claimSlot(appointment, entityManager.getReference(User.class, doctorId), time);
+        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        appointmentRepository.saveAndFlush(appointment);
+    }
+
+    private Appointment newAppointment() {
+        return Appointment.builder()
+                .patient(entityManager.getReference(Patient.class, patientId))
+                .status(AppointmentStatus.TRIAGED)
+                .build();
+    }
+
+    private Result verify(long elapsedNanos, AtomicInteger conflicts, AtomicInteger indexViolations,
+            AtomicInteger errors) throws SQLException {
+        // Generated IDs, safe to inline
+        String doctorIds = doctors.stream().map(id -> "'" + id + "'").collect(Collectors.joining(", "));
+        String ours = "FROM appointments WHERE doctor_id IN (" + doctorIds + ") AND status <> 'CANCELLED' ";
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            Result result = new Result(elapsedNanos, conflicts, indexViolations, errors);
+            result.booked = count(statement, "SELECT COUNT(*) " + ours);
+            result.duplicateSlots = count(statement, "SELECT COALESCE(SUM(n - 1), 0) FROM (SELECT COUNT(*) AS n "
+                    + ours + "GROUP BY doctor_id, appointment_time) slots");
+            result.duplicateTokens = count(statement, "SELECT COALESCE(SUM(n - 1), 0) FROM (SELECT COUNT(*) AS n "
+                    + ours + "AND token_number IS NOT NULL GROUP BY doctor_id, token_number) tokens");
+            result.tokenGaps = count(statement, "SELECT COALESCE(SUM(m - n), 0) FROM (SELECT MAX(token_number) AS m, "
+                    + "COUNT(DISTINCT token_number) AS n " + ours + "AND token_number IS NOT NULL "
+                    + "GROUP BY doctor_id) tokens");
+            return result;
+        }
+    }
+
+    private static int count(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Booking {
+        void book(UUID doctorId, LocalDateTime time);
+    }
+
+    private static final class Result {
+        private final long elapsedNanos;
+        private final AtomicInteger conflicts;
+        private final AtomicInteger indexViolations;
+        private final AtomicInteger errors;
+        private int booked;
+        private int duplicateSlots;
+        private int duplicateTokens;
+        private int tokenGaps;
+
+        private Result(long elapsedNanos, AtomicInteger conflicts, AtomicInteger indexViolations,
+                AtomicInteger errors) {
+            this.elapsedNanos = elapsedNanos;
+            this.conflicts = conflicts;
+            this.indexViolations = indexViolations;
+            this.errors = errors;
+        }
+
+        private void log(String protocol) {
+            double seconds = elapsedNanos / 1e9;
+            int attempts = booked + conflicts.get() + indexViolations.get() + errors.get();
+            log.info("{}: {} attempts in {} s ({}/s), {} booked, {} slot conflicts, {} unique index violations, "
+                            + "{} errors, {} double-booked slots, {} duplicate tokens, {} token gaps",
+                    protocol, attempts, String.format("%.2f", seconds), String.format("%.0f", attempts / seconds),
+                    booked, conflicts.get(), indexViolations.get(), errors.get(), duplicateSlots, duplicateTokens,
+                    tokenGaps);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd;
+
+import com.mednex.mednex_enterprise.core.entity.Branch;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Bed;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Ward;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.exception.BedUnavailableException;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.BedRepository;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedAllocationService;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedBoardService;
+import com.mednex.mednex_enterprise.multitenancy.context.TenantContext;
+import com.mednex.mednex_enterprise.support.TenantDatabaseTestConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test for bed claims: many receptionists claiming random beds out of a
+ * few through {@link BedAllocationService}, each claim in its own transaction.
+ * Runs against a scratch tenant schema of a real PostgreSQL database, so it
+ * only runs when one is given:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=BedClaimStressTest \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/mednex \
+ *     -Dbenchmark.user=postgres -Dbenchmark.password=postgres
+ * </pre>
+ *
+ * Optional: benchmark.receptionists (32), benchmark.claims (50 each),
+ * benchmark.beds (8).
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+@SpringJUnitConfig(BedClaimStressTest.Config.class)
+class BedClaimStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BedClaimStressTest.class);
+
+    private static final String TENANT = "bed_claim_stress";
+
+    @Configuration
+    @Import({ TenantDatabaseTestConfig.class, BedAllocationService.class, BedBoardService.class })
+    @EnableJpaRepositories(basePackageClasses = BedRepository.class)
+    static class Config {
+    }
+
+    private final int receptionists = Integer.getInteger("benchmark.receptionists", 32);
+    private final int claimsEach = Integer.getInteger("benchmark.claims", 50);
+    private final int bedCount = Integer.getInteger("benchmark.beds", 8);
+
+    @Autowired
+    private BedAllocationService bedAllocationService;
+
+    @Autowired
+    private BedRepository bedRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<UUID> beds = new ArrayList<>();
+
+    @BeforeEach
+    void createBeds() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Branch branch = Branch.builder()
+                    .name("Stress branch")
+                    .code("ST-" + Long.toHexString(System.nanoTime()))
+                    .active(true)
+                    .build();
+            entityManager.persist(branch);
+            Ward ward = Ward.builder()
+                    .name("Stress ward")
+                    .branch(branch)
+                    .wardType(WardType.GENERAL)
+                    .totalCapacity(bedCount)
+                    .build();
+            entityManager.persist(ward);
+            for (int i = 0; i < bedCount; i++) {
+                Bed bed = Bed.builder()
+                        .ward(ward)
+                        .bedNumber("S-" + i)
+                        .bedType(BedType.GENERAL)
+                        .status(BedStatus.AVAILABLE)
+                        .build();
+                entityManager.persist(bed);
+                beds.add(bed.getId());
+            }
+        });
+    }
+
+    @Test
+    void everyBedIsClaimedAtMostOnce() throws Exception {
+        Map<UUID, Long> initialVersions = versions();
+        List<UUID> claimed = new ArrayList<>();
+        AtomicInteger unavailable = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(receptionists);
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+        for (int r = 0; r < receptionists; r++) {
+            futures.add(pool.submit(() -> {
+                List<UUID> won = new ArrayList<>();
+                TenantContext.setCurrentTenant(TENANT);
+                try {
+                    start.await();
+                    for (int i = 0; i < claimsEach; i++) {
+                        UUID bedId = beds.get(ThreadLocalRandom.current().nextInt(beds.size()));
+                        try {
+                            Bed bed = transactionTemplate.execute(status -> bedAllocationService.claim(bedId));
+                            assertEquals(bedId, bed.getId());
+                            assertEquals(BedStatus.OCCUPIED, bed.getStatus());
+                            won.add(bedId);
+                        } catch (BedUnavailableException e) {
+                            assertEquals(bedId, e.getBedId());
+                            unavailable.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            log.warn("Unexpected claim failure", e);
+                            errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    TenantContext.clear();
+                }
+                return won;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<List<UUID>> future : futures) {
+            claimed.addAll(future.get());
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+
+        Map<UUID, Long> finalVersions = versions();
+        long occupied = bedRepository.findAllById(beds).stream()
+                .filter(bed -> bed.getStatus() == BedStatus.OCCUPIED)
+                .count();
+        log.info("{} claims in {} s: {} won, {} unavailable, {} errors, {} of {} beds occupied",
+                receptionists * claimsEach, String.format("%.2f", seconds), claimed.size(), unavailable.get(),
+                errors.get(), occupied, bedCount);
+
+        assertEquals(0, errors.get(), "unexpected errors");
+        assertEquals(claimed.size(), new HashSet<>(claimed).size(), "beds claimed more than once");
+        assertEquals(receptionists * claimsEach, claimed.size() + unavailable.get());
+        assertEquals(claimed.size(), occupied, "occupied beds without exactly one winning claim");
+        assertTrue(claimed.size() <= bedCount);
+        for (UUID bedId : claimed) {
+            // One conditional update per bed, so its version moved exactly once
+            assertEquals(initialVersions.get(bedId) + 1, finalVersions.get(bedId), "version of bed " + bedId);
+        }
+    }
+
+    private Map<UUID, Long> versions() {
+        return bedRepository.findAllById(beds).stream()
+                .collect(Collectors.toMap(Bed::getId, Bed::getVersion));
+    }
+}
@@ -0,0 +1,262 @@
+package com.mednex.mednex_enterprise.module.clinical.ipd;
+
+import com.mednex.mednex_enterprise.core.entity.Branch;
+import com.mednex.mednex_enterprise.core.entity.Permission;
+import com.mednex.mednex_enterprise.core.entity.Role;
+import com.mednex.mednex_enterprise.core.entity.User;
+import com.mednex.mednex_enterprise.module.clinical.doctor.repository.VitalsRepository;
+import com.mednex.mednex_enterprise.module.clinical.doctor.service.EmrSnapshotCache;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.BranchOccupancyDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.RoomWithBedsDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.dto.WardMapDTO;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Admission;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.AdmissionStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.AssetType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Bed;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedStatus;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.BedType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.MedicalAsset;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Room;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.RoomType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.Ward;
+import com.mednex.mednex_enterprise.module.clinical.ipd.entity.WardType;
+import com.mednex.mednex_enterprise.module.clinical.ipd.repository.BedRepository;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedAllocationService;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedBoardService;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.BedManagementService;
+import com.mednex.mednex_enterprise.module.clinical.ipd.service.IpdService;
+import com.mednex.mednex_enterprise.module.clinical.patient.entity.Patient;
+import com.mednex.mednex_enterprise.module.clinical.patient.repository.PatientRepository;
+import com.mednex.mednex_enterprise.support.TenantDatabaseTestConfig;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements Hibernate prepares for ward screens, which must not
+ * grow with the number of wards or beds shown. Runs against a scratch tenant
+ * schema of a real PostgreSQL database, so it only runs when one is given:
+ *
+ * <pre>
+ * ./mvnw test -Dtest=WardQueryCountTest \
+ *     -Dbenchmark.jdbc-url=jdbc:postgresql://localhost:5432/mednex \
+ *     -Dbenchmark.user=postgres -Dbenchmark.password=postgres
+ * </pre>
+ *
+ * Optional: benchmark.wards (20), the number of wards in the larger branch,
+ * and benchmark.beds (20), the number of occupied beds in the larger ward.
+ */
+@EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+@SpringJUnitConfig(WardQueryCountTest.Config.class)
+class WardQueryCountTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WardQueryCountTest.class);
+
+    private static final BedStatus[] STATUSES = { BedStatus.AVAILABLE, BedStatus.OCCUPIED, BedStatus.CLEANING };
+
+    @Configuration
+    @Import({ TenantDatabaseTestConfig.class, IpdService.class, BedManagementService.class,
+            BedAllocationService.class, BedBoardService.class, EmrSnapshotCache.class })
+    @EnableJpaRepositories(basePackageClasses = { BedRepository.class, VitalsRepository.class,
+            PatientRepository.class })
+    static class Config {
+    }
+
+    private final int largeWards = Integer.getInteger("benchmark.wards", 20);
+    private final int largeWardBeds = Integer.getInteger("benchmark.beds", 20);
+
+    @Autowired
+    private IpdService ipdService;
+
+    @Autowired
+    private BedManagementService bedManagementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void branchOccupancyTakesTheSameStatementsForAnyNumberOfWards() {
+        UUID small = createBranch(1);
+        UUID large = createBranch(largeWards);
+
+        long smallStatements = statements(() -> ipdService.getBranchOccupancy(small));
+        long largeStatements = statements(() -> ipdService.getBranchOccupancy(large));
+        log.info("Branch occupancy: {} statements for 1 ward, {} for {} wards",
+                smallStatements, largeStatements, largeWards);
+
+        BranchOccupancyDTO occupancy = ipdService.getBranchOccupancy(large);
+        assertEquals(largeWards, occupancy.getWards().size());
+        assertEquals(largeWards * STATUSES.length, occupancy.getTotalBeds());
+        assertEquals(smallStatements, largeStatements, "statements grew with the number of wards");
+    }
+
+    @Test
+    void wardListTakesTheSameStatementsForAnyNumberOfWards() {
+        UUID small = createBranch(1);
+        UUID large = createBranch(largeWards);
+
+        long smallStatements = statements(() -> ipdService.getWardsByBranch(small));
+        long largeStatements = statements(() -> ipdService.getWardsByBranch(large));
+        log.info("Ward list: {} statements for 1 ward, {} for {} wards",
+                smallStatements, largeStatements, largeWards);
+
+        assertEquals(smallStatements, largeStatements, "statements grew with the number of wards");
+    }
+
+    @Test
+    void wardMapTakesTheSameStatementsForAnyNumberOfPatients() {
+        UUID small = createOccupiedWard(1);
+        UUID large = createOccupiedWard(largeWardBeds);
+
+        long smallStatements = statements(() -> bedManagementService.getWardMap(small));
+        long largeStatements = statements(() -> bedManagementService.getWardMap(large));
+        log.info("Ward map: {} statements for 1 patient, {} for {} patients",
+                smallStatements, largeStatements, largeWardBeds);
+
+        WardMapDTO map = bedManagementService.getWardMap(large);
+        long withPatientAndDoctor = map.getRooms().stream()
+                .map(RoomWithBedsDTO::getBeds)
+                .flatMap(List::stream)
+                .filter(bed -> bed.getPatient() != null && bed.getPatient().getDoctorName() != null
+                        && bed.getAttachedAssets().size() == 1)
+                .count();
+        assertEquals(largeWardBeds, withPatientAndDoctor);
+        assertEquals(smallStatements, largeStatements, "statements grew with the number of patients");
+    }
+
+    private long statements(Runnable call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // A branch with `wards` wards, each with one bed per status in STATUSES
+    private UUID createBranch(int wards) {
+        return transactionTemplate.execute(status -> {
+            Branch branch = Branch.builder()
+                    .name("Query count branch")
+                    .code("QC-" + Long.toHexString(System.nanoTime()))
+                    .active(true)
+                    .build();
+            entityManager.persist(branch);
+            for (int w = 0; w < wards; w++) {
+                Ward ward = Ward.builder()
+                        .name("Ward " + w)
+                        .branch(branch)
+                        .wardType(WardType.GENERAL)
+                        .totalCapacity(STATUSES.length)
+                        .build();
+                entityManager.persist(ward);
+                for (int b = 0; b < STATUSES.length; b++) {
+                    entityManager.persist(Bed.builder()
+                            .ward(ward)
+                            .bedNumber(w + "-" + b)
+                            .bedType(BedType.GENERAL)
+                            .status(STATUSES[b])
+                            .build());
+                }
+            }
+            return branch.getId();
+        });
+    }
+
+    // A ward with `beds` occupied beds, one per room, each with its own patient, doctor and monitor.
+    // Every doctor has their own role and permission, so loading doctors would cost statements per bed.
+    private UUID createOccupiedWard(int beds) {
+        return transactionTemplate.execute(status -> {
+            String suffix = Long.toHexString(System.nanoTime());
+            Branch branch = Branch.builder()
+                    .name("Ward map branch")
+                    .code("WM-" + suffix)
+                    .active(true)
+                    .build();
+            entityManager.persist(branch);
+            Ward ward = Ward.builder()
+                    .name("Ward map " + suffix)
+                    .branch(branch)
+                    .wardType(WardType.GENERAL)
+                    .totalCapacity(beds)
+                    .build();
+            entityManager.persist(ward);
+            for (int i = 0; i < beds; i++) {
+                String key = suffix + "-" + i;
+                Permission permission = Permission.builder().name("QC_PERMISSION_" + key).build();
+                entityManager.persist(permission);
+                Role role = Role.builder().name("QC_ROLE_" + key).permissions(Set.of(permission)).build();
+                entityManager.persist(role);
+                User doctor = User.builder()
+                        .name("Doctor " + key)
+                        .email("doctor-" + key + "@example.com")
+                        .password("unused")
+                        .primaryBranch(branch)
+                        .roles(Set.of(role))
+                        .build();
+                entityManager.persist(doctor);
+                Patient patient = Patient.builder()
+                        .firstName("Patient")
+                        .lastName(key)
+                        .build();
+                entityManager.persist(patient);
+
+                Room room = Room.builder()
+                        .roomNumber("R-" + i)
+                        .roomType(RoomType.PRIVATE)
+                        .ward(ward)
+                        .status("ACTIVE")
+                        .build();
+                entityManager.persist(room);
+                Bed bed = Bed.builder()
+                        .ward(ward)
+                        .room(room)
+                        .bedNumber("B-" + i)
+                        .bedType(BedType.GENERAL)
+                        .status(BedStatus.OCCUPIED)
+                        .build();
+                entityManager.persist(bed);
+                entityManager.persist(Admission.builder()
+                        .patient(patient)
+                        .admittingDoctor(doctor)
+                        .currentBed(bed)
+                        .admissionDate(LocalDateTime.now())
+                        .status(AdmissionStatus.ADMITTED)
+                        .build());
+                entityManager.persist(MedicalAsset.builder()
+                        .name("Monitor " + key)
+                        .assetType(AssetType.PATIENT_MONITOR)
+                        .serialNumber("SN-" + key)
+                        .status("ASSIGNED")
+                        .currentLocationType("BED")
+                        .currentLocationId(bed.getId())
+                        .build());
+            }
+            return ward.getId();
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.mednex.mednex_enterprise.support;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A tenant database for tests that need a real PostgreSQL: a scratch schema
+ * migrated with the tenant migrations and mapped with the settings of
+ * TenantJpaConfig, dropped again when the context closes. Hibernate statistics
+ * are on, so tests can count the statements a call issues. Connects with the
+ * benchmark.jdbc-url, benchmark.user and benchmark.password system properties,
+ * so tests importing it should be enabled on benchmark.jdbc-url. Add the
+ * repositories and services under test next to it. A test configuration, so
+ * the application tests do not pick it up when scanning.
+ */
+@TestConfiguration
+@EnableTransactionManagement
+public class TenantDatabaseTestConfig {
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource() {
+        String schema = "tenant_test_" + Long.toHexString(System.nanoTime());
+        Flyway.configure()
+                .dataSource(jdbcUrl(), user(), password())
+                .locations("classpath:db/migration/tenant")
+                .schemas(schema)
+                .load()
+                .migrate();
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl());
+        config.setUsername(user());
+        config.setPassword(password());
+        config.setSchema(schema);
+        config.setMaximumPoolSize(Integer.getInteger("benchmark.pool-size", 64));
+        config.setPoolName("Hikari-" + schema);
+        return new ScratchSchemaDataSource(config, schema);
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+        LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setDataSource(dataSource);
+        em.setPackagesToScan("com.mednex.mednex_enterprise");
+        em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hbm2ddl.auto", "update");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.default_batch_fetch_size", "200");
+        properties.put("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        properties.put("hibernate.generate_statistics", "true");
+        em.setJpaPropertyMap(properties);
+        return em;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(LocalContainerEntityManagerFactoryBean entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory.getObject());
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private static String jdbcUrl() {
+        return System.getProperty("benchmark.jdbc-url");
+    }
+
+    private static String user() {
+        return System.getProperty("benchmark.user");
+    }
+
+    private static String password() {
+        return System.getProperty("benchmark.password");
+    }
+
+    private static final class ScratchSchemaDataSource extends HikariDataSource {
+        private final String schema;
+
+        private ScratchSchemaDataSource(HikariConfig config, String schema) {
+            super(config);
+            this.schema = schema;
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            try (Connection connection = DriverManager.getConnection(jdbcUrl(), user(), password());
+                    Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not drop test schema " + schema, e);
+            }
+        }
+    }
+}